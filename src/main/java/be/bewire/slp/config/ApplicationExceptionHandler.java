@@ -1,17 +1,27 @@
 package be.bewire.slp.config;
 
+import be.bewire.slp.exceptions.ConflictException;
+import be.bewire.slp.exceptions.DeadlineExceededException;
 import be.bewire.slp.exceptions.MalformedBodyException;
 import be.bewire.slp.exceptions.ResourceNotFoundException;
+import be.bewire.slp.jfr.ExceptionMappingEvent;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionTimedOutException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.sql.SQLTransientConnectionException;
 import java.util.Dictionary;
 import java.util.Hashtable;
 
 /**
  * Error handling. If there is an error in the application, return a 500-error with the message in the body.
+ * Known exceptions are also recognized as the cause of another exception, the innermost one decides the status,
+ * so eg. a query timeout is still a 504 after the persistence layer wrapped it.
  *
  * @author Jens Beernaert
  */
@@ -25,16 +35,34 @@ public class ApplicationExceptionHandler {
 
         errorHandlingTable.put(ResourceNotFoundException.class, HttpStatus.NOT_FOUND);
         errorHandlingTable.put(MalformedBodyException.class, HttpStatus.BAD_REQUEST);
+        errorHandlingTable.put(ConflictException.class, HttpStatus.CONFLICT);
+
+        // Request deadlines
+        errorHandlingTable.put(DeadlineExceededException.class, HttpStatus.GATEWAY_TIMEOUT);
+        errorHandlingTable.put(QueryTimeoutException.class, HttpStatus.GATEWAY_TIMEOUT);
+        errorHandlingTable.put(TransactionTimedOutException.class, HttpStatus.GATEWAY_TIMEOUT);
+        errorHandlingTable.put(SQLTransientConnectionException.class, HttpStatus.SERVICE_UNAVAILABLE);
+        errorHandlingTable.put(CannotGetJdbcConnectionException.class, HttpStatus.SERVICE_UNAVAILABLE);
+        errorHandlingTable.put(CannotCreateTransactionException.class, HttpStatus.SERVICE_UNAVAILABLE);
     }
 
     @ExceptionHandler
     public ResponseEntity<String> handleException(Exception ex) {
 
-        HttpStatus status = errorHandlingTable.get(ex.getClass());
+        HttpStatus status = null;
+
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            HttpStatus causeStatus = errorHandlingTable.get(cause.getClass());
+
+            if (causeStatus != null)
+                status = causeStatus;
+        }
 
         if(status == null)
             status = HttpStatus.INTERNAL_SERVER_ERROR;
 
+        ExceptionMappingEvent.emit(ex, status.value());
+
         return ResponseEntity.status(status).body(ex.getMessage());
     }
 }
@@ -0,0 +1,51 @@
+package be.bewire.slp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the employee change history, bound from the {@code slp.audit} properties.
+ */
+@ConfigurationProperties(prefix = "slp.audit")
+public class AuditProperties {
+
+    /**
+     * Record the changes of employees in the audit outbox.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum amount of outbox rows moved to the history table in one transaction.
+     */
+    private int batchSize = 5000;
+
+    /**
+     * Pause between two drains of the outbox, in milliseconds.
+     */
+    private long drainIntervalMillis = 1000;
+
+    // Getters & Setters
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getDrainIntervalMillis() {
+        return drainIntervalMillis;
+    }
+
+    public void setDrainIntervalMillis(long drainIntervalMillis) {
+        this.drainIntervalMillis = drainIntervalMillis;
+    }
+}
@@ -0,0 +1,75 @@
+package be.bewire.slp.config;
+
+import be.bewire.slp.deadline.DeadlineDataSource;
+import be.bewire.slp.deadline.DeadlineFilter;
+import be.bewire.slp.deadline.DeadlineTransactionManager;
+import be.bewire.slp.jdbc.DataSourceDecorator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.support.JdbcAccessor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Request deadlines, on by default. Every {@code /api} request gets a deadline (see {@link be.bewire.slp.deadline.DeadlineFilter}),
+ * whose remaining budget becomes the timeout of its transactions, JDBC statements and connection waits.
+ * Expired requests are answered with a 504, requests that cannot get a connection in time with a 503.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "slp.deadline", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DeadlineConfig {
+
+    @Bean
+    public FilterRegistrationBean<DeadlineFilter> deadlineFilter(DeadlineProperties properties) {
+        FilterRegistrationBean<DeadlineFilter> registration = new FilterRegistrationBean<>(new DeadlineFilter(properties));
+        registration.addUrlPatterns("/api/*");
+
+        return registration;
+    }
+
+    /**
+     * Replaces the transaction manager of Spring Boot, configured the same way.
+     */
+    @Bean
+    public PlatformTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        DeadlineTransactionManager transactionManager = new DeadlineTransactionManager();
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+
+        return transactionManager;
+    }
+
+    /**
+     * Wraps every connection pool before any other decorator, so eg. the permits of virtual threads are taken first.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public DataSourceDecorator deadlineDataSourceDecorator() {
+        return (dataSource, pool) -> new DeadlineDataSource(dataSource, pool.getMaximumPoolSize(), pool.getConnectionTimeout());
+    }
+
+    /**
+     * Resolves the exception translator of JDBC templates up front: done lazily it looks up the database on
+     * a new connection, which an expired deadline refuses, so a query timeout would not be translated.
+     */
+    @Bean
+    public static BeanPostProcessor jdbcExceptionTranslatorPostProcessor() {
+        return new JdbcExceptionTranslatorPostProcessor();
+    }
+
+    private static class JdbcExceptionTranslatorPostProcessor implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof JdbcAccessor)
+                ((JdbcAccessor) bean).getExceptionTranslator();
+
+            return bean;
+        }
+    }
+}
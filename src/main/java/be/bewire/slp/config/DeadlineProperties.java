@@ -0,0 +1,66 @@
+package be.bewire.slp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Request deadlines, bound from the {@code slp.deadline} properties.
+ */
+@ConfigurationProperties(prefix = "slp.deadline")
+public class DeadlineProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Timeout of requests that match none of the routes, none when empty.
+     */
+    private Duration defaultTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Timeout per route (ant pattern), the first matching route wins,
+     * eg. {@code slp.deadline.routes.[/api/employee/bulk/**]=5m}.
+     */
+    private Map<String, Duration> routes = new LinkedHashMap<>();
+
+    /**
+     * Header in which a client can ask for a shorter timeout, in milliseconds.
+     */
+    private String header = "X-Request-Timeout";
+
+    // Getters & Setters
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    public void setDefaultTimeout(Duration defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    public Map<String, Duration> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Duration> routes) {
+        this.routes = routes;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public void setHeader(String header) {
+        this.header = header;
+    }
+}
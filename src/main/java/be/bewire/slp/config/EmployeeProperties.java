@@ -0,0 +1,151 @@
+package be.bewire.slp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Tunables for the employee api, bound from the {@code slp.employee} properties.
+ */
+@ConfigurationProperties(prefix = "slp.employee")
+public class EmployeeProperties {
+
+    /**
+     * Share one in-flight database query between concurrent identical reads.
+     */
+    private boolean coalescing = true;
+
+    /**
+     * Limits of the multi-get lookup.
+     */
+    private final Batch batch = new Batch();
+
+    /**
+     * Limits of the set-based bulk updates.
+     */
+    private final Bulk bulk = new Bulk();
+
+    /**
+     * Cache of the serialized json per employee version.
+     */
+    private final JsonCache jsonCache = new JsonCache();
+
+    /**
+     * In-memory read model of all employees.
+     */
+    private final Snapshot snapshot = new Snapshot();
+
+    // Getters & Setters
+
+    public boolean isCoalescing() {
+        return coalescing;
+    }
+
+    public void setCoalescing(boolean coalescing) {
+        this.coalescing = coalescing;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Bulk getBulk() {
+        return bulk;
+    }
+
+    public JsonCache getJsonCache() {
+        return jsonCache;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public static class Batch {
+
+        /**
+         * Maximum amount of ids in one lookup request.
+         */
+        private int maxSize = 500;
+
+        /**
+         * Maximum amount of ids in one {@code WHERE id IN (...)} query.
+         */
+        private int chunkSize = 100;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class Bulk {
+
+        /**
+         * Maximum amount of rows changed by one UPDATE statement, each chunk commits on its own.
+         */
+        private int chunkSize = 1000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class JsonCache {
+
+        /**
+         * Write cached json bytes for unchanged employees instead of serializing them again.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum amount of cached employees.
+         */
+        private int maxEntries = 100000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    public static class Snapshot {
+
+        /**
+         * Serve the reads from a snapshot of all employees in memory instead of the database.
+         */
+        private boolean enabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+}
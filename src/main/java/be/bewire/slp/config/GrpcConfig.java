@@ -0,0 +1,48 @@
+package be.bewire.slp.config;
+
+import be.bewire.slp.grpc.EmployeeGrpcService;
+import be.bewire.slp.repository.EmployeeRepository;
+import be.bewire.slp.service.EmployeeService;
+import be.bewire.slp.sharding.ShardRouter;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.validation.Validator;
+import java.io.IOException;
+
+/**
+ * gRPC server next to the REST api, on by default on port 9090 ({@code slp.grpc.port}).
+ * Clients keep one HTTP/2 connection open and exchange protobuf messages, see {@code src/main/proto/employee.proto}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "slp.grpc", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class GrpcConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(GrpcConfig.class);
+
+    @Bean
+    public EmployeeGrpcService employeeGrpcService(EmployeeService employeeService,
+                                                   EmployeeRepository employeeRepository,
+                                                   ShardRouter shardRouter,
+                                                   Validator validator) {
+        return new EmployeeGrpcService(employeeService, employeeRepository, shardRouter, validator);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public Server grpcServer(GrpcProperties properties, EmployeeGrpcService employeeGrpcService) throws IOException {
+        Server server = NettyServerBuilder.forPort(properties.getPort())
+                .addService(employeeGrpcService)
+                .maxConcurrentCallsPerConnection(properties.getMaxConcurrentCallsPerConnection())
+                .build()
+                .start();
+
+        logger.info("gRPC server started on port {}.", server.getPort());
+
+        return server;
+    }
+}
@@ -0,0 +1,45 @@
+package be.bewire.slp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * gRPC server, bound from the {@code slp.grpc} properties.
+ */
+@ConfigurationProperties(prefix = "slp.grpc")
+public class GrpcProperties {
+
+    private boolean enabled = true;
+
+    private int port = 9090;
+
+    /**
+     * Calls a client can have in flight on one connection.
+     */
+    private int maxConcurrentCallsPerConnection = 100;
+
+    // Getters & Setters
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public int getMaxConcurrentCallsPerConnection() {
+        return maxConcurrentCallsPerConnection;
+    }
+
+    public void setMaxConcurrentCallsPerConnection(int maxConcurrentCallsPerConnection) {
+        this.maxConcurrentCallsPerConnection = maxConcurrentCallsPerConnection;
+    }
+}
@@ -0,0 +1,66 @@
+package be.bewire.slp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@code Idempotency-Key} support, bound from the {@code slp.idempotency} properties.
+ */
+@ConfigurationProperties(prefix = "slp.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * Where responses are kept: {@code memory} (per instance) or {@code database} (shared between instances).
+     */
+    private String store = "memory";
+
+    /**
+     * How long a response is replayed for the same key.
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Maximum amount of keys kept, the oldest finished keys are removed first.
+     */
+    private int maxEntries = 10000;
+
+    /**
+     * How long a duplicate request waits for the in-flight original before giving up with a 409.
+     */
+    private Duration waitTimeout = Duration.ofSeconds(10);
+
+    // Getters & Setters
+
+    public String getStore() {
+        return store;
+    }
+
+    public void setStore(String store) {
+        this.store = store;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public Duration getWaitTimeout() {
+        return waitTimeout;
+    }
+
+    public void setWaitTimeout(Duration waitTimeout) {
+        this.waitTimeout = waitTimeout;
+    }
+}
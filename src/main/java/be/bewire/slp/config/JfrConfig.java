@@ -0,0 +1,55 @@
+package be.bewire.slp.config;
+
+import be.bewire.slp.jfr.EmployeeRequestEvent;
+import be.bewire.slp.jfr.EmployeeRequestInterceptor;
+import be.bewire.slp.jfr.EmployeeServiceEvent;
+import be.bewire.slp.jfr.ExceptionMappingEvent;
+import be.bewire.slp.jfr.JfrEventAspect;
+import be.bewire.slp.jfr.RepositoryCallEvent;
+import be.bewire.slp.jfr.SqlStatementCounter;
+import jdk.jfr.FlightRecorder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Java Flight Recorder events of the employee request, service and repository layers, on by default.
+ * The events are only written while a recording has them enabled, eg. with the bundled profile:
+ * {@code -XX:StartFlightRecording=settings=/app/slp.jfc,filename=/app/logs/slp.jfr} (see {@code jfr/slp.jfc}).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "slp.jfr", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class JfrConfig implements WebMvcConfigurer {
+
+    /**
+     * Register the events up front, so they show up in a recording before they first occur.
+     */
+    @PostConstruct
+    public void registerEvents() {
+        FlightRecorder.register(EmployeeRequestEvent.class);
+        FlightRecorder.register(EmployeeServiceEvent.class);
+        FlightRecorder.register(RepositoryCallEvent.class);
+        FlightRecorder.register(ExceptionMappingEvent.class);
+    }
+
+    @Bean
+    public JfrEventAspect jfrEventAspect() {
+        return new JfrEventAspect();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementCounter());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new EmployeeRequestInterceptor()).addPathPatterns("/api/employee", "/api/employee/**");
+    }
+}
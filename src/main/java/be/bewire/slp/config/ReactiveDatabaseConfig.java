@@ -0,0 +1,65 @@
+package be.bewire.slp.config;
+
+import be.bewire.slp.sharding.ReactiveShards;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Non-blocking database access for the {@code /api/v2} stack, next to the blocking JPA data source.
+ * The driver runs on a small Netty event loop, no thread is held while a query is in flight.
+ */
+@Configuration
+public class ReactiveDatabaseConfig {
+
+    @Bean
+    public ConnectionFactory connectionFactory(ReactiveDatabaseProperties properties) {
+        return connectionFactory(properties.getUrl(), properties.getUsername(), properties.getPassword());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    /**
+     * The configured client is the primary shard, the other shards connect with their {@code r2dbc-url},
+     * with the credentials of the configured client unless the shard has its own.
+     */
+    @Bean
+    public ReactiveShards reactiveShards(DatabaseClient databaseClient, ReactiveDatabaseProperties properties,
+                                         ShardingProperties sharding) {
+        List<DatabaseClient> clients = new ArrayList<>();
+        clients.add(databaseClient);
+
+        if (sharding.isEnabled()) {
+            for (ShardingProperties.Shard shard : sharding.getShards().subList(1, sharding.getShards().size())) {
+                if (shard.getR2dbcUrl() == null)
+                    throw new IllegalStateException("Every shard but the first needs an r2dbc-url.");
+
+                clients.add(DatabaseClient.create(connectionFactory(shard.getR2dbcUrl(),
+                        shard.getUsername() != null ? shard.getUsername() : properties.getUsername(),
+                        shard.getPassword() != null ? shard.getPassword() : properties.getPassword())));
+            }
+        }
+
+        return new ReactiveShards(clients);
+    }
+
+    private static ConnectionFactory connectionFactory(String url, String username, String password) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+
+        if (username != null)
+            options.option(ConnectionFactoryOptions.USER, username);
+        if (password != null)
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+
+        return ConnectionFactories.get(options.build());
+    }
+}
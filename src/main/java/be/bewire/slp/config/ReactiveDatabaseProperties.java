@@ -0,0 +1,45 @@
+package be.bewire.slp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Non-blocking (R2DBC) connection to the employee database, bound from the {@code slp.r2dbc} properties.
+ */
+@ConfigurationProperties(prefix = "slp.r2dbc")
+public class ReactiveDatabaseProperties {
+
+    /**
+     * R2DBC url, eg. {@code r2dbc:pool:postgresql://localhost:5432/slp-test}.
+     */
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    // Getters & Setters
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+}
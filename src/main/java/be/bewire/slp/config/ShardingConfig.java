@@ -0,0 +1,127 @@
+package be.bewire.slp.config;
+
+import be.bewire.slp.jdbc.DataSourceDecorator;
+import be.bewire.slp.sharding.ShardRouter;
+import be.bewire.slp.sharding.ShardRoutingDataSource;
+import be.bewire.slp.sharding.ShardSchemaIntegrator;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The connection pools of the application, enabled for several databases with {@code slp.sharding.enabled=true}.
+ * Without sharding there is one shard: a pool built from the {@code spring.datasource} properties the way Spring Boot does.
+ * Every pool is wrapped by the {@link be.bewire.slp.jdbc.DataSourceDecorator} beans, so the router, the import and JPA
+ * all get the same wrapped shards. JPA keeps one persistence unit on a {@link be.bewire.slp.sharding.ShardRoutingDataSource},
+ * which connects to the shard of the current {@link be.bewire.slp.sharding.ShardContext}.
+ */
+@Configuration
+public class ShardingConfig {
+
+    /**
+     * Connection pool size when none is configured (HikariCP default).
+     */
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Bean(destroyMethod = "shutdown")
+    public ShardRouter shardRouter(ShardingProperties properties, DataSourceProperties dataSourceProperties,
+                                   JpaProperties jpaProperties, Environment environment,
+                                   ObjectProvider<DataSourceDecorator> decorators) {
+        if (!properties.isEnabled())
+            return new ShardRouter(Collections.singletonList(decorate(pool(dataSourceProperties, environment), decorators)));
+
+        if (properties.getShards().isEmpty())
+            throw new IllegalStateException("Sharding is enabled but no slp.sharding.shards are configured.");
+
+        // Spring Boot turns it on when it is not set, the entity manager of a request then holds on to the connection
+        // it first got, so everything after a write without a shard (eg. an idempotency key) would go to the primary shard
+        if (!Boolean.FALSE.equals(jpaProperties.getOpenInView()))
+            throw new IllegalStateException("Sharding needs spring.jpa.open-in-view=false.");
+
+        List<DataSource> shards = new ArrayList<>();
+
+        for (ShardingProperties.Shard shard : properties.getShards()) {
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.getUrl())
+                    .username(shard.getUsername() != null ? shard.getUsername() : dataSourceProperties.getUsername())
+                    .password(shard.getPassword() != null ? shard.getPassword() : dataSourceProperties.getPassword())
+                    .build();
+
+            pool.setPoolName("shard-" + shards.size());
+            pool.setMaximumPoolSize(properties.getPoolSize());
+            shards.add(decorate(pool, decorators));
+        }
+
+        return new ShardRouter(shards);
+    }
+
+    /**
+     * The only shard, or all shards as one routing data source. Closing it closes the pools.
+     */
+    @Bean
+    public DataSource dataSource(ShardRouter shardRouter) {
+        if (shardRouter.getShardCount() == 1)
+            return shardRouter.getDataSource(0);
+
+        List<DataSource> shards = new ArrayList<>();
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++)
+            shards.add(shardRouter.getDataSource(shard));
+
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCustomizer(ShardRouter shardRouter) {
+        IntegratorProvider integrators = () -> Collections.singletonList(new ShardSchemaIntegrator(shardRouter.getShardCount()));
+
+        return hibernateProperties -> hibernateProperties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER, integrators);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, Environment environment) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+
+        if (StringUtils.hasText(properties.getName()))
+            pool.setPoolName(properties.getName());
+
+        // HikariCP only applies its default when the pool starts, the decorators are sized after it before that
+        if (pool.getMaximumPoolSize() < 1)
+            pool.setMaximumPoolSize(DEFAULT_POOL_SIZE);
+
+        return pool;
+    }
+
+    /**
+     * Wrap a connection pool by every decorator, in their order.
+     *
+     * @param pool       connection pool
+     * @param decorators decorator beans
+     * @return the wrapped pool
+     */
+    private static DataSource decorate(HikariDataSource pool, ObjectProvider<DataSourceDecorator> decorators) {
+        DataSource dataSource = pool;
+
+        for (DataSourceDecorator decorator : decorators.orderedStream().collect(Collectors.toList()))
+            dataSource = decorator.decorate(dataSource, pool);
+
+        return dataSource;
+    }
+}
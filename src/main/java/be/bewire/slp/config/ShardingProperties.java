@@ -0,0 +1,103 @@
+package be.bewire.slp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Horizontal sharding of the employees, bound from the {@code slp.sharding} properties.
+ * When enabled the {@code shards} replace {@code spring.datasource}, shard 0 also holds the tables that are not sharded.
+ */
+@ConfigurationProperties(prefix = "slp.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+
+    /**
+     * Connections per shard.
+     */
+    private int poolSize = 10;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    // Getters & Setters
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public void setShards(List<Shard> shards) {
+        this.shards = shards;
+    }
+
+    /**
+     * One shard database, the order of the shards must never change.
+     */
+    public static class Shard {
+
+        /**
+         * JDBC url.
+         */
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        /**
+         * R2DBC url for the {@code /api/v2} stack, shard 0 uses {@code slp.r2dbc.url}.
+         */
+        private String r2dbcUrl;
+
+        // Getters & Setters
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public String getR2dbcUrl() {
+            return r2dbcUrl;
+        }
+
+        public void setR2dbcUrl(String r2dbcUrl) {
+            this.r2dbcUrl = r2dbcUrl;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package be.bewire.slp.config;
+
+import be.bewire.slp.controller.EmployeeController;
+import be.bewire.slp.service.EmployeeSnapshotService;
+import be.bewire.slp.snapshot.EmployeeSnapshot;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds the version of the employee snapshot to the responses of the employee api, when reads are served from it.
+ * The header is set once the request is handled, so it includes the writes of the request itself.
+ * Versions are kept per instance and can only be compared between responses of the same instance.
+ */
+@ControllerAdvice(assignableTypes = EmployeeController.class)
+public class SnapshotVersionAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String SNAPSHOT_VERSION_HEADER = "X-Snapshot-Version";
+
+    private final EmployeeSnapshotService employeeSnapshotService;
+
+    public SnapshotVersionAdvice(EmployeeSnapshotService employeeSnapshotService) {
+        this.employeeSnapshotService = employeeSnapshotService;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        EmployeeSnapshot snapshot = employeeSnapshotService.current();
+
+        if (snapshot != null)
+            response.getHeaders().set(SNAPSHOT_VERSION_HEADER, Long.toString(snapshot.getVersion()));
+
+        return body;
+    }
+}
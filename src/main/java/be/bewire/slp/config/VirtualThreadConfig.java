@@ -0,0 +1,72 @@
+package be.bewire.slp.config;
+
+import be.bewire.slp.jdbc.DataSourceDecorator;
+import be.bewire.slp.jdbc.PermitDataSource;
+import be.bewire.slp.util.VirtualThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Virtual-thread request execution, enabled with {@code slp.threads.virtual=true} on Java 21 or newer.
+ * Tomcat hands every request to its own virtual thread, so the controller, service and repository calls of a request
+ * no longer hold a platform thread while waiting on the database.
+ * The JDBC driver still pins its carrier thread while doing I/O, so the amount of threads inside JDBC is bounded
+ * by a {@link be.bewire.slp.jdbc.PermitDataSource} matched to the connection pool, and carrier threads are reserved for it.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "slp.threads", name = "virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    /**
+     * Connection pool size when it cannot be read from the data source (HikariCP default).
+     */
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor(VirtualThreadProperties properties, ShardingProperties sharding,
+                                                 Environment environment) {
+        int permits = databasePermits(properties, sharding, environment);
+
+        VirtualThreads.reserveCarriers(permits);
+        logger.info("Handling requests on virtual threads, {} database permits.", permits);
+
+        return VirtualThreads.newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    /**
+     * Every connection pool gets its own permits, sized to that pool.
+     */
+    @Bean
+    public DataSourceDecorator permitDataSourceDecorator(VirtualThreadProperties properties) {
+        return (dataSource, pool) -> new PermitDataSource(dataSource,
+                properties.getDatabasePermits() != null ? properties.getDatabasePermits() : pool.getMaximumPoolSize());
+    }
+
+    /**
+     * Permits of all connection pools together.
+     */
+    private static int databasePermits(VirtualThreadProperties properties, ShardingProperties sharding, Environment environment) {
+        if (sharding.isEnabled())
+            return sharding.getShards().size()
+                    * (properties.getDatabasePermits() != null ? properties.getDatabasePermits() : sharding.getPoolSize());
+
+        if (properties.getDatabasePermits() != null)
+            return properties.getDatabasePermits();
+
+        return environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, DEFAULT_POOL_SIZE);
+    }
+}
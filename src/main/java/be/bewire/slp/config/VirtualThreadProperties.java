@@ -0,0 +1,38 @@
+package be.bewire.slp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Request execution mode, bound from the {@code slp.threads} properties.
+ */
+@ConfigurationProperties(prefix = "slp.threads")
+public class VirtualThreadProperties {
+
+    /**
+     * Handle every request on its own virtual thread instead of the Tomcat thread pool (Java 21+).
+     */
+    private boolean virtual = false;
+
+    /**
+     * Maximum amount of threads inside JDBC at the same time per connection pool, defaults to the size of the pool.
+     */
+    private Integer databasePermits;
+
+    // Getters & Setters
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public void setVirtual(boolean virtual) {
+        this.virtual = virtual;
+    }
+
+    public Integer getDatabasePermits() {
+        return databasePermits;
+    }
+
+    public void setDatabasePermits(Integer databasePermits) {
+        this.databasePermits = databasePermits;
+    }
+}
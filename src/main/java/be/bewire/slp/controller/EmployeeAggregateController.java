@@ -0,0 +1,31 @@
+package be.bewire.slp.controller;
+
+import be.bewire.slp.domain.EmployeeAggregates;
+import be.bewire.slp.service.EmployeeAggregateService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Routes for the headcount aggregates of {@link be.bewire.slp.domain.Employee}
+ */
+@RestController
+@RequestMapping(value = "/api/employee/aggregates")
+public class EmployeeAggregateController {
+
+    private final EmployeeAggregateService employeeAggregateService;
+
+    public EmployeeAggregateController(EmployeeAggregateService employeeAggregateService) {
+        this.employeeAggregateService = employeeAggregateService;
+    }
+
+    /**
+     * GET route for the total amount of employees, the amount per company and the amount created per day
+     *
+     * @return http response with the aggregates, served from memory
+     */
+    @GetMapping
+    public EmployeeAggregates getAggregates() {
+        return employeeAggregateService.getAggregates();
+    }
+}
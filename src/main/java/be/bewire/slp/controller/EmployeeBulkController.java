@@ -0,0 +1,54 @@
+package be.bewire.slp.controller;
+
+import be.bewire.slp.domain.BulkUpdateResult;
+import be.bewire.slp.domain.CompanyReassignment;
+import be.bewire.slp.domain.ImportReport;
+import be.bewire.slp.service.EmployeeBulkService;
+import be.bewire.slp.service.EmployeeImportService;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Routes for set-based bulk changes of {@link be.bewire.slp.domain.Employee}
+ */
+@RestController
+@RequestMapping(value = "/api/employee/bulk")
+public class EmployeeBulkController {
+
+    private final EmployeeBulkService employeeBulkService;
+
+    private final EmployeeImportService employeeImportService;
+
+    public EmployeeBulkController(EmployeeBulkService employeeBulkService, EmployeeImportService employeeImportService) {
+        this.employeeBulkService = employeeBulkService;
+        this.employeeImportService = employeeImportService;
+    }
+
+    /**
+     * POST route to move every employee of one company to another company
+     *
+     * @param reassignment request body with the source and target company
+     * @return http response with the amount of moved employees
+     */
+    @PostMapping("reassign-company")
+    public BulkUpdateResult reassignCompany(@Valid @RequestBody CompanyReassignment reassignment) {
+        return employeeBulkService.reassignCompany(reassignment);
+    }
+
+    /**
+     * POST route to import employees from csv (firstName,lastName,company), streamed line by line
+     *
+     * @param csv request body in UTF-8 csv
+     * @return http response with the amount of imported employees and the errors per line
+     * @throws IOException when the request body cannot be read
+     */
+    @PostMapping(value = "import", consumes = "text/csv")
+    public ImportReport importCsv(InputStream csv) throws IOException {
+        return employeeImportService.importCsv(new InputStreamReader(csv, StandardCharsets.UTF_8));
+    }
+}
@@ -1,11 +1,19 @@
 package be.bewire.slp.controller;
 
 import be.bewire.slp.domain.Employee;
+import be.bewire.slp.domain.EmployeeLookup;
 import be.bewire.slp.exceptions.MalformedBodyException;
 import be.bewire.slp.service.EmployeeService;
+import be.bewire.slp.service.IdempotencyStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Routes for managing {@link be.bewire.slp.domain.Employee}
@@ -18,8 +26,14 @@ public class EmployeeController {
 
     private final EmployeeService employeeService;
 
-    public EmployeeController(EmployeeService employeeService) {
+    private final IdempotencyStore idempotencyStore;
+
+    private final ObjectMapper objectMapper;
+
+    public EmployeeController(EmployeeService employeeService, IdempotencyStore idempotencyStore, ObjectMapper objectMapper) {
         this.employeeService = employeeService;
+        this.idempotencyStore = idempotencyStore;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -43,15 +57,54 @@ public class EmployeeController {
         return employeeService.findById(id);
     }
 
+    /**
+     * GET route for retrieving the employees of one company
+     *
+     * @param company company of the desired employees, eg. {@code ?company=bewire}
+     * @return http response with the employees of the company
+     */
+    @GetMapping(params = "company")
+    public List<Employee> findAllByCompany(@RequestParam String company) {
+        return employeeService.findAllByCompany(company);
+    }
+
+    /**
+     * GET route for retrieving many employees in one request
+     *
+     * @param ids ids of the desired employees, eg. {@code ?ids=1,2,3}
+     * @return http response with the found employees and the missing ids
+     */
+    @GetMapping(params = "ids")
+    public EmployeeLookup findAllById(@RequestParam List<Integer> ids) {
+        return employeeService.findAllById(ids);
+    }
+
+    /**
+     * POST route for retrieving many employees, for id lists that do not fit in a url
+     *
+     * @param ids request body with the ids of the desired employees
+     * @return http response with the found employees and the missing ids
+     */
+    @PostMapping("lookup")
+    public EmployeeLookup lookup(@RequestBody List<Integer> ids) {
+        return employeeService.findAllById(ids);
+    }
+
     /**
      * POST route to add employee
+     * Retries with the same {@code Idempotency-Key} header get the original response instead of creating a duplicate.
      *
-     * @param employee request body of one employee
+     * @param idempotencyKey optional key that identifies retries of the same request
+     * @param employee       request body of one employee
      * @return http response with the created employee
      */
     @PostMapping
-    public Employee create(@Valid @RequestBody Employee employee) {
-        return employeeService.create(employee);
+    public Employee create(@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                           @Valid @RequestBody Employee employee) {
+        if (idempotencyKey == null)
+            return employeeService.create(employee);
+
+        return idempotencyStore.execute(idempotencyKey, fingerprint(employee), Employee.class, () -> employeeService.create(employee));
     }
 
     /**
@@ -70,6 +123,19 @@ public class EmployeeController {
         return employeeService.update(employee);
     }
 
+    /**
+     * PATCH route to partially update one employee with a JSON merge patch
+     *
+     * @param id    id of the to-be-updated employee
+     * @param patch request body with only the fields that change
+     * @return http response with the updated employee
+     */
+    @PatchMapping(value = "{id}", consumes = "application/merge-patch+json")
+    public Employee patch(@PathVariable int id,
+                          @RequestBody Map<String, Object> patch) {
+        return employeeService.patch(id, patch);
+    }
+
     /**
      * DELETE route to delete one employee
      *
@@ -79,4 +145,25 @@ public class EmployeeController {
     public void delete(@PathVariable int id) {
         employeeService.deleteById(id);
     }
+
+    /**
+     * SHA-256 of the canonical body: the bound employee written back as json, so whitespace and field order
+     * of the original request do not matter but every field does.
+     *
+     * @param employee request body of one employee
+     * @return hex encoded digest
+     */
+    private String fingerprint(Employee employee) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(employee));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+
+            for (byte b : digest)
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+
+            return hex.toString();
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Cannot fingerprint idempotent request.", ex);
+        }
+    }
 }
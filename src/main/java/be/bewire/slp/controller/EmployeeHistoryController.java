@@ -0,0 +1,35 @@
+package be.bewire.slp.controller;
+
+import be.bewire.slp.domain.EmployeeHistoryEntry;
+import be.bewire.slp.service.EmployeeAuditService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Routes for the change history of {@link be.bewire.slp.domain.Employee}
+ */
+@RestController
+@RequestMapping(value = "/api/employee")
+public class EmployeeHistoryController {
+
+    private final EmployeeAuditService employeeAuditService;
+
+    public EmployeeHistoryController(EmployeeAuditService employeeAuditService) {
+        this.employeeAuditService = employeeAuditService;
+    }
+
+    /**
+     * GET route for the changes of one employee, also of a deleted employee
+     *
+     * @param id id of the employee
+     * @return http response with the changes, oldest first
+     */
+    @GetMapping("{id}/history")
+    public List<EmployeeHistoryEntry> findHistory(@PathVariable int id) {
+        return employeeAuditService.findHistory(id);
+    }
+}
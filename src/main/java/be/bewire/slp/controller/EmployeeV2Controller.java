@@ -0,0 +1,104 @@
+package be.bewire.slp.controller;
+
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.exceptions.MalformedBodyException;
+import be.bewire.slp.service.ReactiveEmployeeService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.util.Map;
+
+/**
+ * Asynchronous routes for managing {@link be.bewire.slp.domain.Employee}
+ * The routes run on the servlet stack with async request processing: the request thread is released while the
+ * database works, errors are mapped by {@link be.bewire.slp.config.ApplicationExceptionHandler} like on the blocking api.
+ * Reads are non-blocking R2DBC queries, writes are blocking JPA calls on a worker thread,
+ * see {@link be.bewire.slp.service.ReactiveEmployeeServiceImpl}.
+ */
+@RestController
+@RequestMapping(value = "/api/v2/employee")
+public class EmployeeV2Controller {
+
+    private final ReactiveEmployeeService reactiveEmployeeService;
+
+    public EmployeeV2Controller(ReactiveEmployeeService reactiveEmployeeService) {
+        this.reactiveEmployeeService = reactiveEmployeeService;
+    }
+
+    /**
+     * GET route for retrieving all employees
+     * With {@code Accept: application/stream+json} the employees are streamed one by one,
+     * at the pace the client reads them.
+     *
+     * @return http response with all users
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE})
+    public Flux<Employee> findAll() {
+        return reactiveEmployeeService.findAll();
+    }
+
+    /**
+     * GET route for retrieving one employee
+     *
+     * @param id id of the desired employee
+     * @return http response with one employee
+     */
+    @GetMapping("{id}")
+    public Mono<Employee> findById(@PathVariable int id) {
+        return reactiveEmployeeService.findById(id);
+    }
+
+    /**
+     * POST route to add employee
+     *
+     * @param employee request body of one employee
+     * @return http response with the created employee
+     */
+    @PostMapping
+    public Mono<Employee> create(@Valid @RequestBody Employee employee) {
+        return reactiveEmployeeService.create(employee);
+    }
+
+    /**
+     * PUT route to update one employee
+     *
+     * @param id       id of the to-be-updated employee
+     * @param employee request body of one employee
+     * @return http response with the updated employee
+     */
+    @PutMapping("{id}")
+    public Mono<Employee> update(@PathVariable int id,
+                                 @Valid @RequestBody Employee employee) {
+        if (id != employee.getId())
+            return Mono.error(new MalformedBodyException("Url id does not match request body id."));
+
+        return reactiveEmployeeService.update(employee);
+    }
+
+    /**
+     * PATCH route to partially update one employee with a JSON merge patch
+     *
+     * @param id    id of the to-be-updated employee
+     * @param patch request body with only the fields that change
+     * @return http response with the updated employee
+     */
+    @PatchMapping(value = "{id}", consumes = "application/merge-patch+json")
+    public Mono<Employee> patch(@PathVariable int id,
+                                @RequestBody Map<String, Object> patch) {
+        return reactiveEmployeeService.patch(id, patch);
+    }
+
+    /**
+     * DELETE route to delete one employee
+     *
+     * @param id id of the to-be-deleted employee
+     * @return http response without body
+     */
+    @DeleteMapping("{id}")
+    public Mono<Void> delete(@PathVariable int id) {
+        return reactiveEmployeeService.deleteById(id);
+    }
+}
@@ -0,0 +1,112 @@
+package be.bewire.slp.deadline;
+
+import be.bewire.slp.exceptions.DeadlineExceededException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Point in time by which a request must be answered, and the deadline of the current thread.
+ * Transactions, JDBC statements and connection waits started on the thread get the remaining budget as their timeout,
+ * see {@link be.bewire.slp.deadline.DeadlineTransactionManager} and {@link be.bewire.slp.deadline.DeadlineDataSource}.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * Deadline that expires after a timeout from now.
+     *
+     * @param timeout time budget
+     * @return the deadline
+     */
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * Deadline of the current thread.
+     *
+     * @return the deadline, or null when the thread has none
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run a call with a deadline, the previous deadline of the thread is restored afterwards.
+     * A nested deadline can only shorten the budget, never extend it.
+     *
+     * @param deadline deadline, or null to keep the current one
+     * @param call     call to run
+     * @param <T>      result type
+     * @return result of the call
+     */
+    public static <T> T call(Deadline deadline, Supplier<T> call) {
+        Deadline previous = CURRENT.get();
+
+        if (deadline == null || (previous != null && previous.expiresAtNanos - deadline.expiresAtNanos <= 0))
+            return call.get();
+
+        CURRENT.set(deadline);
+
+        try {
+            return call.get();
+        } finally {
+            if (previous == null)
+                CURRENT.remove();
+            else
+                CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Run a call without result with a deadline.
+     *
+     * @param deadline deadline, or null to keep the current one
+     * @param call     call to run
+     */
+    public static void run(Deadline deadline, Runnable call) {
+        call(deadline, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Time left until the deadline.
+     *
+     * @return remaining milliseconds, zero or negative once expired
+     */
+    public long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime());
+    }
+
+    /**
+     * Time left as a JDBC query timeout, which is expressed in whole seconds and where 0 means no timeout.
+     *
+     * @return remaining seconds rounded up, at least 1
+     */
+    public int remainingSeconds() {
+        return (int) Math.max(1, (remainingMillis() + 999) / 1000);
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Refuse to start more work once the deadline has passed.
+     */
+    public void check() {
+        if (isExpired())
+            throw new DeadlineExceededException("The request deadline was exceeded.");
+    }
+}
@@ -0,0 +1,158 @@
+package be.bewire.slp.deadline;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Data source that applies the {@link be.bewire.slp.deadline.Deadline} of the current thread to the database.
+ * Connections are handed out through a fair gate with as many permits as the pool has connections, so a borrow from
+ * the pool never waits: the waiting happens on the gate, bounded by the remaining budget instead of the pool's
+ * connection timeout. Every statement gets the remaining budget as its query timeout, so the driver cancels it on
+ * the database once the request has expired. Threads without a deadline wait on the gate up to the connection timeout.
+ */
+public class DeadlineDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final Semaphore gate;
+
+    private final long connectionTimeoutMillis;
+
+    /**
+     * @param targetDataSource        the connection pool, or a data source in front of it
+     * @param maxConnections          maximum amount of connections of the pool
+     * @param connectionTimeoutMillis longest wait for a connection
+     */
+    public DeadlineDataSource(DataSource targetDataSource, int maxConnections, long connectionTimeoutMillis) {
+        super(targetDataSource);
+        this.gate = new Semaphore(maxConnections, true);
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(() -> obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection(() -> obtainTargetDataSource().getConnection(username, password));
+    }
+
+    /**
+     * Close the wrapped data source, eg. its connection pool.
+     *
+     * @throws Exception when the wrapped data source cannot be closed
+     */
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable)
+            ((AutoCloseable) getTargetDataSource()).close();
+    }
+
+    private Connection getConnection(ConnectionSupplier target) throws SQLException {
+        Deadline deadline = Deadline.current();
+
+        if (deadline != null)
+            deadline.check();
+
+        acquire(deadline);
+
+        try {
+            return withDeadline(target.get(), new AtomicBoolean());
+        } catch (SQLException | RuntimeException | Error ex) {
+            gate.release();
+            throw ex;
+        }
+    }
+
+    private void acquire(Deadline deadline) throws SQLException {
+        long timeoutMillis = deadline == null
+                ? connectionTimeoutMillis
+                : Math.min(Math.max(1, deadline.remainingMillis()), connectionTimeoutMillis);
+
+        try {
+            if (!gate.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS))
+                throw new SQLTransientConnectionException(String.format("No connection available within %d ms.", timeoutMillis));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection.", ex);
+        }
+    }
+
+    private Connection withDeadline(Connection connection, AtomicBoolean released) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "unwrap":
+                            if (((Class<?>) args[0]).isInstance(proxy))
+                                return proxy;
+                            break;
+                        case "isWrapperFor":
+                            if (((Class<?>) args[0]).isInstance(proxy))
+                                return true;
+                            break;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "close":
+                            try {
+                                connection.close();
+                            } finally {
+                                if (released.compareAndSet(false, true))
+                                    gate.release();
+                            }
+                            return null;
+                        default:
+                            break;
+                    }
+
+                    Object result;
+
+                    try {
+                        result = method.invoke(connection, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+
+                    if (result instanceof Statement)
+                        applyTimeout((Statement) result);
+
+                    return result;
+                });
+    }
+
+    private static void applyTimeout(Statement statement) throws SQLException {
+        Deadline deadline = Deadline.current();
+
+        if (deadline == null)
+            return;
+
+        if (deadline.isExpired()) {
+            statement.close();
+            deadline.check();
+        }
+
+        statement.setQueryTimeout(deadline.remainingSeconds());
+    }
+
+    /**
+     * Borrow from the target data source.
+     */
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+
+        Connection get() throws SQLException;
+    }
+}
@@ -0,0 +1,117 @@
+package be.bewire.slp.deadline;
+
+import be.bewire.slp.config.DeadlineProperties;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Gives every request a {@link be.bewire.slp.deadline.Deadline}: the timeout of its route, or the default timeout.
+ * A client can shorten it with a timeout header in milliseconds, eg. {@code X-Request-Timeout: 1500},
+ * but never extend it beyond the timeout of the route. A timeout of zero or less is answered with a 400.
+ */
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    private final DeadlineProperties properties;
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public DeadlineFilter(DeadlineProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Duration timeout;
+
+        try {
+            timeout = timeoutOf(request);
+        } catch (IllegalArgumentException ex) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, ex.getMessage());
+            return;
+        }
+
+        if (timeout == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Deadline deadline = Deadline.after(timeout);
+
+        try {
+            Deadline.call(deadline, () -> {
+                try {
+                    filterChain.doFilter(request, response);
+                    return null;
+                } catch (IOException | ServletException ex) {
+                    throw new FilterChainException(ex);
+                }
+            });
+        } catch (FilterChainException ex) {
+            if (ex.getCause() instanceof IOException)
+                throw (IOException) ex.getCause();
+
+            throw (ServletException) ex.getCause();
+        }
+    }
+
+    /**
+     * Timeout of the request, the shortest of its route timeout and the timeout requested by the client.
+     *
+     * @param request http request
+     * @return the timeout, or null when the request has no deadline
+     * @throws IllegalArgumentException when the client asks for a timeout of zero or less
+     */
+    Duration timeoutOf(HttpServletRequest request) {
+        Duration timeout = properties.getDefaultTimeout();
+        String path = urlPathHelper.getPathWithinApplication(request);
+
+        for (Map.Entry<String, Duration> route : properties.getRoutes().entrySet()) {
+            if (pathMatcher.match(route.getKey(), path)) {
+                timeout = route.getValue();
+                break;
+            }
+        }
+
+        String requested = request.getHeader(properties.getHeader());
+
+        if (requested != null) {
+            try {
+                Duration client = Duration.ofMillis(Long.parseLong(requested.trim()));
+
+                if (client.isNegative() || client.isZero())
+                    throw new IllegalArgumentException(String.format("%s must be positive.", properties.getHeader()));
+
+                if (timeout == null || client.compareTo(timeout) < 0)
+                    timeout = client;
+            } catch (NumberFormatException ex) {
+                // An unreadable timeout is ignored, the route timeout still applies
+                logger.debug("Ignoring malformed " + properties.getHeader() + " header: " + requested);
+            }
+        }
+
+        return timeout;
+    }
+
+    /**
+     * Carries the checked exceptions of the filter chain through {@link be.bewire.slp.deadline.Deadline#call}.
+     */
+    private static class FilterChainException extends RuntimeException {
+
+        private FilterChainException(Exception cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package be.bewire.slp.deadline;
+
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DelegatingTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA transaction manager that caps the timeout of a new transaction at the remaining budget of the
+ * {@link be.bewire.slp.deadline.Deadline} of the current thread. Hibernate applies the transaction timeout to every
+ * statement it executes, and Spring to the queries it creates, so a transaction never outlives its request.
+ */
+public class DeadlineTransactionManager extends JpaTransactionManager {
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        Deadline deadline = Deadline.current();
+
+        if (deadline == null) {
+            super.doBegin(transaction, definition);
+            return;
+        }
+
+        deadline.check();
+
+        int timeout = definition.getTimeout() == TransactionDefinition.TIMEOUT_DEFAULT
+                ? deadline.remainingSeconds()
+                : Math.min(definition.getTimeout(), deadline.remainingSeconds());
+
+        super.doBegin(transaction, new DelegatingTransactionDefinition(definition) {
+            @Override
+            public int getTimeout() {
+                return timeout;
+            }
+        });
+
+        // Transaction timeouts are whole seconds, the resources can expire at the exact deadline
+        long remainingMillis = Math.max(1, deadline.remainingMillis());
+
+        if (remainingMillis >= timeout * 1000L)
+            return;
+
+        Object entityManagerHolder = TransactionSynchronizationManager.getResource(obtainEntityManagerFactory());
+        if (entityManagerHolder instanceof EntityManagerHolder)
+            ((EntityManagerHolder) entityManagerHolder).setTimeoutInMillis(remainingMillis);
+
+        Object connectionHolder = getDataSource() != null ? TransactionSynchronizationManager.getResource(getDataSource()) : null;
+        if (connectionHolder instanceof ConnectionHolder)
+            ((ConnectionHolder) connectionHolder).setTimeoutInMillis(remainingMillis);
+    }
+}
@@ -0,0 +1,52 @@
+package be.bewire.slp.domain;
+
+/**
+ * Outcome of a set-based bulk update.
+ */
+public class BulkUpdateResult {
+
+    /**
+     * Amount of updated rows.
+     */
+    private long affected;
+
+    /**
+     * Amount of UPDATE statements (and transactions) it took.
+     */
+    private int chunks;
+
+    /**
+     * Empty constructor (Jackson).
+     */
+    public BulkUpdateResult() {
+    }
+
+    /**
+     * Constructor for values
+     *
+     * @param affected Initialize class variable.
+     * @param chunks   Initialize class variable.
+     */
+    public BulkUpdateResult(long affected, int chunks) {
+        this.affected = affected;
+        this.chunks = chunks;
+    }
+
+    // Getters & Setters
+
+    public long getAffected() {
+        return affected;
+    }
+
+    public void setAffected(long affected) {
+        this.affected = affected;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(int chunks) {
+        this.chunks = chunks;
+    }
+}
@@ -0,0 +1,61 @@
+package be.bewire.slp.domain;
+
+import javax.persistence.*;
+
+/**
+ * Company an employee works for, employees reference it by its id.
+ * Read through the {@link be.bewire.slp.jdbc.CompanyDictionary}.
+ */
+@Entity
+public class Company {
+
+    /**
+     * Entity PKI
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(updatable = false, nullable = false)
+    private int id;
+
+    /**
+     * Name of the company.
+     * eg. Evance, C4J, ...
+     */
+    @Column(nullable = false, unique = true)
+    private String name;
+
+    /**
+     * Empty constructor (JPA specification).
+     */
+    public Company() {
+    }
+
+    /**
+     * Constructor for values and PKI
+     *
+     * @param id   Initialize class variable.
+     * @param name Initialize class variable.
+     */
+    public Company(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    // Getters & Setters
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,42 @@
+package be.bewire.slp.domain;
+
+import be.bewire.slp.jdbc.CompanyDictionary;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores the company of an {@link be.bewire.slp.domain.Employee} as the id of its {@link be.bewire.slp.domain.Company}.
+ * Created by Spring, so the dictionary is injected.
+ */
+@Converter
+public class CompanyConverter implements AttributeConverter<String, Integer> {
+
+    /**
+     * Id of no company.
+     */
+    public static final int UNKNOWN = -1;
+
+    private final CompanyDictionary companyDictionary;
+
+    public CompanyConverter(CompanyDictionary companyDictionary) {
+        this.companyDictionary = companyDictionary;
+    }
+
+    /**
+     * Only looks the company up, it is also used for query parameters. Companies are added when an employee is written,
+     * see {@link be.bewire.slp.domain.CompanyRegistration}.
+     *
+     * @param company company name
+     * @return company id, {@link #UNKNOWN} when there is no such company so no row matches
+     */
+    @Override
+    public Integer convertToDatabaseColumn(String company) {
+        return company == null ? null : companyDictionary.find(company).orElse(UNKNOWN);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer companyId) {
+        return companyId == null ? null : companyDictionary.nameOf(companyId);
+    }
+}
@@ -0,0 +1,56 @@
+package be.bewire.slp.domain;
+
+import javax.validation.constraints.NotBlank;
+
+/**
+ * Request to move every employee of one company to another company.
+ */
+public class CompanyReassignment {
+
+    /**
+     * Current company of the employees.
+     */
+    @NotBlank(message = "From company is mandatory")
+    private String from;
+
+    /**
+     * New company of the employees.
+     */
+    @NotBlank(message = "To company is mandatory")
+    private String to;
+
+    /**
+     * Empty constructor (Jackson).
+     */
+    public CompanyReassignment() {
+    }
+
+    /**
+     * Constructor for values
+     *
+     * @param from Initialize class variable.
+     * @param to   Initialize class variable.
+     */
+    public CompanyReassignment(String from, String to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    // Getters & Setters
+
+    public String getFrom() {
+        return from;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public void setTo(String to) {
+        this.to = to;
+    }
+}
@@ -0,0 +1,26 @@
+package be.bewire.slp.domain;
+
+import be.bewire.slp.jdbc.CompanyDictionary;
+
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+
+/**
+ * Adds the company of an {@link be.bewire.slp.domain.Employee} that is about to be written, so
+ * {@link be.bewire.slp.domain.CompanyConverter} finds it. Created by Spring, so the dictionary is injected.
+ */
+public class CompanyRegistration {
+
+    private final CompanyDictionary companyDictionary;
+
+    public CompanyRegistration(CompanyDictionary companyDictionary) {
+        this.companyDictionary = companyDictionary;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void register(Employee employee) {
+        if (employee.getCompany() != null)
+            companyDictionary.idOf(employee.getCompany());
+    }
+}
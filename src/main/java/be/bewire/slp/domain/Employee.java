@@ -1,6 +1,9 @@
 package be.bewire.slp.domain;
 
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.*;
@@ -9,15 +12,23 @@ import java.util.Date;
 
 /**
  * Bewire employee domain model
+ * Updates only write the columns that changed.
  */
 @Entity
+@DynamicUpdate
+@EntityListeners(CompanyRegistration.class)
+@Table(indexes = @Index(name = "employee_company_idx", columnList = "company_id, id"))
 public class Employee {
 
     /**
      * Entity PKI
+     * The lowest bits hold the shard of the employee, see {@link be.bewire.slp.sharding.ShardRouter}.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.TABLE)
+    @GeneratedValue(generator = "employee-id")
+    @GenericGenerator(name = "employee-id", strategy = "be.bewire.slp.sharding.ShardedIdGenerator", parameters = {
+            @Parameter(name = "table_name", value = "hibernate_sequences"),
+            @Parameter(name = "segment_value", value = "default")})
     @Column(updatable = false, nullable = false)
     private int id;
 
@@ -38,8 +49,10 @@ public class Employee {
     /**
      * Company of the employee.
      * eg. Evance, C4J, ...
+     * Stored as the id of its {@link be.bewire.slp.domain.Company}.
      */
-    @Column
+    @Column(name = "company_id")
+    @Convert(converter = CompanyConverter.class)
     @NotBlank(message = "Company is mandatory")
     private String company;
 
@@ -94,6 +107,18 @@ public class Employee {
         this.id = id;
     }
 
+    /**
+     * Copy constructor
+     *
+     * @param employee employee to copy the values of
+     */
+    public Employee(Employee employee) {
+        this(employee.id, employee.firstName, employee.lastName, employee.company);
+
+        this.created = employee.created == null ? null : (Date) employee.created.clone();
+        this.updated = employee.updated == null ? null : (Date) employee.updated.clone();
+    }
+
     // Getters & Setters
 
     public int getId() {
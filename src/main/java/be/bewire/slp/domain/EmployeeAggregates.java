@@ -0,0 +1,69 @@
+package be.bewire.slp.domain;
+
+import java.util.Map;
+
+/**
+ * Headcount figures of the employees.
+ */
+public class EmployeeAggregates {
+
+    /**
+     * Amount of employees.
+     */
+    private long total;
+
+    /**
+     * Amount of employees per company, by company name.
+     */
+    private Map<String, Long> companies;
+
+    /**
+     * Amount of employees created per day (yyyy-MM-dd, server time zone), for the employees that still exist.
+     */
+    private Map<String, Long> createdPerDay;
+
+    /**
+     * Empty constructor (Jackson).
+     */
+    public EmployeeAggregates() {
+    }
+
+    /**
+     * Constructor for values
+     *
+     * @param total         Initialize class variable.
+     * @param companies     Initialize class variable.
+     * @param createdPerDay Initialize class variable.
+     */
+    public EmployeeAggregates(long total, Map<String, Long> companies, Map<String, Long> createdPerDay) {
+        this.total = total;
+        this.companies = companies;
+        this.createdPerDay = createdPerDay;
+    }
+
+    // Getters & Setters
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public Map<String, Long> getCompanies() {
+        return companies;
+    }
+
+    public void setCompanies(Map<String, Long> companies) {
+        this.companies = companies;
+    }
+
+    public Map<String, Long> getCreatedPerDay() {
+        return createdPerDay;
+    }
+
+    public void setCreatedPerDay(Map<String, Long> createdPerDay) {
+        this.createdPerDay = createdPerDay;
+    }
+}
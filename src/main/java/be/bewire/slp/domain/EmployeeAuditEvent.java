@@ -0,0 +1,118 @@
+package be.bewire.slp.domain;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Change of an {@link be.bewire.slp.domain.Employee} waiting in the audit outbox.
+ * Written in the transaction of the change itself, and moved to the history table in batches afterwards.
+ */
+@Entity
+@Table(name = "employee_audit_outbox", indexes = @Index(name = "employee_audit_outbox_employee_idx", columnList = "employee_id"))
+public class EmployeeAuditEvent {
+
+    /**
+     * Kind of change.
+     */
+    public enum Action {
+        CREATED, UPDATED, DELETED
+    }
+
+    /**
+     * Entity PKI, also the id of the history entry.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(updatable = false, nullable = false)
+    private long id;
+
+    /**
+     * Id of the changed employee.
+     */
+    @Column(name = "employee_id", nullable = false)
+    private int employeeId;
+
+    /**
+     * Kind of change.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Action action;
+
+    /**
+     * Changed fields as json, eg. {@code {"firstName":{"from":"John","to":"Johnny"}}}.
+     * Unbounded, like the names it holds the old and new value of.
+     */
+    @Column(columnDefinition = "TEXT")
+    private String changes;
+
+    /**
+     * Timestamp of the change.
+     */
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private Date changed;
+
+    /**
+     * Empty constructor (JPA specification).
+     */
+    public EmployeeAuditEvent() {
+    }
+
+    /**
+     * Constructor for values
+     *
+     * @param employeeId Initialize class variable.
+     * @param action     Initialize class variable.
+     * @param changes    Initialize class variable.
+     * @param changed    Initialize class variable.
+     */
+    public EmployeeAuditEvent(int employeeId, Action action, String changes, Date changed) {
+        this.employeeId = employeeId;
+        this.action = action;
+        this.changes = changes;
+        this.changed = changed;
+    }
+
+    // Getters & Setters
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public int getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(int employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public void setAction(Action action) {
+        this.action = action;
+    }
+
+    public String getChanges() {
+        return changes;
+    }
+
+    public void setChanges(String changes) {
+        this.changes = changes;
+    }
+
+    public Date getChanged() {
+        return changed;
+    }
+
+    public void setChanged(Date changed) {
+        this.changed = changed;
+    }
+}
@@ -0,0 +1,128 @@
+package be.bewire.slp.domain;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * One change in the history of an {@link be.bewire.slp.domain.Employee}.
+ */
+public class EmployeeHistoryEntry {
+
+    /**
+     * Id of the change, later changes of an employee have higher ids.
+     */
+    private long id;
+
+    /**
+     * Kind of change.
+     */
+    private EmployeeAuditEvent.Action action;
+
+    /**
+     * Old and new value of every changed field, by field name.
+     */
+    private Map<String, FieldChange> changes;
+
+    /**
+     * Timestamp of the change.
+     */
+    private Date changed;
+
+    /**
+     * Empty constructor (Jackson).
+     */
+    public EmployeeHistoryEntry() {
+    }
+
+    /**
+     * Constructor for values
+     *
+     * @param id      Initialize class variable.
+     * @param action  Initialize class variable.
+     * @param changes Initialize class variable.
+     * @param changed Initialize class variable.
+     */
+    public EmployeeHistoryEntry(long id, EmployeeAuditEvent.Action action, Map<String, FieldChange> changes, Date changed) {
+        this.id = id;
+        this.action = action;
+        this.changes = changes;
+        this.changed = changed;
+    }
+
+    // Getters & Setters
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public EmployeeAuditEvent.Action getAction() {
+        return action;
+    }
+
+    public void setAction(EmployeeAuditEvent.Action action) {
+        this.action = action;
+    }
+
+    public Map<String, FieldChange> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(Map<String, FieldChange> changes) {
+        this.changes = changes;
+    }
+
+    public Date getChanged() {
+        return changed;
+    }
+
+    public void setChanged(Date changed) {
+        this.changed = changed;
+    }
+
+    /**
+     * Old and new value of one field, null when the employee did not exist before or after the change.
+     */
+    public static class FieldChange {
+
+        private String from;
+
+        private String to;
+
+        /**
+         * Empty constructor (Jackson).
+         */
+        public FieldChange() {
+        }
+
+        /**
+         * Constructor for values
+         *
+         * @param from Initialize class variable.
+         * @param to   Initialize class variable.
+         */
+        public FieldChange(String from, String to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public String getFrom() {
+            return from;
+        }
+
+        public void setFrom(String from) {
+            this.from = from;
+        }
+
+        public String getTo() {
+            return to;
+        }
+
+        public void setTo(String to) {
+            this.to = to;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package be.bewire.slp.domain;
+
+import java.util.List;
+
+/**
+ * Result of a multi-get of {@link be.bewire.slp.domain.Employee}.
+ * Ids that do not exist are reported instead of failing the whole lookup.
+ */
+public class EmployeeLookup {
+
+    /**
+     * Employees that were found, in the order they were requested.
+     */
+    private List<Employee> found;
+
+    /**
+     * Requested ids without an employee.
+     */
+    private List<Integer> missing;
+
+    /**
+     * Empty constructor (Jackson).
+     */
+    public EmployeeLookup() {
+    }
+
+    /**
+     * Constructor for values
+     *
+     * @param found   Initialize class variable.
+     * @param missing Initialize class variable.
+     */
+    public EmployeeLookup(List<Employee> found, List<Integer> missing) {
+        this.found = found;
+        this.missing = missing;
+    }
+
+    // Getters & Setters
+
+    public List<Employee> getFound() {
+        return found;
+    }
+
+    public void setFound(List<Employee> found) {
+        this.found = found;
+    }
+
+    public List<Integer> getMissing() {
+        return missing;
+    }
+
+    public void setMissing(List<Integer> missing) {
+        this.missing = missing;
+    }
+}
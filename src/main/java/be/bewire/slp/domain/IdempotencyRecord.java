@@ -0,0 +1,115 @@
+package be.bewire.slp.domain;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Stored response of a request with an {@code Idempotency-Key}, shared between application instances.
+ * A record without a response marks a request that is still in flight.
+ */
+@Entity
+public class IdempotencyRecord implements Persistable<String> {
+
+    /**
+     * Idempotency key supplied by the client.
+     */
+    @Id
+    @Column(name = "idempotency_key", updatable = false, nullable = false)
+    private String key;
+
+    /**
+     * Fingerprint of the original request.
+     */
+    @Column(nullable = false)
+    private String fingerprint;
+
+    /**
+     * Serialized response of the original request, empty while it is in flight.
+     */
+    @Column(length = 4000)
+    private String response;
+
+    /**
+     * Timestamp of the original request.
+     */
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private Date created;
+
+    /**
+     * New records are inserted straight away instead of merged, so a concurrent claim fails on the primary key.
+     */
+    @Transient
+    private boolean isNew = true;
+
+    /**
+     * Empty constructor (JPA specification).
+     */
+    public IdempotencyRecord() {
+    }
+
+    /**
+     * Constructor for values
+     *
+     * @param key         Initialize class variable.
+     * @param fingerprint Initialize class variable.
+     * @param created     Initialize class variable.
+     */
+    public IdempotencyRecord(String key, String fingerprint, Date created) {
+        this.key = key;
+        this.fingerprint = fingerprint;
+        this.created = created;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    // Getters & Setters
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public String getResponse() {
+        return response;
+    }
+
+    public void setResponse(String response) {
+        this.response = response;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public void setCreated(Date created) {
+        this.created = created;
+    }
+}
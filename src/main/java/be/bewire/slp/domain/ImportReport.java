@@ -0,0 +1,115 @@
+package be.bewire.slp.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import of {@link be.bewire.slp.domain.Employee}.
+ */
+public class ImportReport {
+
+    /**
+     * Amount of imported employees.
+     */
+    private long imported;
+
+    /**
+     * Amount of rejected lines.
+     */
+    private long rejected;
+
+    /**
+     * Reason per rejected line, capped to keep the report small.
+     */
+    private List<ImportError> errors = new ArrayList<>();
+
+    /**
+     * True when there were more rejected lines than reported errors.
+     */
+    private boolean errorsTruncated;
+
+    // Getters & Setters
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<ImportError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<ImportError> errors) {
+        this.errors = errors;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public void setErrorsTruncated(boolean errorsTruncated) {
+        this.errorsTruncated = errorsTruncated;
+    }
+
+    /**
+     * Rejected line of an import.
+     */
+    public static class ImportError {
+
+        /**
+         * Line number in the input, starting at 1.
+         */
+        private long line;
+
+        /**
+         * Reason of the rejection.
+         */
+        private String message;
+
+        /**
+         * Empty constructor (Jackson).
+         */
+        public ImportError() {
+        }
+
+        /**
+         * Constructor for values
+         *
+         * @param line    Initialize class variable.
+         * @param message Initialize class variable.
+         */
+        public ImportError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        // Getters & Setters
+
+        public long getLine() {
+            return line;
+        }
+
+        public void setLine(long line) {
+            this.line = line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
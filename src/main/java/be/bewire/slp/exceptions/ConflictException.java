@@ -0,0 +1,19 @@
+package be.bewire.slp.exceptions;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException() {
+        super();
+    }
+
+    public ConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ConflictException(String message) {
+        super(message);
+    }
+
+    public ConflictException(Throwable cause) {
+        super(cause);
+    }
+}
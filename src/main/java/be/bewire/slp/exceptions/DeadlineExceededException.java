@@ -0,0 +1,19 @@
+package be.bewire.slp.exceptions;
+
+public class DeadlineExceededException extends RuntimeException {
+    public DeadlineExceededException() {
+        super();
+    }
+
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+    public DeadlineExceededException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,239 @@
+package be.bewire.slp.grpc;
+
+import be.bewire.slp.deadline.Deadline;
+import be.bewire.slp.domain.EmployeeLookup;
+import be.bewire.slp.exceptions.MalformedBodyException;
+import be.bewire.slp.grpc.proto.CreateEmployeeRequest;
+import be.bewire.slp.grpc.proto.DeleteEmployeeRequest;
+import be.bewire.slp.grpc.proto.Employee;
+import be.bewire.slp.grpc.proto.EmployeeServiceGrpc;
+import be.bewire.slp.grpc.proto.GetEmployeeRequest;
+import be.bewire.slp.grpc.proto.GetEmployeesRequest;
+import be.bewire.slp.grpc.proto.GetEmployeesResponse;
+import be.bewire.slp.grpc.proto.ListEmployeesRequest;
+import be.bewire.slp.grpc.proto.UpdateEmployeeRequest;
+import be.bewire.slp.repository.EmployeeRepository;
+import be.bewire.slp.service.EmployeeService;
+import be.bewire.slp.sharding.ShardContext;
+import be.bewire.slp.sharding.ShardRouter;
+import com.google.protobuf.Empty;
+import io.grpc.Context;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.springframework.data.domain.PageRequest;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * gRPC api of the {@link be.bewire.slp.service.EmployeeService}, with the same validation and errors as the REST api
+ * (see {@link be.bewire.slp.grpc.GrpcStatuses}). The deadline of a call becomes the {@link be.bewire.slp.deadline.Deadline}
+ * of its database work.
+ */
+public class EmployeeGrpcService extends EmployeeServiceGrpc.EmployeeServiceImplBase {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final EmployeeService employeeService;
+
+    private final EmployeeRepository employeeRepository;
+
+    private final ShardRouter shardRouter;
+
+    private final Validator validator;
+
+    public EmployeeGrpcService(EmployeeService employeeService,
+                               EmployeeRepository employeeRepository,
+                               ShardRouter shardRouter,
+                               Validator validator) {
+        this.employeeService = employeeService;
+        this.employeeRepository = employeeRepository;
+        this.shardRouter = shardRouter;
+        this.validator = validator;
+    }
+
+    @Override
+    public void getEmployee(GetEmployeeRequest request, StreamObserver<Employee> responseObserver) {
+        unary(responseObserver, () -> EmployeeMessages.toMessage(employeeService.findById(request.getId())));
+    }
+
+    @Override
+    public void getEmployees(GetEmployeesRequest request, StreamObserver<GetEmployeesResponse> responseObserver) {
+        unary(responseObserver, () -> {
+            EmployeeLookup lookup = employeeService.findAllById(request.getIdsList());
+
+            return GetEmployeesResponse.newBuilder()
+                    .addAllEmployees(lookup.getFound().stream().map(EmployeeMessages::toMessage).collect(Collectors.toList()))
+                    .addAllMissingIds(lookup.getMissing())
+                    .build();
+        });
+    }
+
+    @Override
+    public void createEmployee(CreateEmployeeRequest request, StreamObserver<Employee> responseObserver) {
+        unary(responseObserver, () -> EmployeeMessages.toMessage(employeeService.create(valid(request.getEmployee()))));
+    }
+
+    @Override
+    public void updateEmployee(UpdateEmployeeRequest request, StreamObserver<Employee> responseObserver) {
+        unary(responseObserver, () -> EmployeeMessages.toMessage(employeeService.update(valid(request.getEmployee()))));
+    }
+
+    @Override
+    public void deleteEmployee(DeleteEmployeeRequest request, StreamObserver<Empty> responseObserver) {
+        unary(responseObserver, () -> {
+            employeeService.deleteById(request.getId());
+            return Empty.getDefaultInstance();
+        });
+    }
+
+    /**
+     * Stream every employee, shard by shard in id order. A page is only read from the database when the client
+     * has taken the previous one, so a slow client holds one page in memory instead of the whole table.
+     */
+    @Override
+    public void listEmployees(ListEmployeesRequest request, StreamObserver<Employee> responseObserver) {
+        int pageSize = request.getPageSize() == 0 ? DEFAULT_PAGE_SIZE : request.getPageSize();
+
+        if (pageSize < 0 || pageSize > MAX_PAGE_SIZE) {
+            responseObserver.onError(GrpcStatuses.of(new MalformedBodyException(
+                    String.format("Page size must be between 1 and %d.", MAX_PAGE_SIZE))).asRuntimeException());
+            return;
+        }
+
+        ServerCallStreamObserver<Employee> call = (ServerCallStreamObserver<Employee>) responseObserver;
+        ListCall listCall = new ListCall(call, pageSize, deadlineOf(Context.current()));
+
+        call.setOnCancelHandler(listCall::cancel);
+        call.setOnReadyHandler(listCall);
+    }
+
+    private <T> void unary(StreamObserver<T> responseObserver, Supplier<T> call) {
+        T response;
+
+        try {
+            response = Deadline.call(deadlineOf(Context.current()), call);
+        } catch (RuntimeException ex) {
+            responseObserver.onError(GrpcStatuses.of(ex).asRuntimeException());
+            return;
+        }
+
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Validate an employee message with the constraints of {@link be.bewire.slp.domain.Employee}, like {@code @Valid} does for REST.
+     */
+    private be.bewire.slp.domain.Employee valid(Employee message) {
+        be.bewire.slp.domain.Employee employee = EmployeeMessages.fromMessage(message);
+        Set<ConstraintViolation<be.bewire.slp.domain.Employee>> violations = validator.validate(employee);
+
+        if (!violations.isEmpty())
+            throw new MalformedBodyException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+
+        return employee;
+    }
+
+    private static Deadline deadlineOf(Context context) {
+        io.grpc.Deadline deadline = context.getDeadline();
+
+        return deadline == null ? null : Deadline.after(Duration.ofNanos(deadline.timeRemaining(TimeUnit.NANOSECONDS)));
+    }
+
+    /**
+     * One listing, driven by the readiness of the client. gRPC runs the handlers of a call one at a time.
+     */
+    private final class ListCall implements Runnable {
+
+        private final ServerCallStreamObserver<Employee> call;
+
+        private final int pageSize;
+
+        private final Deadline deadline;
+
+        private final Deque<be.bewire.slp.domain.Employee> page = new ArrayDeque<>();
+
+        private int shard;
+
+        private int afterId;
+
+        private volatile boolean done;
+
+        private ListCall(ServerCallStreamObserver<Employee> call, int pageSize, Deadline deadline) {
+            this.call = call;
+            this.pageSize = pageSize;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Send until the client's flow control window is full, the next ready signal continues.
+         */
+        @Override
+        public void run() {
+            if (done)
+                return;
+
+            try {
+                while (call.isReady()) {
+                    if (page.isEmpty() && !nextPage()) {
+                        done = true;
+                        call.onCompleted();
+                        return;
+                    }
+
+                    call.onNext(EmployeeMessages.toMessage(page.poll()));
+                }
+            } catch (RuntimeException ex) {
+                done = true;
+                call.onError(GrpcStatuses.of(ex).asRuntimeException());
+            }
+        }
+
+        private void cancel() {
+            done = true;
+        }
+
+        /**
+         * Read the next page, moving on to the next shard when a shard is exhausted.
+         *
+         * @return false when every shard is exhausted
+         */
+        private boolean nextPage() {
+            while (shard < shardRouter.getShardCount()) {
+                int current = shard;
+                int after = afterId;
+
+                List<be.bewire.slp.domain.Employee> employees = Deadline.call(deadline, () -> ShardContext.call(current,
+                        () -> employeeRepository.findPage(after, PageRequest.of(0, pageSize))));
+
+                page.addAll(employees);
+
+                if (employees.size() < pageSize) {
+                    shard++;
+                    afterId = 0;
+                } else {
+                    afterId = employees.get(employees.size() - 1).getId();
+                }
+
+                if (!page.isEmpty())
+                    return true;
+            }
+
+            return false;
+        }
+    }
+}
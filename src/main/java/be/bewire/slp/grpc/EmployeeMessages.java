@@ -0,0 +1,58 @@
+package be.bewire.slp.grpc;
+
+import com.google.protobuf.Timestamp;
+
+import java.util.Date;
+
+/**
+ * Conversion between {@link be.bewire.slp.domain.Employee} and its protobuf message.
+ */
+public final class EmployeeMessages {
+
+    private EmployeeMessages() {
+    }
+
+    /**
+     * Message of an employee.
+     *
+     * @param employee employee entity
+     * @return employee message
+     */
+    public static be.bewire.slp.grpc.proto.Employee toMessage(be.bewire.slp.domain.Employee employee) {
+        be.bewire.slp.grpc.proto.Employee.Builder message = be.bewire.slp.grpc.proto.Employee.newBuilder()
+                .setId(employee.getId());
+
+        // Protobuf strings cannot be null, absent fields stay at their default
+        if (employee.getFirstName() != null)
+            message.setFirstName(employee.getFirstName());
+        if (employee.getLastName() != null)
+            message.setLastName(employee.getLastName());
+        if (employee.getCompany() != null)
+            message.setCompany(employee.getCompany());
+        if (employee.getCreated() != null)
+            message.setCreated(toTimestamp(employee.getCreated()));
+        if (employee.getUpdated() != null)
+            message.setUpdated(toTimestamp(employee.getUpdated()));
+
+        return message.build();
+    }
+
+    /**
+     * Employee of a message, the timestamps are left to the service.
+     *
+     * @param message employee message
+     * @return employee entity
+     */
+    public static be.bewire.slp.domain.Employee fromMessage(be.bewire.slp.grpc.proto.Employee message) {
+        return new be.bewire.slp.domain.Employee(message.getId(), message.getFirstName(), message.getLastName(), message.getCompany());
+    }
+
+    private static Timestamp toTimestamp(Date date) {
+        long millis = date.getTime();
+
+        return Timestamp.newBuilder()
+                .setSeconds(Math.floorDiv(millis, 1000))
+                .setNanos((int) Math.floorMod(millis, 1000) * 1_000_000)
+                .build();
+    }
+}
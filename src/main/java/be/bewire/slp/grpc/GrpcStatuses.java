@@ -0,0 +1,63 @@
+package be.bewire.slp.grpc;
+
+import be.bewire.slp.exceptions.ConflictException;
+import be.bewire.slp.exceptions.DeadlineExceededException;
+import be.bewire.slp.exceptions.MalformedBodyException;
+import be.bewire.slp.exceptions.ResourceNotFoundException;
+import io.grpc.Status;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionTimedOutException;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.Dictionary;
+import java.util.Hashtable;
+
+/**
+ * Error handling of the gRPC api, the counterpart of {@link be.bewire.slp.config.ApplicationExceptionHandler}:
+ * the same exceptions map to the gRPC status codes of their http status, with the message as description.
+ */
+public final class GrpcStatuses {
+
+    private static final Dictionary<Class, Status.Code> errorHandlingTable = new Hashtable<>();
+
+    static {
+        errorHandlingTable.put(ResourceNotFoundException.class, Status.Code.NOT_FOUND);
+        errorHandlingTable.put(MalformedBodyException.class, Status.Code.INVALID_ARGUMENT);
+        errorHandlingTable.put(ConflictException.class, Status.Code.ABORTED);
+
+        // Request deadlines
+        errorHandlingTable.put(DeadlineExceededException.class, Status.Code.DEADLINE_EXCEEDED);
+        errorHandlingTable.put(QueryTimeoutException.class, Status.Code.DEADLINE_EXCEEDED);
+        errorHandlingTable.put(TransactionTimedOutException.class, Status.Code.DEADLINE_EXCEEDED);
+        errorHandlingTable.put(SQLTransientConnectionException.class, Status.Code.UNAVAILABLE);
+        errorHandlingTable.put(CannotGetJdbcConnectionException.class, Status.Code.UNAVAILABLE);
+        errorHandlingTable.put(CannotCreateTransactionException.class, Status.Code.UNAVAILABLE);
+    }
+
+    private GrpcStatuses() {
+    }
+
+    /**
+     * Status of an exception, decided by the innermost known exception of its cause chain.
+     *
+     * @param ex exception of a call
+     * @return the status, {@code INTERNAL} for unknown exceptions
+     */
+    public static Status of(Throwable ex) {
+        Status.Code code = null;
+
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            Status.Code causeCode = errorHandlingTable.get(cause.getClass());
+
+            if (causeCode != null)
+                code = causeCode;
+        }
+
+        if (code == null)
+            code = Status.Code.INTERNAL;
+
+        return code.toStatus().withDescription(ex.getMessage()).withCause(ex);
+    }
+}
@@ -0,0 +1,56 @@
+package be.bewire.slp.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * {@link be.bewire.slp.jdbc.StagingWriter} with plain JDBC batches, for databases without COPY (eg. H2).
+ */
+public class BatchStagingWriter implements StagingWriter {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final PreparedStatement insert;
+
+    private int pending;
+
+    public BatchStagingWriter(Connection connection, String table) throws SQLException {
+        this.insert = connection.prepareStatement(
+                String.format("INSERT INTO %s (seq, first_name, last_name, company_id, changes) VALUES (?, ?, ?, ?, ?)", table));
+    }
+
+    @Override
+    public void add(int seq, String firstName, String lastName, int companyId, String changes) throws SQLException {
+        insert.setInt(1, seq);
+        insert.setString(2, firstName);
+        insert.setString(3, lastName);
+        insert.setInt(4, companyId);
+        insert.setString(5, changes);
+        insert.addBatch();
+
+        if (++pending == BATCH_SIZE) {
+            insert.executeBatch();
+            pending = 0;
+        }
+    }
+
+    @Override
+    public void finish() throws SQLException {
+        try {
+            if (pending > 0)
+                insert.executeBatch();
+        } finally {
+            insert.close();
+        }
+    }
+
+    @Override
+    public void abort() {
+        try {
+            insert.close();
+        } catch (SQLException ignored) {
+            // The transaction is rolled back anyway
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package be.bewire.slp.jdbc;
+
+import be.bewire.slp.sharding.ShardContext;
+import be.bewire.slp.sharding.ShardRouter;
+import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * In-memory dictionary of the {@link be.bewire.slp.domain.Company} table, the id of a company name and back.
+ * Lookups read an immutable snapshot without locking. The snapshot is replaced when this instance adds a company,
+ * and reloaded when a name or id is missing (added by another instance) or every five minutes.
+ * Every company name is kept once, so loaded employees share the same string per company.
+ * <p>
+ * The table lives on the primary shard. {@link #idOf(String)} writes on a connection of its own, outside any running
+ * transaction, so a registered company is never rolled back underneath the dictionary.
+ * {@link #idOf(Connection, String)} writes within the transaction of the caller instead, the dictionary only learns
+ * those companies once they are committed.
+ */
+@Component
+public class CompanyDictionary {
+
+    private static final long RELOAD_INTERVAL_MILLIS = 5 * 60 * 1000;
+
+    private final DataSource dataSource;
+
+    /**
+     * Loaded on first use, the table may not exist yet while the application starts.
+     */
+    private volatile Entries entries;
+
+    public CompanyDictionary(ShardRouter shardRouter) {
+        this.dataSource = shardRouter.getDataSource(ShardContext.PRIMARY);
+    }
+
+    /**
+     * Id of a company, the company is added when it is not known yet.
+     * Only for writes of employees, lookups use {@link #find(String)}.
+     *
+     * @param name company name
+     * @return company id
+     */
+    public int idOf(String name) {
+        Integer id = current().ids.get(name);
+
+        return id != null ? id : register(name);
+    }
+
+    /**
+     * Id of an existing company.
+     *
+     * @param name company name
+     * @return company id, or empty when there is no such company
+     */
+    public OptionalInt find(String name) {
+        Integer id = current().ids.get(name);
+
+        if (id == null)
+            id = load().ids.get(name);
+
+        return id == null ? OptionalInt.empty() : OptionalInt.of(id);
+    }
+
+    /**
+     * Id of a company within the transaction of a connection on the primary shard, the company is added on that
+     * connection when it is not known yet. A rolled back transaction leaves nothing behind, also not in the dictionary:
+     * it picks up the committed companies on its next {@link #reload()}.
+     *
+     * @param connection connection on the primary shard, not in auto-commit
+     * @param name       company name
+     * @return company id
+     * @throws SQLException when the company cannot be looked up or added
+     */
+    public int idOf(Connection connection, String name) throws SQLException {
+        Integer known = current().ids.get(name);
+
+        if (known != null)
+            return known;
+
+        // Waits for an uncommitted insert of the same name by another transaction
+        Savepoint savepoint = connection.setSavepoint();
+
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO company (name) VALUES (?)", new String[]{"id"})) {
+            insert.setString(1, name);
+            insert.executeUpdate();
+
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                keys.next();
+                return keys.getInt(1);
+            }
+        } catch (SQLException ex) {
+            // Added and committed by someone else, PostgreSQL needs the savepoint to go on with the transaction
+            connection.rollback(savepoint);
+
+            try (PreparedStatement select = connection.prepareStatement("SELECT id FROM company WHERE name = ?")) {
+                select.setString(1, name);
+
+                try (ResultSet company = select.executeQuery()) {
+                    if (!company.next())
+                        throw ex;
+
+                    return company.getInt(1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Name of a company.
+     *
+     * @param id company id
+     * @return company name, the same instance for every call
+     */
+    public String nameOf(int id) {
+        String name = current().nameOf(id);
+
+        if (name == null)
+            name = load().nameOf(id);
+
+        if (name == null)
+            throw new IllegalStateException(String.format("No company with id %d.", id));
+
+        return name;
+    }
+
+    /**
+     * Name of a company as far as it is loaded, never touches the database, so it is safe on an event loop.
+     *
+     * @param id company id
+     * @return company name, or {@code null} when it is not loaded (yet)
+     */
+    public String cachedNameOf(int id) {
+        Entries current = entries;
+
+        return current == null ? null : current.nameOf(id);
+    }
+
+    /**
+     * Amount of known companies.
+     *
+     * @return amount of companies
+     */
+    public int size() {
+        return current().ids.size();
+    }
+
+    /**
+     * Pick up companies changed outside this instance.
+     */
+    @Scheduled(fixedDelay = RELOAD_INTERVAL_MILLIS, initialDelay = RELOAD_INTERVAL_MILLIS)
+    public void reload() {
+        load();
+    }
+
+    private synchronized Entries load() {
+        Map<String, Integer> ids = new HashMap<>();
+        int maxId = 0;
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet companies = statement.executeQuery("SELECT id, name FROM company")) {
+            while (companies.next()) {
+                ids.put(companies.getString(2), companies.getInt(1));
+                maxId = Math.max(maxId, companies.getInt(1));
+            }
+        } catch (SQLException ex) {
+            throw new SQLStateSQLExceptionTranslator().translate("Load companies", null, ex);
+        }
+
+        String[] names = new String[maxId + 1];
+        ids.forEach((name, id) -> names[id] = name);
+
+        entries = new Entries(ids, names);
+        return entries;
+    }
+
+    private Entries current() {
+        Entries current = entries;
+
+        return current != null ? current : load();
+    }
+
+    private synchronized int register(String name) {
+        // Another thread or instance may have added it in the meantime
+        Integer id = load().ids.get(name);
+
+        if (id != null)
+            return id;
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO company (name) VALUES (?)", new String[]{"id"})) {
+            connection.setAutoCommit(true);
+            insert.setString(1, name);
+            insert.executeUpdate();
+
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                keys.next();
+                id = keys.getInt(1);
+            }
+        } catch (SQLException ex) {
+            // Lost the race on the unique name to another instance
+            id = load().ids.get(name);
+
+            if (id == null)
+                throw new SQLStateSQLExceptionTranslator().translate("Add company", null, ex);
+
+            return id;
+        }
+
+        entries = entries.with(name, id);
+        return id;
+    }
+
+    /**
+     * Immutable content of the dictionary.
+     */
+    private static class Entries {
+
+        private final Map<String, Integer> ids;
+
+        /**
+         * Names indexed by id, the ids of the table are small and dense.
+         */
+        private final String[] names;
+
+        private Entries(Map<String, Integer> ids, String[] names) {
+            this.ids = Collections.unmodifiableMap(ids);
+            this.names = names;
+        }
+
+        private String nameOf(int id) {
+            return id >= 0 && id < names.length ? names[id] : null;
+        }
+
+        private Entries with(String name, int id) {
+            Map<String, Integer> ids = new HashMap<>(this.ids);
+            ids.put(name, id);
+
+            String[] names = Arrays.copyOf(this.names, Math.max(this.names.length, id + 1));
+            names[id] = name;
+
+            return new Entries(ids, names);
+        }
+    }
+}
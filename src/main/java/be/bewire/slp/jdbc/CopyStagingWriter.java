@@ -0,0 +1,85 @@
+package be.bewire.slp.jdbc;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * {@link be.bewire.slp.jdbc.StagingWriter} that streams rows with the PostgreSQL COPY protocol,
+ * encoded as csv in buffers of about 64 KB.
+ */
+public class CopyStagingWriter implements StagingWriter {
+
+    private static final int FLUSH_BYTES = 64 * 1024;
+
+    private final CopyIn copyIn;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(FLUSH_BYTES + 1024);
+
+    public CopyStagingWriter(Connection connection, String table) throws SQLException {
+        this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn(String.format("COPY %s (seq, first_name, last_name, company_id, changes) FROM STDIN WITH (FORMAT csv)", table));
+    }
+
+    @Override
+    public void add(int seq, String firstName, String lastName, int companyId, String changes) throws SQLException {
+        StringBuilder row = new StringBuilder(64)
+                .append(seq).append(',');
+        appendQuoted(row, firstName).append(',');
+        appendQuoted(row, lastName).append(',')
+                .append(companyId).append(',');
+
+        // An unquoted empty value is NULL in csv
+        if (changes != null)
+            appendQuoted(row, changes);
+        row.append('\n');
+
+        byte[] bytes = row.toString().getBytes(StandardCharsets.UTF_8);
+        buffer.write(bytes, 0, bytes.length);
+
+        if (buffer.size() >= FLUSH_BYTES)
+            flush();
+    }
+
+    @Override
+    public void finish() throws SQLException {
+        flush();
+        copyIn.endCopy();
+    }
+
+    @Override
+    public void abort() {
+        try {
+            if (copyIn.isActive())
+                copyIn.cancelCopy();
+        } catch (SQLException ignored) {
+            // The transaction is rolled back anyway
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (buffer.size() == 0)
+            return;
+
+        copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+        buffer.reset();
+    }
+
+    private static StringBuilder appendQuoted(StringBuilder row, String value) {
+        row.append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c == '"')
+                row.append('"');
+            row.append(c);
+        }
+
+        return row.append('"');
+    }
+}
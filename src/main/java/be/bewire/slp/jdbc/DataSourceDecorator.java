@@ -0,0 +1,22 @@
+package be.bewire.slp.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps a connection pool of the application, eg. to limit the amount of threads using it.
+ * Every decorator bean is applied to every pool in the order of the beans, so the first decorator ends up closest to the pool.
+ */
+@FunctionalInterface
+public interface DataSourceDecorator {
+
+    /**
+     * Wrap a connection pool.
+     *
+     * @param dataSource the pool, already wrapped by the decorators before this one
+     * @param pool       the pool itself, eg. to size the wrapper after it
+     * @return the wrapped data source
+     */
+    DataSource decorate(DataSource dataSource, HikariDataSource pool);
+}
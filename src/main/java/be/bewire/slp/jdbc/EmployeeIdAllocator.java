@@ -0,0 +1,82 @@
+package be.bewire.slp.jdbc;
+
+import be.bewire.slp.sharding.ShardContext;
+import be.bewire.slp.sharding.ShardRouter;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reserves blocks of the {@link be.bewire.slp.domain.Employee} id sequence of a shard for set-based inserts.
+ * Uses the same {@code hibernate_sequences} row and protocol as the table generator of the entity, which stores the
+ * last value handed out ({@code hibernate.id.generator.stored_last_used}), in a short transaction of its own so the
+ * row is not locked for the duration of the insert.
+ */
+@Component
+public class EmployeeIdAllocator {
+
+    private static final String SEGMENT = "default";
+
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public EmployeeIdAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Reserve consecutive values of the id sequence of a shard.
+     *
+     * @param shard shard number
+     * @param count amount of ids
+     * @return first reserved sequence value, the block is {@code [first, first + count)}
+     * @throws IllegalStateException when the sequence would run past the largest sequence value of a shard
+     */
+    public long allocate(int shard, int count) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Long first = ShardContext.call(shard, () -> transactionTemplate.execute(status -> tryAllocate(count)));
+
+                if (first != null)
+                    return first;
+            } catch (DataIntegrityViolationException ex) {
+                // Concurrent first use of the segment
+                if (attempt == MAX_ATTEMPTS)
+                    throw ex;
+            }
+
+            if (attempt == MAX_ATTEMPTS)
+                throw new IllegalStateException("Could not reserve employee ids.");
+        }
+    }
+
+    private Long tryAllocate(int count) {
+        long last;
+
+        try {
+            last = jdbcTemplate.queryForObject(
+                    "SELECT next_val FROM hibernate_sequences WHERE sequence_name = ? FOR UPDATE", Long.class, SEGMENT);
+        } catch (EmptyResultDataAccessException ex) {
+            last = 0;
+            jdbcTemplate.update("INSERT INTO hibernate_sequences (sequence_name, next_val) VALUES (?, ?)", SEGMENT, last);
+        }
+
+        if (last + count > ShardRouter.MAX_SEQUENCE)
+            throw new IllegalStateException("Employee id sequence exhausted on shard " + ShardContext.current());
+
+        int updated = jdbcTemplate.update(
+                "UPDATE hibernate_sequences SET next_val = ? WHERE sequence_name = ? AND next_val = ?",
+                last + count, SEGMENT, last);
+
+        return updated == 1 ? last + 1 : null;
+    }
+}
@@ -0,0 +1,148 @@
+package be.bewire.slp.jdbc;
+
+import be.bewire.slp.deadline.Deadline;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Data source that lets a bounded amount of threads hold a connection at the same time.
+ * With virtual threads the waiting happens on the semaphore, where a virtual thread unmounts from its carrier,
+ * instead of inside the (synchronized) pool and driver code, where it would pin its carrier.
+ * The permit is released when the connection is closed. A thread with a {@link be.bewire.slp.deadline.Deadline}
+ * waits for a permit no longer than its remaining budget.
+ */
+public class PermitDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final Semaphore permits;
+
+    private final int maxPermits;
+
+    public PermitDataSource(DataSource targetDataSource, int maxPermits) {
+        super(targetDataSource);
+        this.permits = new Semaphore(maxPermits, true);
+        this.maxPermits = maxPermits;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+
+        try {
+            return withPermit(super.getConnection());
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+
+        try {
+            return withPermit(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Maximum amount of connections held at the same time.
+     *
+     * @return amount of permits
+     */
+    public int getMaxPermits() {
+        return maxPermits;
+    }
+
+    /**
+     * Amount of permits that are not in use.
+     *
+     * @return free permits
+     */
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * Close the wrapped data source, eg. its connection pool.
+     *
+     * @throws Exception when the wrapped data source cannot be closed
+     */
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable)
+            ((AutoCloseable) getTargetDataSource()).close();
+    }
+
+    private void acquire() throws SQLException {
+        Deadline deadline = Deadline.current();
+
+        try {
+            if (deadline == null)
+                permits.acquire();
+            else if (!permits.tryAcquire(Math.max(0, deadline.remainingMillis()), TimeUnit.MILLISECONDS))
+                throw new SQLTransientConnectionException("No database permit available within the request deadline.");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database permit.", ex);
+        }
+    }
+
+    private Connection withPermit(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (isClose(method) && released.compareAndSet(false, true)) {
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getCause();
+                        } finally {
+                            permits.release();
+                        }
+                    }
+
+                    switch (method.getName()) {
+                        case "unwrap":
+                            if (((Class<?>) args[0]).isInstance(proxy))
+                                return proxy;
+                            break;
+                        case "isWrapperFor":
+                            if (((Class<?>) args[0]).isInstance(proxy))
+                                return true;
+                            break;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                });
+    }
+
+    private static boolean isClose(Method method) {
+        return method.getName().equals("close") && method.getParameterCount() == 0;
+    }
+}
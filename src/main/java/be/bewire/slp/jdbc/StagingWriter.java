@@ -0,0 +1,12 @@
+package be.bewire.slp.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * Loads validated import rows into the {@code employee_import} staging table.
+ */
+public interface StagingWriter {
+    void add(int seq, String firstName, String lastName, int companyId, String changes) throws SQLException;
+    void finish() throws SQLException;
+    void abort();
+}
@@ -0,0 +1,41 @@
+package be.bewire.slp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One request handled by the {@link be.bewire.slp.controller.EmployeeController}.
+ */
+@Name("be.bewire.slp.EmployeeRequest")
+@Label("Employee Request")
+@Description("HTTP request on /api/employee")
+@Category({"SLP", "Controller"})
+@StackTrace(false)
+@Threshold("10 ms")
+public class EmployeeRequestEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Route")
+    @Description("Mapped url pattern, eg. /api/employee/{id}")
+    String route;
+
+    @Label("Status")
+    int status;
+
+    @Label("Employee Id")
+    @Description("Id in the url, 0 for routes without one")
+    int employeeId;
+
+    @Label("Allocated")
+    @Description("Heap allocated by the request thread while handling the request")
+    @DataAmount
+    long allocated;
+}
@@ -0,0 +1,89 @@
+package be.bewire.slp.jfr;
+
+import be.bewire.slp.controller.EmployeeController;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+
+/**
+ * Emits an {@link be.bewire.slp.jfr.EmployeeRequestEvent} for every request of the
+ * {@link be.bewire.slp.controller.EmployeeController}, when a recording has the event enabled.
+ */
+public class EmployeeRequestInterceptor implements HandlerInterceptor {
+
+    private static final String EVENT_ATTRIBUTE = EmployeeRequestInterceptor.class.getName() + ".event";
+
+    private static final String ALLOCATED_ATTRIBUTE = EmployeeRequestInterceptor.class.getName() + ".allocated";
+
+    /**
+     * Per-thread allocation counter of HotSpot, absent on other virtual machines.
+     */
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod) || ((HandlerMethod) handler).getBeanType() != EmployeeController.class)
+            return true;
+
+        EmployeeRequestEvent event = new EmployeeRequestEvent();
+
+        if (!event.isEnabled())
+            return true;
+
+        request.setAttribute(EVENT_ATTRIBUTE, event);
+        request.setAttribute(ALLOCATED_ATTRIBUTE, allocatedBytes());
+        event.begin();
+
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object attribute = request.getAttribute(EVENT_ATTRIBUTE);
+
+        if (!(attribute instanceof EmployeeRequestEvent))
+            return;
+
+        EmployeeRequestEvent event = (EmployeeRequestEvent) attribute;
+        event.end();
+
+        if (!event.shouldCommit())
+            return;
+
+        event.method = request.getMethod();
+        event.route = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        event.status = response.getStatus();
+        event.allocated = allocatedBytes() - (Long) request.getAttribute(ALLOCATED_ATTRIBUTE);
+
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables != null && variables.containsKey("id")) {
+            try {
+                event.employeeId = Integer.parseInt(variables.get("id"));
+            } catch (NumberFormatException ignored) {
+                // Rejected with a 400, recorded without id
+            }
+        }
+
+        event.commit();
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if (threads instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported())
+            return (com.sun.management.ThreadMXBean) threads;
+
+        return null;
+    }
+}
@@ -0,0 +1,31 @@
+package be.bewire.slp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One call of an {@link be.bewire.slp.service.EmployeeService} operation.
+ */
+@Name("be.bewire.slp.EmployeeService")
+@Label("Employee Service Operation")
+@Category({"SLP", "Service"})
+@StackTrace(false)
+@Threshold("10 ms")
+public class EmployeeServiceEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Employee Id")
+    @Description("Id argument of the operation, 0 for operations without one")
+    int employeeId;
+
+    @Label("Failure")
+    @Description("Exception thrown by the operation")
+    Class<?> failure;
+}
@@ -0,0 +1,44 @@
+package be.bewire.slp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An exception turned into an error response by the {@link be.bewire.slp.config.ApplicationExceptionHandler}.
+ */
+@Name("be.bewire.slp.ExceptionMapping")
+@Label("Exception Mapping")
+@Category({"SLP", "Controller"})
+@StackTrace(true)
+public class ExceptionMappingEvent extends Event {
+
+    @Label("Exception")
+    Class<?> exception;
+
+    @Label("Status")
+    int status;
+
+    @Label("Message")
+    String message;
+
+    /**
+     * Record a mapping when the event is enabled.
+     *
+     * @param exception mapped exception
+     * @param status    status of the response
+     */
+    public static void emit(Exception exception, int status) {
+        ExceptionMappingEvent event = new ExceptionMappingEvent();
+
+        if (!event.isEnabled())
+            return;
+
+        event.exception = exception.getClass();
+        event.status = status;
+        event.message = exception.getMessage();
+        event.commit();
+    }
+}
@@ -0,0 +1,97 @@
+package be.bewire.slp.jfr;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Emits an {@link be.bewire.slp.jfr.EmployeeServiceEvent} per {@link be.bewire.slp.service.EmployeeService} operation
+ * and a {@link be.bewire.slp.jfr.RepositoryCallEvent} per Spring Data repository call.
+ * Nothing but the enabled check runs when no recording has the events enabled.
+ */
+@Aspect
+public class JfrEventAspect {
+
+    @Around("target(be.bewire.slp.service.EmployeeService)")
+    public Object recordServiceOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        EmployeeServiceEvent event = new EmployeeServiceEvent();
+
+        if (!event.isEnabled())
+            return joinPoint.proceed();
+
+        event.begin();
+
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable ex) {
+            event.failure = ex.getClass();
+            throw ex;
+        } finally {
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.operation = joinPoint.getSignature().getName();
+
+                Object[] args = joinPoint.getArgs();
+                if (args.length > 0 && args[0] instanceof Integer)
+                    event.employeeId = (Integer) args[0];
+
+                event.commit();
+            }
+        }
+    }
+
+    @Around("target(org.springframework.data.repository.Repository)")
+    public Object recordRepositoryCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+
+        if (!event.isEnabled())
+            return joinPoint.proceed();
+
+        int statements = SqlStatementCounter.current();
+        Object result = null;
+        event.begin();
+
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } finally {
+            event.end();
+
+            if (event.shouldCommit()) {
+                Class<?>[] interfaces = joinPoint.getTarget().getClass().getInterfaces();
+
+                event.repository = interfaces.length > 0 ? interfaces[0].getSimpleName() : joinPoint.getTarget().getClass().getSimpleName();
+                event.method = joinPoint.getSignature().getName();
+                event.statements = SqlStatementCounter.current() - statements;
+                event.rows = rows(result);
+                event.commit();
+            }
+        }
+    }
+
+    private static long rows(Object result) {
+        if (result == null || result instanceof Boolean)
+            return 0;
+        if (result instanceof Number)
+            return ((Number) result).longValue();
+        if (result instanceof Optional)
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        if (result instanceof Collection)
+            return ((Collection<?>) result).size();
+        if (result instanceof Map)
+            return ((Map<?, ?>) result).size();
+        if (result instanceof Iterable) {
+            long rows = 0;
+            for (Object ignored : (Iterable<?>) result)
+                rows++;
+            return rows;
+        }
+
+        return 1;
+    }
+}
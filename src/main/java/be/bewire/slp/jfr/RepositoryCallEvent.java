@@ -0,0 +1,34 @@
+package be.bewire.slp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One call of a Spring Data repository, with the SQL statements it caused.
+ */
+@Name("be.bewire.slp.RepositoryCall")
+@Label("Repository Call")
+@Category({"SLP", "Repository"})
+@StackTrace(false)
+@Threshold("5 ms")
+public class RepositoryCallEvent extends Event {
+
+    @Label("Repository")
+    String repository;
+
+    @Label("Method")
+    String method;
+
+    @Label("Statements")
+    @Description("SQL statements prepared by Hibernate during the call")
+    int statements;
+
+    @Label("Rows")
+    @Description("Entities returned or rows changed")
+    long rows;
+}
@@ -0,0 +1,121 @@
+package be.bewire.slp.json;
+
+import be.bewire.slp.config.EmployeeProperties;
+import be.bewire.slp.domain.Employee;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Serialized UTF-8 json of {@link be.bewire.slp.domain.Employee} per id.
+ * A cached entry keeps the values it was serialized from, and is only served for an employee with exactly those values.
+ * So a change is never missed, also not one within the same millisecond, by a bulk update or on another instance.
+ * The cache is bounded, the least recently used employees are evicted first.
+ */
+@Component
+@ConditionalOnProperty(prefix = "slp.employee.json-cache", name = "enabled", havingValue = "true")
+public class EmployeeJsonCache {
+
+    private final Map<Integer, CachedJson> cache;
+
+    private final ObjectMapper objectMapper;
+
+    public EmployeeJsonCache(ObjectMapper objectMapper, EmployeeProperties properties) {
+        int maxEntries = properties.getJsonCache().getMaxEntries();
+
+        this.objectMapper = objectMapper;
+        this.cache = new LinkedHashMap<Integer, CachedJson>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedJson> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Serialized json of the employee, from the cache when the employee did not change since it was cached.
+     *
+     * @param employee employee to serialize
+     * @return UTF-8 json bytes
+     * @throws JsonProcessingException when the employee cannot be serialized
+     */
+    public byte[] toJson(Employee employee) throws JsonProcessingException {
+        CachedJson cached;
+
+        synchronized (cache) {
+            cached = cache.get(employee.getId());
+        }
+
+        if (cached != null && cached.isOf(employee))
+            return cached.json;
+
+        byte[] json = objectMapper.writeValueAsBytes(employee);
+
+        synchronized (cache) {
+            cache.put(employee.getId(), new CachedJson(employee, json));
+        }
+
+        return json;
+    }
+
+    /**
+     * Amount of cached employees.
+     *
+     * @return amount of entries
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private static class CachedJson {
+
+        /**
+         * Stands in for a missing timestamp, so comparing does not allocate.
+         */
+        private static final long NO_DATE = Long.MIN_VALUE;
+
+        private final String firstName;
+
+        private final String lastName;
+
+        private final String company;
+
+        private final long created;
+
+        private final long updated;
+
+        private final byte[] json;
+
+        private CachedJson(Employee employee, byte[] json) {
+            this.firstName = employee.getFirstName();
+            this.lastName = employee.getLastName();
+            this.company = employee.getCompany();
+            this.created = timeOf(employee.getCreated());
+            this.updated = timeOf(employee.getUpdated());
+            this.json = json;
+        }
+
+        /**
+         * Whether the json was serialized from the same values as the employee has now.
+         */
+        private boolean isOf(Employee employee) {
+            return Objects.equals(firstName, employee.getFirstName())
+                    && Objects.equals(lastName, employee.getLastName())
+                    && Objects.equals(company, employee.getCompany())
+                    && created == timeOf(employee.getCreated())
+                    && updated == timeOf(employee.getUpdated());
+        }
+
+        private static long timeOf(Date date) {
+            return date == null ? NO_DATE : date.getTime();
+        }
+    }
+}
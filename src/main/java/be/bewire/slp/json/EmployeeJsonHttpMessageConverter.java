@@ -0,0 +1,120 @@
+package be.bewire.slp.json;
+
+import be.bewire.slp.domain.Employee;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Writes {@link be.bewire.slp.domain.Employee} responses, single or as a collection, straight from the
+ * {@link be.bewire.slp.json.EmployeeJsonCache} so unchanged rows are not serialized again.
+ * Registered before the Jackson converter, only when the cache is enabled. It only writes, requests are left to Jackson.
+ */
+@Component
+@ConditionalOnProperty(prefix = "slp.employee.json-cache", name = "enabled", havingValue = "true")
+public class EmployeeJsonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final EmployeeJsonCache employeeJsonCache;
+
+    private final ObjectMapper objectMapper;
+
+    public EmployeeJsonHttpMessageConverter(EmployeeJsonCache employeeJsonCache, ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON);
+        this.employeeJsonCache = employeeJsonCache;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Employee.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType))
+            return false;
+
+        if (Employee.class.isAssignableFrom(clazz))
+            return true;
+
+        if (type == null || !Iterable.class.isAssignableFrom(clazz))
+            return false;
+
+        Class<?> elementType = ResolvableType.forType(type).as(Iterable.class).resolveGeneric(0);
+
+        return elementType != null && Employee.class.isAssignableFrom(elementType);
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream out = outputMessage.getBody();
+
+        if (body instanceof Employee) {
+            out.write(employeeJsonCache.toJson((Employee) body));
+            return;
+        }
+
+        boolean first = true;
+        out.write('[');
+
+        for (Object employee : (Iterable<?>) body) {
+            if (!first)
+                out.write(',');
+
+            out.write(employeeJsonCache.toJson((Employee) employee));
+            first = false;
+        }
+
+        out.write(']');
+    }
+
+    /**
+     * Not used for requests, as {@code canRead} is false the Jackson converter reads them.
+     * Reads with the application's ObjectMapper for callers that use the converter directly.
+     */
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return read(objectMapper.constructType(GenericTypeResolver.resolveType(type, contextClass)), inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(objectMapper.constructType(clazz), inputMessage);
+    }
+
+    private Object read(JavaType type, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return objectMapper.readValue(inputMessage.getBody(), type);
+        } catch (JsonProcessingException ex) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + ex.getOriginalMessage(), ex, inputMessage);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package be.bewire.slp.json;
+
+import be.bewire.slp.domain.Employee;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.StdDateFormat;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Hand-written serializer for {@link be.bewire.slp.domain.Employee}, the hottest type on the wire.
+ * Field names are encoded once, and dates are written straight into a reused buffer instead of through
+ * {@link java.text.DateFormat}. The output is identical to the default Jackson serialization.
+ */
+@JsonComponent
+public class EmployeeJsonSerializer extends StdSerializer<Employee> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString FIRST_NAME = new SerializedString("firstName");
+    private static final SerializedString LAST_NAME = new SerializedString("lastName");
+    private static final SerializedString COMPANY = new SerializedString("company");
+    private static final SerializedString CREATED = new SerializedString("created");
+    private static final SerializedString UPDATED = new SerializedString("updated");
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    /**
+     * Length of {@code yyyy-MM-ddTHH:mm:ss.SSS+0000}.
+     */
+    private static final int DATE_LENGTH = 28;
+
+    private static final ThreadLocal<char[]> DATE_BUFFER = ThreadLocal.withInitial(() -> new char[DATE_LENGTH]);
+
+    public EmployeeJsonSerializer() {
+        super(Employee.class);
+    }
+
+    @Override
+    public void serialize(Employee employee, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(employee);
+
+        gen.writeFieldName(ID);
+        gen.writeNumber(employee.getId());
+
+        gen.writeFieldName(FIRST_NAME);
+        gen.writeString(employee.getFirstName());
+
+        gen.writeFieldName(LAST_NAME);
+        gen.writeString(employee.getLastName());
+
+        gen.writeFieldName(COMPANY);
+        gen.writeString(employee.getCompany());
+
+        gen.writeFieldName(CREATED);
+        writeDate(employee.getCreated(), gen, provider);
+
+        gen.writeFieldName(UPDATED);
+        writeDate(employee.getUpdated(), gen, provider);
+
+        gen.writeEndObject();
+    }
+
+    private static void writeDate(Date date, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (date == null) {
+            gen.writeNull();
+        } else if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            gen.writeNumber(date.getTime());
+        } else if (isDefaultDateFormat(provider) && date.getTime() >= 0 && date.getTime() < 253402300800000L) {
+            char[] buffer = DATE_BUFFER.get();
+            formatIso8601(date.getTime(), buffer);
+            gen.writeString(buffer, 0, DATE_LENGTH);
+        } else {
+            // Custom date format, time zone or a year outside 1970-9999
+            provider.defaultSerializeDateValue(date, gen);
+        }
+    }
+
+    private static boolean isDefaultDateFormat(SerializerProvider provider) {
+        return provider.getConfig().getDateFormat() instanceof StdDateFormat
+                && UTC.hasSameRules(provider.getTimeZone());
+    }
+
+    /**
+     * Format epoch millis as {@code yyyy-MM-dd'T'HH:mm:ss.SSS+0000} in UTC, the Jackson default.
+     */
+    static void formatIso8601(long epochMillis, char[] buffer) {
+        long days = epochMillis / MILLIS_PER_DAY;
+        int millisOfDay = (int) (epochMillis % MILLIS_PER_DAY);
+
+        // Civil date from days since epoch (Howard Hinnant's days_from_civil inverse)
+        long z = days + 719468;
+        long era = z / 146097;
+        int dayOfEra = (int) (z - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+
+        int hour = millisOfDay / 3_600_000;
+        int minute = millisOfDay / 60_000 % 60;
+        int second = millisOfDay / 1000 % 60;
+        int millis = millisOfDay % 1000;
+
+        writeDigits(buffer, 0, year, 4);
+        buffer[4] = '-';
+        writeDigits(buffer, 5, month, 2);
+        buffer[7] = '-';
+        writeDigits(buffer, 8, day, 2);
+        buffer[10] = 'T';
+        writeDigits(buffer, 11, hour, 2);
+        buffer[13] = ':';
+        writeDigits(buffer, 14, minute, 2);
+        buffer[16] = ':';
+        writeDigits(buffer, 17, second, 2);
+        buffer[19] = '.';
+        writeDigits(buffer, 20, millis, 3);
+        buffer[23] = '+';
+        buffer[24] = '0';
+        buffer[25] = '0';
+        buffer[26] = '0';
+        buffer[27] = '0';
+    }
+
+    private static void writeDigits(char[] buffer, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
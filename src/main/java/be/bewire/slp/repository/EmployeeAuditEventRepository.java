@@ -0,0 +1,34 @@
+package be.bewire.slp.repository;
+
+import be.bewire.slp.domain.EmployeeAuditEvent;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * Interface for generic CRUD operations on a repository for a {@link be.bewire.slp.domain.EmployeeAuditEvent}.
+ * Only used to write the outbox, it is drained with plain JDBC batches.
+ */
+public interface EmployeeAuditEventRepository extends CrudRepository<EmployeeAuditEvent, Long> {
+
+    /**
+     * Record the same change for many employees with one INSERT ... SELECT, in the transaction of a bulk UPDATE.
+     * Only the rows that UPDATE wrote are recorded: they are in the new company with its update timestamp.
+     *
+     * @param ids       ids of the employees
+     * @param companyId company of the employees after the update
+     * @param changes   serialized changes
+     * @param changed   timestamp of the update
+     * @return amount of recorded changes
+     */
+    @Modifying
+    @Query(value = "INSERT INTO employee_audit_outbox (employee_id, action, changes, changed) " +
+            "SELECT id, 'UPDATED', :changes, :changed FROM employee " +
+            "WHERE id IN :ids AND company_id = :companyId AND updated = :changed", nativeQuery = true)
+    int recordUpdated(@Param("ids") Collection<Integer> ids, @Param("companyId") int companyId,
+                      @Param("changes") String changes, @Param("changed") Date changed);
+}
@@ -1,7 +1,16 @@
 package be.bewire.slp.repository;
 
 import be.bewire.slp.domain.Employee;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 
 /**
  * Interface for generic CRUD operations on a repository for a {@link be.bewire.slp.domain.Employee}.
@@ -9,4 +18,66 @@ import org.springframework.data.repository.CrudRepository;
  * @author Jens Beernaert
  */
 public interface EmployeeRepository extends CrudRepository<Employee, Integer> {
+
+    /**
+     * Keyset page of the ids of the employees of one company, without loading the entities.
+     *
+     * @param company  company of the employees
+     * @param afterId  only ids after this id
+     * @param pageable size of the page
+     * @return ids in ascending order
+     */
+    @Query("select e.id from Employee e where e.company = :company and e.id > :afterId order by e.id")
+    List<Integer> findIdsByCompany(@Param("company") String company, @Param("afterId") int afterId, Pageable pageable);
+
+    /**
+     * The employees of one company.
+     *
+     * @param company company of the employees
+     * @return employees in ascending id order
+     */
+    @Query("select e from Employee e where e.company = :company order by e.id")
+    List<Employee> findAllByCompany(@Param("company") String company);
+
+    /**
+     * Keyset page of the employees, for reading all of them without an ever slower OFFSET.
+     *
+     * @param afterId  only employees with an id after this id
+     * @param pageable size of the page
+     * @return employees in ascending id order
+     */
+    @Query("select e from Employee e where e.id > :afterId order by e.id")
+    List<Employee> findPage(@Param("afterId") int afterId, Pageable pageable);
+
+    /**
+     * Move employees to another company with one UPDATE statement.
+     * Rows that left the source company in the meantime are not touched.
+     *
+     * @param ids     ids of the employees
+     * @param from    current company of the employees
+     * @param to      new company of the employees
+     * @param updated timestamp of the update
+     * @return amount of updated rows
+     */
+    @Transactional
+    @Modifying
+    @Query("update Employee e set e.company = :to, e.updated = :updated where e.id in :ids and e.company = :from")
+    int reassignCompany(@Param("ids") Collection<Integer> ids, @Param("from") String from,
+                        @Param("to") String to, @Param("updated") Date updated);
+
+    /**
+     * Amount of employees per company.
+     *
+     * @return rows of company name and amount
+     */
+    @Query("select e.company, count(e) from Employee e group by e.company")
+    List<Object[]> countPerCompany();
+
+    /**
+     * Amount of employees per day of creation.
+     *
+     * @return rows of day ({@link java.sql.Date}) and amount
+     */
+    @Query("select cast(e.created as date), count(e) from Employee e group by cast(e.created as date)")
+    List<Object[]> countPerCreatedDay();
 }
@@ -0,0 +1,72 @@
+package be.bewire.slp.repository;
+
+import be.bewire.slp.domain.IdempotencyRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Interface for generic CRUD operations on a repository for a {@link be.bewire.slp.domain.IdempotencyRecord}.
+ */
+public interface IdempotencyRecordRepository extends CrudRepository<IdempotencyRecord, String> {
+
+    /**
+     * Store the response of the original request.
+     *
+     * @param key      idempotency key
+     * @param response serialized response
+     * @return amount of updated rows
+     */
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyRecord r set r.response = :response where r.key = :key")
+    int complete(@Param("key") String key, @Param("response") String response);
+
+    /**
+     * Release a claimed key, if it still exists.
+     *
+     * @param key idempotency key
+     * @return amount of removed records
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.key = :key")
+    int deleteClaim(@Param("key") String key);
+
+    /**
+     * Creation timestamps of the finished records, oldest first.
+     *
+     * @param pageable amount of timestamps to return
+     * @return creation timestamps
+     */
+    @Query("select r.created from IdempotencyRecord r where r.response is not null order by r.created")
+    List<Date> findCompletedCreated(Pageable pageable);
+
+    /**
+     * Remove the finished records created up to and including a timestamp.
+     *
+     * @param until last creation timestamp to remove
+     * @return amount of removed records
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.response is not null and r.created <= :until")
+    int deleteCompletedCreatedUntil(@Param("until") Date until);
+
+    /**
+     * Remove expired records.
+     *
+     * @param before expiry timestamp
+     * @return amount of removed records
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.created < :before")
+    int deleteCreatedBefore(@Param("before") Date before);
+}
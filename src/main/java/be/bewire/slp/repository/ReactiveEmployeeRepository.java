@@ -0,0 +1,120 @@
+package be.bewire.slp.repository;
+
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.jdbc.CompanyDictionary;
+import be.bewire.slp.sharding.ReactiveShards;
+import be.bewire.slp.sharding.ShardRouter;
+import io.r2dbc.spi.Row;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.Date;
+
+/**
+ * Non-blocking reads of {@link be.bewire.slp.domain.Employee} on the table managed by JPA.
+ */
+@Repository
+public class ReactiveEmployeeRepository {
+
+    private static final String SELECT_EMPLOYEE = "SELECT id, first_name, last_name, company_id, created, updated FROM employee";
+
+    private final ReactiveShards reactiveShards;
+
+    private final ShardRouter shardRouter;
+
+    /**
+     * Companies live on the primary shard, so they are resolved in memory instead of joined.
+     * A company missing from memory is loaded with blocking JDBC, off the event loop.
+     */
+    private final CompanyDictionary companyDictionary;
+
+    public ReactiveEmployeeRepository(ReactiveShards reactiveShards, ShardRouter shardRouter, CompanyDictionary companyDictionary) {
+        this.reactiveShards = reactiveShards;
+        this.shardRouter = shardRouter;
+        this.companyDictionary = companyDictionary;
+    }
+
+    /**
+     * Stream all employees, rows are fetched as the subscriber requests them.
+     * All shards are queried at once, their rows (each ordered by id) are merged by id.
+     *
+     * @return all employees ordered by id
+     */
+    @SuppressWarnings("unchecked")
+    public Flux<Employee> findAll() {
+        return Flux.mergeOrdered(Comparator.comparingInt(Employee::getId), reactiveShards.all().stream()
+                .map(databaseClient -> databaseClient.execute(SELECT_EMPLOYEE + " ORDER BY id")
+                        .map((row, metadata) -> new EmployeeRow(row))
+                        .all()
+                        .concatMap(this::withCompany))
+                .toArray(Flux[]::new));
+    }
+
+    /**
+     * Find one employee by its id.
+     *
+     * @param id employee id
+     * @return the employee, or empty
+     */
+    public Mono<Employee> findById(int id) {
+        if (!shardRouter.hasShardOf(id))
+            return Mono.empty();
+
+        return reactiveShards.get(shardRouter.shardOf(id)).execute(SELECT_EMPLOYEE + " WHERE id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> new EmployeeRow(row))
+                .one()
+                .flatMap(this::withCompany);
+    }
+
+    private Mono<Employee> withCompany(EmployeeRow row) {
+        if (row.companyId == null)
+            return Mono.just(row.employee);
+
+        String company = companyDictionary.cachedNameOf(row.companyId);
+
+        if (company != null) {
+            row.employee.setCompany(company);
+            return Mono.just(row.employee);
+        }
+
+        return Mono.fromCallable(() -> {
+            row.employee.setCompany(companyDictionary.nameOf(row.companyId));
+            return row.employee;
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Hibernate writes the timestamps in the default time zone of the JVM.
+     */
+    private static Date toDate(LocalDateTime timestamp) {
+        return timestamp == null ? null : Date.from(timestamp.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Employee read from a row, its company still to be resolved. Rows cannot be used after the mapping function.
+     */
+    private static class EmployeeRow {
+
+        private final Employee employee;
+
+        private final Integer companyId;
+
+        private EmployeeRow(Row row) {
+            this.employee = new Employee(
+                    row.get("id", Integer.class),
+                    row.get("first_name", String.class),
+                    row.get("last_name", String.class),
+                    null);
+            this.companyId = row.get("company_id", Integer.class);
+
+            employee.setCreated(toDate(row.get("created", LocalDateTime.class)));
+            employee.setUpdated(toDate(row.get("updated", LocalDateTime.class)));
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.config.IdempotencyProperties;
+import be.bewire.slp.domain.IdempotencyRecord;
+import be.bewire.slp.exceptions.ConflictException;
+import be.bewire.slp.repository.IdempotencyRecordRepository;
+import be.bewire.slp.util.RequestCoalescer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Implementation of {@link be.bewire.slp.service.IdempotencyStore} backed by the {@link be.bewire.slp.domain.IdempotencyRecord} table,
+ * so retries that land on another instance are absorbed as well.
+ * A request claims its key by inserting the record, duplicates in the same instance join the in-flight call,
+ * duplicates on other instances poll the record until the response is stored.
+ * The table is bounded like the in-memory store: keys expire after the ttl, and when it holds more than the maximum
+ * amount of keys the oldest finished keys are removed first.
+ */
+@Service
+@ConditionalOnProperty(prefix = "slp.idempotency", name = "store", havingValue = "database")
+public class DatabaseIdempotencyStore implements IdempotencyStore {
+
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final IdempotencyProperties properties;
+
+    /**
+     * Duplicates within this instance wait on the in-flight call instead of polling the table.
+     * They share the serialized response, every caller reads its own result from it.
+     */
+    private final RequestCoalescer<String, String> inFlight = new RequestCoalescer<>(true, response -> response);
+
+    public DatabaseIdempotencyStore(IdempotencyRecordRepository idempotencyRecordRepository,
+                                    ObjectMapper objectMapper,
+                                    IdempotencyProperties properties) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    /**
+     * Run the action once per key.
+     *
+     * @param key         idempotency key supplied by the client
+     * @param fingerprint fingerprint of the request, a reused key with another request is refused
+     * @param type        type of the result
+     * @param action      request to execute
+     * @return result of the first request with this key
+     */
+    @Override
+    public <T> T execute(String key, String fingerprint, Class<T> type, Supplier<T> action) {
+        return deserialize(inFlight.execute(key + '\n' + fingerprint, () -> claimOrAwait(key, fingerprint, action)), type);
+    }
+
+    /**
+     * Remove expired keys, and the oldest finished keys beyond the maximum amount of keys.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void purgeExpired() {
+        idempotencyRecordRepository.deleteCreatedBefore(new Date(System.currentTimeMillis() - properties.getTtl().toMillis()));
+
+        long excess = idempotencyRecordRepository.count() - properties.getMaxEntries();
+
+        if (excess <= 0)
+            return;
+
+        // Keys still in progress are never evicted, their duplicates are waiting for them
+        List<Date> oldest = idempotencyRecordRepository.findCompletedCreated(PageRequest.of(0, (int) Math.min(excess, Integer.MAX_VALUE)));
+
+        if (!oldest.isEmpty())
+            idempotencyRecordRepository.deleteCompletedCreatedUntil(oldest.get(oldest.size() - 1));
+    }
+
+    private <T> String claimOrAwait(String key, String fingerprint, Supplier<T> action) {
+        try {
+            idempotencyRecordRepository.save(new IdempotencyRecord(key, fingerprint, new Date()));
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance claimed the key first
+            return awaitStored(key, fingerprint, action);
+        }
+
+        // Failures are not replayed, the claim is released so a retry with the same key runs again.
+        // That includes failing to store the response: a claim without response would answer 409 until it expires.
+        try {
+            String response = serialize(action.get());
+
+            if (idempotencyRecordRepository.complete(key, response) == 0)
+                throw new IllegalStateException("The claim of the Idempotency-Key was removed before its response was stored.");
+
+            return response;
+        } catch (RuntimeException | Error ex) {
+            release(key, ex);
+            throw ex;
+        }
+    }
+
+    private void release(String key, Throwable cause) {
+        try {
+            idempotencyRecordRepository.deleteClaim(key);
+        } catch (RuntimeException ex) {
+            cause.addSuppressed(ex);
+        }
+    }
+
+    private <T> String awaitStored(String key, String fingerprint, Supplier<T> action) {
+        long deadline = System.currentTimeMillis() + properties.getWaitTimeout().toMillis();
+
+        while (true) {
+            Optional<IdempotencyRecord> record = idempotencyRecordRepository.findById(key);
+
+            // The original failed or expired, this request gets to run
+            if (!record.isPresent())
+                return claimOrAwait(key, fingerprint, action);
+
+            if (record.get().getCreated().getTime() + properties.getTtl().toMillis() < System.currentTimeMillis()) {
+                idempotencyRecordRepository.delete(record.get());
+                return claimOrAwait(key, fingerprint, action);
+            }
+
+            if (!record.get().getFingerprint().equals(fingerprint))
+                throw new ConflictException("Idempotency-Key was already used for a different request.");
+
+            if (record.get().getResponse() != null)
+                return record.get().getResponse();
+
+            if (System.currentTimeMillis() > deadline)
+                throw new ConflictException("A request with this Idempotency-Key is still in progress.");
+
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new ConflictException("Interrupted while waiting for the request with this Idempotency-Key.", ex);
+            }
+        }
+    }
+
+    private String serialize(Object result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot store idempotent response.", ex);
+        }
+    }
+
+    private <T> T deserialize(String response, Class<T> type) {
+        try {
+            return objectMapper.readValue(response, type);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot replay idempotent response.", ex);
+        }
+    }
+}
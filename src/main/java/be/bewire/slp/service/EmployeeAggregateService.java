@@ -0,0 +1,25 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.domain.EmployeeAggregates;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Interface for the headcount aggregates of {@link be.bewire.slp.domain.Employee}.
+ * Writers report their committed changes, so the aggregates are served without querying the employees.
+ */
+public interface EmployeeAggregateService {
+    EmployeeAggregates getAggregates();
+
+    void created(Employee employee);
+
+    void imported(Map<String, Long> companyCounts, Date created);
+
+    void companyChanged(String from, String to, long count);
+
+    void deleted(Employee employee);
+
+    void reconcile();
+}
@@ -0,0 +1,207 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.domain.EmployeeAggregates;
+import be.bewire.slp.repository.EmployeeRepository;
+import be.bewire.slp.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementation of {@link be.bewire.slp.service.EmployeeAggregateService}
+ * The aggregates are in-memory counters: striped {@link java.util.concurrent.atomic.LongAdder}s, so concurrent writers
+ * never contend on one value. They are seeded with GROUP BY queries once the application is ready, and reconciled
+ * with the same queries every five minutes to correct drift, eg. of writes that do not report their changes.
+ * Reconciliation adds the difference to the counters instead of replacing them, so changes reported in the
+ * meantime are not lost (a change that races with it is corrected on the next round).
+ */
+@Service
+public class EmployeeAggregateServiceImpl implements EmployeeAggregateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeAggregateServiceImpl.class);
+
+    private static final long RECONCILE_INTERVAL_MILLIS = 5 * 60 * 1000;
+
+    private final EmployeeRepository employeeRepository;
+
+    private final ShardRouter shardRouter;
+
+    private final LongAdder total = new LongAdder();
+
+    private final ConcurrentMap<String, LongAdder> companies = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<LocalDate, LongAdder> createdPerDay = new ConcurrentHashMap<>();
+
+    public EmployeeAggregateServiceImpl(EmployeeRepository employeeRepository, ShardRouter shardRouter) {
+        this.employeeRepository = employeeRepository;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Current headcount figures.
+     *
+     * @return total, per company and created per day, without empty companies and days
+     */
+    @Override
+    public EmployeeAggregates getAggregates() {
+        Map<String, Long> companyCounts = new TreeMap<>();
+        companies.forEach((company, count) -> {
+            if (count.sum() > 0)
+                companyCounts.put(company, count.sum());
+        });
+
+        Map<String, Long> dayCounts = new TreeMap<>();
+        createdPerDay.forEach((day, count) -> {
+            if (count.sum() > 0)
+                dayCounts.put(day.toString(), count.sum());
+        });
+
+        return new EmployeeAggregates(total.sum(), companyCounts, dayCounts);
+    }
+
+    /**
+     * Count a committed new employee.
+     *
+     * @param employee the created employee
+     */
+    @Override
+    public void created(Employee employee) {
+        total.increment();
+        counter(companies, employee.getCompany()).increment();
+
+        if (employee.getCreated() != null)
+            counter(createdPerDay, dayOf(employee.getCreated())).increment();
+    }
+
+    /**
+     * Count committed new employees that were created together, eg. by an import.
+     *
+     * @param companyCounts amount of new employees per company
+     * @param created       creation timestamp of all of them
+     */
+    @Override
+    public void imported(Map<String, Long> companyCounts, Date created) {
+        long count = 0;
+
+        for (Map.Entry<String, Long> company : companyCounts.entrySet()) {
+            counter(companies, company.getKey()).add(company.getValue());
+            count += company.getValue();
+        }
+
+        total.add(count);
+        counter(createdPerDay, dayOf(created)).add(count);
+    }
+
+    /**
+     * Move committed employees from one company to another.
+     *
+     * @param from  previous company
+     * @param to    new company
+     * @param count amount of moved employees
+     */
+    @Override
+    public void companyChanged(String from, String to, long count) {
+        if (count == 0 || from.equals(to))
+            return;
+
+        counter(companies, from).add(-count);
+        counter(companies, to).add(count);
+    }
+
+    /**
+     * Uncount a committed deleted employee.
+     *
+     * @param employee the deleted employee
+     */
+    @Override
+    public void deleted(Employee employee) {
+        total.decrement();
+        counter(companies, employee.getCompany()).decrement();
+
+        if (employee.getCreated() != null)
+            counter(createdPerDay, dayOf(employee.getCreated())).decrement();
+    }
+
+    /**
+     * Seed the counters, the schema exists once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    /**
+     * Correct the counters with the counts of the database.
+     */
+    @Override
+    @Scheduled(fixedDelay = RECONCILE_INTERVAL_MILLIS, initialDelay = RECONCILE_INTERVAL_MILLIS)
+    public void reconcile() {
+        Map<String, Long> companyCounts = new HashMap<>();
+        for (List<Object[]> shard : shardRouter.onAllShards(shard -> employeeRepository.countPerCompany()))
+            for (Object[] row : shard)
+                if (row[0] != null)
+                    companyCounts.merge((String) row[0], ((Number) row[1]).longValue(), Long::sum);
+
+        Map<LocalDate, Long> dayCounts = new HashMap<>();
+        for (List<Object[]> shard : shardRouter.onAllShards(shard -> employeeRepository.countPerCreatedDay()))
+            for (Object[] row : shard)
+                if (row[0] != null)
+                    dayCounts.merge(((java.sql.Date) row[0]).toLocalDate(), ((Number) row[1]).longValue(), Long::sum);
+
+        long drift = correct(companies, companyCounts) + correct(createdPerDay, dayCounts);
+
+        long totalDrift = companyCounts.values().stream().mapToLong(Long::longValue).sum() - total.sum();
+        total.add(totalDrift);
+        drift += Math.abs(totalDrift);
+
+        if (drift != 0)
+            logger.info("Corrected employee aggregates by {}.", drift);
+    }
+
+    private static <K> long correct(ConcurrentMap<K, LongAdder> counters, Map<K, Long> actual) {
+        Set<K> keys = new HashSet<>(counters.keySet());
+        keys.addAll(actual.keySet());
+
+        long drift = 0;
+
+        for (K key : keys) {
+            LongAdder counter = counter(counters, key);
+            long difference = actual.getOrDefault(key, 0L) - counter.sum();
+
+            counter.add(difference);
+            drift += Math.abs(difference);
+        }
+
+        return drift;
+    }
+
+    private static <K> LongAdder counter(ConcurrentMap<K, LongAdder> counters, K key) {
+        LongAdder counter = counters.get(key);
+
+        return counter != null ? counter : counters.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    /**
+     * Day of a timestamp as the database sees it: timestamps are stored in the time zone of the server.
+     */
+    private static LocalDate dayOf(Date timestamp) {
+        return timestamp.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+}
@@ -0,0 +1,28 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.domain.EmployeeHistoryEntry;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Interface for the change history of {@link be.bewire.slp.domain.Employee}.
+ * Writers record their changes in the transaction of the change, the history is written in the background.
+ */
+public interface EmployeeAuditService {
+    List<EmployeeHistoryEntry> findHistory(int employeeId);
+
+    void created(Employee employee);
+
+    void updated(Employee before, Employee after);
+
+    void deleted(Employee employee);
+
+    void companyReassigned(Collection<Integer> ids, String from, String to, Date changed);
+
+    String createdChanges(Employee employee);
+
+    int drain();
+}
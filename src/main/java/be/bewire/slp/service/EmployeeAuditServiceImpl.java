@@ -0,0 +1,343 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.config.AuditProperties;
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.domain.EmployeeAuditEvent;
+import be.bewire.slp.domain.EmployeeAuditEvent.Action;
+import be.bewire.slp.domain.EmployeeHistoryEntry;
+import be.bewire.slp.domain.EmployeeHistoryEntry.FieldChange;
+import be.bewire.slp.jdbc.CompanyDictionary;
+import be.bewire.slp.repository.EmployeeAuditEventRepository;
+import be.bewire.slp.sharding.ShardContext;
+import be.bewire.slp.sharding.ShardRouter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementation of {@link be.bewire.slp.service.EmployeeAuditService}
+ * A change costs its transaction one INSERT into the outbox table, set-based writes (bulk reassignment, csv import)
+ * record all their rows with one INSERT ... SELECT next to their own statement. Every second the outbox of every shard
+ * is drained in batches: one SELECT, one batched INSERT into the history table and one batched DELETE per batch, in one
+ * transaction so a change is never lost nor copied twice. On PostgreSQL the batch is locked with SKIP LOCKED, so
+ * several instances drain side by side, and the history table is partitioned by month of the change.
+ * The history table is append-only: it is created here, outside the JPA schema, and only ever inserted into.
+ */
+@Service
+public class EmployeeAuditServiceImpl implements EmployeeAuditService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeAuditServiceImpl.class);
+
+    private static final String HISTORY_TABLE = "employee_history";
+
+    private static final String OUTBOX_TABLE = "employee_audit_outbox";
+
+    private static final String HISTORY_COLUMNS = "id BIGINT NOT NULL, employee_id INT NOT NULL, action VARCHAR(16) NOT NULL, " +
+            "changes TEXT, changed TIMESTAMP NOT NULL, PRIMARY KEY (id, changed)";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final TypeReference<Map<String, FieldChange>> CHANGES_TYPE = new TypeReference<Map<String, FieldChange>>() {
+    };
+
+    private final EmployeeAuditEventRepository employeeAuditEventRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ShardRouter shardRouter;
+
+    private final ObjectMapper objectMapper;
+
+    private final AuditProperties properties;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final CompanyDictionary companyDictionary;
+
+    /**
+     * Monthly partitions that exist, per shard, eg. {@code 0/2020_02}.
+     */
+    private final Set<String> partitions = ConcurrentHashMap.newKeySet();
+
+    public EmployeeAuditServiceImpl(EmployeeAuditEventRepository employeeAuditEventRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    ShardRouter shardRouter,
+                                    ObjectMapper objectMapper,
+                                    AuditProperties properties,
+                                    PlatformTransactionManager transactionManager,
+                                    CompanyDictionary companyDictionary) {
+        this.employeeAuditEventRepository = employeeAuditEventRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.companyDictionary = companyDictionary;
+    }
+
+    /**
+     * History of one employee, including the changes still waiting in the outbox.
+     *
+     * @param employeeId employee id
+     * @return the changes, oldest first
+     */
+    @Override
+    public List<EmployeeHistoryEntry> findHistory(int employeeId) {
+        // One statement, so a change that is moved in the meantime is seen exactly once
+        return ShardContext.call(shardRouter.shardOf(employeeId), () -> jdbcTemplate.query(
+                "SELECT id, action, changes, changed FROM " + HISTORY_TABLE + " WHERE employee_id = ? " +
+                        "UNION ALL SELECT id, action, changes, changed FROM " + OUTBOX_TABLE + " WHERE employee_id = ? " +
+                        "ORDER BY changed, id",
+                (row, number) -> new EmployeeHistoryEntry(row.getLong(1), Action.valueOf(row.getString(2)),
+                        deserialize(row.getString(3)), row.getTimestamp(4)),
+                employeeId, employeeId));
+    }
+
+    /**
+     * Record a new employee, in the transaction that creates it.
+     *
+     * @param employee the created employee, with its id
+     */
+    @Override
+    public void created(Employee employee) {
+        record(employee.getId(), Action.CREATED, diff(null, employee));
+    }
+
+    /**
+     * Record the changed fields of an employee, in the transaction that updates it.
+     * Call it before the update is saved, saving can overwrite the old instance.
+     *
+     * @param before the employee as it is stored
+     * @param after  the employee as it will be stored
+     */
+    @Override
+    public void updated(Employee before, Employee after) {
+        Map<String, FieldChange> changes = diff(before, after);
+
+        if (!changes.isEmpty())
+            record(before.getId(), Action.UPDATED, changes);
+    }
+
+    /**
+     * Record a deleted employee, in the transaction that deletes it.
+     *
+     * @param employee the deleted employee
+     */
+    @Override
+    public void deleted(Employee employee) {
+        record(employee.getId(), Action.DELETED, diff(employee, null));
+    }
+
+    /**
+     * Record a company reassignment set-based, in the transaction of the bulk UPDATE and after it:
+     * one INSERT ... SELECT of the rows that UPDATE moved, recognised by their new company and update timestamp.
+     *
+     * @param ids     ids the bulk UPDATE was given
+     * @param from    previous company
+     * @param to      new company
+     * @param changed update timestamp the bulk UPDATE wrote
+     */
+    @Override
+    public void companyReassigned(Collection<Integer> ids, String from, String to, Date changed) {
+        if (!properties.isEnabled())
+            return;
+
+        Map<String, FieldChange> changes = new LinkedHashMap<>();
+        diff(changes, "company", from, to);
+
+        employeeAuditEventRepository.recordUpdated(ids, companyDictionary.idOf(to), serialize(changes), changed);
+    }
+
+    /**
+     * Changes of a new employee as stored in the outbox, for writers that insert the outbox rows themselves.
+     *
+     * @param employee the new employee
+     * @return serialized changes, or {@code null} when recording is turned off
+     */
+    @Override
+    public String createdChanges(Employee employee) {
+        if (!properties.isEnabled())
+            return null;
+
+        return serialize(diff(null, employee));
+    }
+
+    /**
+     * Create the history table of every shard, the outbox table exists once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createHistoryTables() {
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            ShardContext.run(shard, () -> {
+                if (isPostgres())
+                    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + HISTORY_TABLE + " (" + HISTORY_COLUMNS + ") PARTITION BY RANGE (changed)");
+                else
+                    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + HISTORY_TABLE + " (" + HISTORY_COLUMNS + ")");
+
+                jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + HISTORY_TABLE + "_employee_idx ON " + HISTORY_TABLE + " (employee_id, id)");
+            });
+        }
+    }
+
+    /**
+     * Move the outbox of every shard to the history tables.
+     *
+     * @return amount of moved changes
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${slp.audit.drain-interval-millis:1000}", initialDelayString = "${slp.audit.drain-interval-millis:1000}")
+    public int drain() {
+        int moved = 0;
+
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            int number = shard;
+
+            try {
+                moved += ShardContext.call(shard, () -> drainShard(number));
+            } catch (RuntimeException ex) {
+                // The batch stays in the outbox for the next round
+                logger.warn("Could not drain the employee audit outbox of shard {}.", number, ex);
+            }
+        }
+
+        return moved;
+    }
+
+    private int drainShard(int shard) {
+        boolean postgres = isPostgres();
+        int moved = 0;
+
+        while (true) {
+            Integer batch;
+
+            try {
+                batch = transactionTemplate.execute(status -> moveBatch(shard, postgres));
+            } catch (RuntimeException ex) {
+                // Partitions created in the rolled back transaction are gone, they are checked again next round
+                if (postgres)
+                    partitions.removeIf(partition -> partition.startsWith(shard + "/"));
+
+                throw ex;
+            }
+
+            moved += batch;
+
+            if (batch < properties.getBatchSize())
+                return moved;
+        }
+    }
+
+    private int moveBatch(int shard, boolean postgres) {
+        List<Object[]> rows = jdbcTemplate.query(
+                "SELECT id, employee_id, action, changes, changed FROM " + OUTBOX_TABLE + " ORDER BY id LIMIT ?" +
+                        (postgres ? " FOR UPDATE SKIP LOCKED" : ""),
+                (row, number) -> new Object[]{row.getLong(1), row.getInt(2), row.getString(3), row.getString(4), row.getTimestamp(5)},
+                properties.getBatchSize());
+
+        if (rows.isEmpty())
+            return 0;
+
+        if (postgres)
+            createPartitions(shard, rows);
+
+        jdbcTemplate.batchUpdate("INSERT INTO " + HISTORY_TABLE + " (id, employee_id, action, changes, changed) VALUES (?, ?, ?, ?, ?)", rows);
+
+        List<Object[]> ids = new ArrayList<>(rows.size());
+        for (Object[] row : rows)
+            ids.add(new Object[]{row[0]});
+
+        jdbcTemplate.batchUpdate("DELETE FROM " + OUTBOX_TABLE + " WHERE id = ?", ids);
+
+        return rows.size();
+    }
+
+    /**
+     * Create the monthly partitions of the batch that do not exist yet, in the server time zone like the timestamps.
+     */
+    private void createPartitions(int shard, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            LocalDate month = ((Timestamp) row[4]).toLocalDateTime().toLocalDate().withDayOfMonth(1);
+            String partition = HISTORY_TABLE + "_" + month.format(PARTITION_SUFFIX);
+
+            if (partitions.contains(shard + "/" + partition))
+                continue;
+
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + HISTORY_TABLE +
+                    " FOR VALUES FROM ('" + month + "') TO ('" + month.plusMonths(1) + "')");
+            partitions.add(shard + "/" + partition);
+        }
+    }
+
+    private boolean isPostgres() {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> connection.isWrapperFor(PGConnection.class));
+    }
+
+    private void record(int employeeId, Action action, Map<String, FieldChange> changes) {
+        if (!properties.isEnabled())
+            return;
+
+        employeeAuditEventRepository.save(new EmployeeAuditEvent(employeeId, action, serialize(changes), new Date()));
+    }
+
+    /**
+     * Old and new value of the changed fields, a missing employee has no values.
+     */
+    private static Map<String, FieldChange> diff(Employee before, Employee after) {
+        Map<String, FieldChange> changes = new LinkedHashMap<>();
+
+        diff(changes, "firstName", before == null ? null : before.getFirstName(), after == null ? null : after.getFirstName());
+        diff(changes, "lastName", before == null ? null : before.getLastName(), after == null ? null : after.getLastName());
+        diff(changes, "company", before == null ? null : before.getCompany(), after == null ? null : after.getCompany());
+
+        return changes;
+    }
+
+    private static void diff(Map<String, FieldChange> changes, String field, String from, String to) {
+        if (!Objects.equals(from, to))
+            changes.put(field, new FieldChange(from, to));
+    }
+
+    private String serialize(Map<String, FieldChange> changes) {
+        try {
+            return objectMapper.writeValueAsString(changes);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot record employee changes.", ex);
+        }
+    }
+
+    private Map<String, FieldChange> deserialize(String changes) {
+        if (changes == null)
+            return Collections.emptyMap();
+
+        try {
+            return objectMapper.readValue(changes, CHANGES_TYPE);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot read employee changes.", ex);
+        }
+    }
+}
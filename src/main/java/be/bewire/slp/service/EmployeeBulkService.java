@@ -0,0 +1,12 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.domain.BulkUpdateResult;
+import be.bewire.slp.domain.CompanyReassignment;
+import be.bewire.slp.exceptions.MalformedBodyException;
+
+/**
+ * Interface for set-based bulk operations on {@link be.bewire.slp.domain.Employee}.
+ */
+public interface EmployeeBulkService {
+    BulkUpdateResult reassignCompany(CompanyReassignment reassignment) throws MalformedBodyException;
+}
@@ -0,0 +1,132 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.config.EmployeeProperties;
+import be.bewire.slp.domain.BulkUpdateResult;
+import be.bewire.slp.domain.CompanyReassignment;
+import be.bewire.slp.exceptions.MalformedBodyException;
+import be.bewire.slp.jdbc.CompanyDictionary;
+import be.bewire.slp.repository.EmployeeRepository;
+import be.bewire.slp.sharding.ShardRouter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Implementation of {@link be.bewire.slp.service.EmployeeBulkService}
+ * Rows are never loaded as entities: every chunk is one keyset SELECT of ids, then one UPDATE and one INSERT ... SELECT
+ * into the audit outbox in one transaction, each chunk committed on its own so row locks are only held for one chunk.
+ * The shards are updated in parallel.
+ */
+@Service
+public class EmployeeBulkServiceImpl implements EmployeeBulkService {
+
+    private final EmployeeRepository employeeRepository;
+
+    private final EmployeeProperties properties;
+
+    private final ShardRouter shardRouter;
+
+    private final CompanyDictionary companyDictionary;
+
+    private final EmployeeAggregateService employeeAggregateService;
+
+    private final EmployeeSnapshotService employeeSnapshotService;
+
+    private final EmployeeAuditService employeeAuditService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public EmployeeBulkServiceImpl(EmployeeRepository employeeRepository,
+                                   EmployeeProperties properties,
+                                   ShardRouter shardRouter,
+                                   CompanyDictionary companyDictionary,
+                                   EmployeeAggregateService employeeAggregateService,
+                                   EmployeeSnapshotService employeeSnapshotService,
+                                   EmployeeAuditService employeeAuditService,
+                                   PlatformTransactionManager transactionManager) {
+        this.employeeRepository = employeeRepository;
+        this.properties = properties;
+        this.shardRouter = shardRouter;
+        this.companyDictionary = companyDictionary;
+        this.employeeAggregateService = employeeAggregateService;
+        this.employeeSnapshotService = employeeSnapshotService;
+        this.employeeAuditService = employeeAuditService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Move every employee of one company to another company.
+     *
+     * @param reassignment source and target company
+     * @return amount of moved employees
+     */
+    @Override
+    public BulkUpdateResult reassignCompany(CompanyReassignment reassignment) {
+        if (reassignment.getFrom().equals(reassignment.getTo()))
+            throw new MalformedBodyException("From and to company cannot be the same.");
+
+        // An unknown company has no employees
+        if (!companyDictionary.find(reassignment.getFrom()).isPresent())
+            return new BulkUpdateResult(0, 0);
+
+        // The update statement bypasses the entity listeners that add companies
+        companyDictionary.idOf(reassignment.getTo());
+
+        long affected = 0;
+        int chunks = 0;
+
+        for (BulkUpdateResult shard : shardRouter.onAllShards(shard -> reassignCompanyOnShard(reassignment))) {
+            affected += shard.getAffected();
+            chunks += shard.getChunks();
+        }
+
+        // Every chunk committed on its own
+        employeeAggregateService.companyChanged(reassignment.getFrom(), reassignment.getTo(), affected);
+
+        // The moved ids are not kept, the snapshot is loaded again instead
+        if (affected > 0)
+            employeeSnapshotService.reload();
+
+        return new BulkUpdateResult(affected, chunks);
+    }
+
+    private BulkUpdateResult reassignCompanyOnShard(CompanyReassignment reassignment) {
+        int chunkSize = properties.getBulk().getChunkSize();
+        PageRequest page = PageRequest.of(0, chunkSize);
+
+        long affected = 0;
+        int chunks = 0;
+        int afterId = 0;
+
+        while (true) {
+            List<Integer> ids = employeeRepository.findIdsByCompany(reassignment.getFrom(), afterId, page);
+
+            if (ids.isEmpty())
+                break;
+
+            affected += transactionTemplate.execute(status -> reassignChunk(ids, reassignment));
+            chunks++;
+
+            if (ids.size() < chunkSize)
+                break;
+
+            afterId = ids.get(ids.size() - 1);
+        }
+
+        return new BulkUpdateResult(affected, chunks);
+    }
+
+    private int reassignChunk(List<Integer> ids, CompanyReassignment reassignment) {
+        Date now = new Date();
+        int moved = employeeRepository.reassignCompany(ids, reassignment.getFrom(), reassignment.getTo(), now);
+
+        if (moved > 0)
+            employeeAuditService.companyReassigned(ids, reassignment.getFrom(), reassignment.getTo(), now);
+
+        return moved;
+    }
+}
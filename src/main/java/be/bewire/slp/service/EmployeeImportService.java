@@ -0,0 +1,13 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.domain.ImportReport;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Interface for bulk imports of {@link be.bewire.slp.domain.Employee}.
+ */
+public interface EmployeeImportService {
+    ImportReport importCsv(Reader csv) throws IOException;
+}
@@ -0,0 +1,423 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.domain.ImportReport;
+import be.bewire.slp.domain.ImportReport.ImportError;
+import be.bewire.slp.jdbc.BatchStagingWriter;
+import be.bewire.slp.jdbc.CompanyDictionary;
+import be.bewire.slp.jdbc.CopyStagingWriter;
+import be.bewire.slp.jdbc.EmployeeIdAllocator;
+import be.bewire.slp.jdbc.StagingWriter;
+import be.bewire.slp.sharding.ShardContext;
+import be.bewire.slp.sharding.ShardRouter;
+import be.bewire.slp.util.CsvReader;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+import org.springframework.stereotype.Service;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of {@link be.bewire.slp.service.EmployeeImportService}
+ * The csv is parsed one line at a time and every line is validated with the {@link be.bewire.slp.domain.Employee}
+ * constraints. Valid lines are streamed into a temporary staging table (COPY on PostgreSQL, JDBC batches elsewhere),
+ * then merged into the employee table with one INSERT ... SELECT, all in one transaction.
+ * The audit outbox gets its CREATED rows from the same staging table with a second INSERT ... SELECT,
+ * the changes of every line are serialized while it is staged.
+ * Every shard gets its own staging table and transaction, the shards are only committed once all of them merged.
+ * New companies are added in a transaction on the primary shard, committed right before the shards.
+ */
+@Service
+public class EmployeeImportServiceImpl implements EmployeeImportService {
+
+    private static final String STAGING_TABLE = "employee_import";
+
+    /**
+     * Column size of the employee table.
+     */
+    private static final int MAX_LENGTH = 255;
+
+    /**
+     * Longest field that is read at all, longer fields refuse the whole import instead of being held in memory.
+     * Fields between the column size and this length are reported on their line.
+     */
+    private static final int MAX_FIELD_LENGTH = 64 * 1024;
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ShardRouter shardRouter;
+
+    private final EmployeeIdAllocator employeeIdAllocator;
+
+    private final CompanyDictionary companyDictionary;
+
+    private final Validator validator;
+
+    private final EmployeeAggregateService employeeAggregateService;
+
+    private final EmployeeSnapshotService employeeSnapshotService;
+
+    private final EmployeeAuditService employeeAuditService;
+
+    public EmployeeImportServiceImpl(ShardRouter shardRouter,
+                                     EmployeeIdAllocator employeeIdAllocator,
+                                     CompanyDictionary companyDictionary,
+                                     Validator validator,
+                                     EmployeeAggregateService employeeAggregateService,
+                                     EmployeeSnapshotService employeeSnapshotService,
+                                     EmployeeAuditService employeeAuditService) {
+        this.shardRouter = shardRouter;
+        this.employeeIdAllocator = employeeIdAllocator;
+        this.companyDictionary = companyDictionary;
+        this.validator = validator;
+        this.employeeAggregateService = employeeAggregateService;
+        this.employeeSnapshotService = employeeSnapshotService;
+        this.employeeAuditService = employeeAuditService;
+    }
+
+    /**
+     * Import employees from csv with the columns firstName, lastName and company.
+     * A header line with these names is skipped, invalid lines are reported and left out.
+     *
+     * @param csv csv input
+     * @return amount of imported employees and the errors per line
+     */
+    @Override
+    public ImportReport importCsv(Reader csv) {
+        Map<Integer, ShardImport> shards = new LinkedHashMap<>();
+        CompanyImport companies = new CompanyImport();
+
+        try (CsvReader reader = new CsvReader(csv, MAX_FIELD_LENGTH)) {
+            ImportReport report = stage(reader, companies, shards);
+
+            for (ShardImport shard : shards.values())
+                report.setImported(report.getImported() + shard.merge());
+
+            // Before the employees, so a committed employee never refers to a missing company
+            companies.commit();
+
+            for (ShardImport shard : shards.values())
+                shard.commit();
+
+            for (ShardImport shard : shards.values())
+                employeeAggregateService.imported(shard.companyCounts, shard.created);
+
+            // The imported ids are not kept, the snapshot is loaded again instead
+            if (report.getImported() > 0)
+                employeeSnapshotService.reload();
+
+            return report;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (SQLException ex) {
+            throw new SQLStateSQLExceptionTranslator().translate("Import employees", null, ex);
+        } finally {
+            for (ShardImport shard : shards.values())
+                shard.close();
+
+            companies.close();
+        }
+    }
+
+    private ImportReport stage(CsvReader reader, CompanyImport companies, Map<Integer, ShardImport> shards)
+            throws IOException, SQLException {
+        ImportReport report = new ImportReport();
+        List<String> fields;
+
+        while ((fields = reader.next()) != null) {
+            if (isBlank(fields) || (reader.getRecordLine() == 1 && isHeader(fields)))
+                continue;
+
+            String error = validate(fields);
+
+            if (error != null) {
+                reject(report, reader.getRecordLine(), error);
+                continue;
+            }
+
+            int number = shardRouter.shardForCompany(fields.get(2));
+            ShardImport shard = shards.get(number);
+
+            if (shard == null) {
+                Connection connection = shardRouter.getDataSource(number).getConnection();
+
+                try {
+                    shard = new ShardImport(number, connection);
+                } catch (SQLException | RuntimeException ex) {
+                    connection.close();
+                    throw ex;
+                }
+
+                shards.put(number, shard);
+            }
+
+            shard.add(fields, companies.idOf(fields.get(2)));
+        }
+
+        for (ShardImport shard : shards.values())
+            shard.finish();
+
+        return report;
+    }
+
+    private String validate(List<String> fields) {
+        if (fields.size() != 3)
+            return String.format("Expected 3 columns (firstName, lastName, company) but got %d.", fields.size());
+
+        for (String field : fields)
+            if (field.length() > MAX_LENGTH)
+                return String.format("Values cannot be longer than %d characters.", MAX_LENGTH);
+
+        Set<ConstraintViolation<Employee>> violations = validator.validate(new Employee(fields.get(0), fields.get(1), fields.get(2)));
+
+        if (violations.isEmpty())
+            return null;
+
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static void reject(ImportReport report, long line, String message) {
+        report.setRejected(report.getRejected() + 1);
+
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS)
+            report.getErrors().add(new ImportError(line, message));
+        else
+            report.setErrorsTruncated(true);
+    }
+
+    private static void createStagingTable(Connection connection, boolean postgres) throws SQLException {
+        String columns = "(seq INT NOT NULL, first_name VARCHAR(255), last_name VARCHAR(255), company_id INT, changes TEXT)";
+
+        try (Statement statement = connection.createStatement()) {
+            if (postgres) {
+                statement.execute("CREATE TEMPORARY TABLE " + STAGING_TABLE + " " + columns + " ON COMMIT DROP");
+            } else {
+                statement.execute("DROP TABLE IF EXISTS " + STAGING_TABLE);
+                statement.execute("CREATE LOCAL TEMPORARY TABLE " + STAGING_TABLE + " " + columns + " TRANSACTIONAL");
+            }
+        }
+    }
+
+    private static void dropStagingTable(Connection connection, boolean postgres) throws SQLException {
+        // PostgreSQL drops it on commit
+        if (postgres)
+            return;
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + STAGING_TABLE);
+        }
+    }
+
+    private static boolean isBlank(List<String> fields) {
+        return fields.size() == 1 && fields.get(0).trim().isEmpty();
+    }
+
+    private static boolean isHeader(List<String> fields) {
+        return fields.size() == 3
+                && fields.get(0).equalsIgnoreCase("firstName")
+                && fields.get(1).equalsIgnoreCase("lastName")
+                && fields.get(2).equalsIgnoreCase("company");
+    }
+
+    /**
+     * Import into one shard, on a connection of its own.
+     */
+    private class ShardImport {
+
+        private final int shard;
+
+        private final Connection connection;
+
+        private final boolean postgres;
+
+        private StagingWriter writer;
+
+        private int staged;
+
+        /**
+         * Amount of staged lines per company, every staged line is merged.
+         */
+        private final Map<String, Long> companyCounts = new HashMap<>();
+
+        /**
+         * Creation timestamp of the merged employees.
+         */
+        private Timestamp created;
+
+        /**
+         * Whether the staged lines carry their audit changes, they do not when recording is turned off.
+         */
+        private boolean audited;
+
+        private boolean committed;
+
+        private ShardImport(int shard, Connection connection) throws SQLException {
+            this.shard = shard;
+            this.connection = connection;
+            this.postgres = connection.isWrapperFor(PGConnection.class);
+
+            connection.setAutoCommit(false);
+            createStagingTable(connection, postgres);
+
+            this.writer = postgres
+                    ? new CopyStagingWriter(connection, STAGING_TABLE)
+                    : new BatchStagingWriter(connection, STAGING_TABLE);
+        }
+
+        private void add(List<String> fields, int companyId) throws SQLException {
+            String changes = employeeAuditService.createdChanges(new Employee(fields.get(0), fields.get(1), fields.get(2)));
+            audited |= changes != null;
+
+            writer.add(staged++, fields.get(0), fields.get(1), companyId, changes);
+            companyCounts.merge(fields.get(2), 1L, Long::sum);
+        }
+
+        private void finish() throws SQLException {
+            writer.finish();
+            writer = null;
+        }
+
+        private long merge() throws SQLException {
+            long first = employeeIdAllocator.allocate(shard, staged);
+            long imported;
+
+            created = new Timestamp(System.currentTimeMillis());
+
+            // id = (first + seq) << SHARD_BITS | shard
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO employee (id, first_name, last_name, company_id, created, updated) " +
+                            "SELECT CAST(? AS INT) + seq * " + ShardRouter.MAX_SHARDS + ", first_name, last_name, company_id, " +
+                            "CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP) FROM " + STAGING_TABLE)) {
+                insert.setInt(1, ShardRouter.encodeId(first, shard));
+                insert.setTimestamp(2, created);
+                insert.setTimestamp(3, created);
+
+                imported = insert.executeUpdate();
+            }
+
+            if (audited) {
+                try (PreparedStatement record = connection.prepareStatement(
+                        "INSERT INTO employee_audit_outbox (employee_id, action, changes, changed) " +
+                                "SELECT CAST(? AS INT) + seq * " + ShardRouter.MAX_SHARDS + ", 'CREATED', changes, " +
+                                "CAST(? AS TIMESTAMP) FROM " + STAGING_TABLE + " WHERE changes IS NOT NULL")) {
+                    record.setInt(1, ShardRouter.encodeId(first, shard));
+                    record.setTimestamp(2, created);
+
+                    record.executeUpdate();
+                }
+            }
+
+            dropStagingTable(connection, postgres);
+
+            return imported;
+        }
+
+        private void commit() throws SQLException {
+            connection.commit();
+            committed = true;
+        }
+
+        /**
+         * Roll back when the import did not get to commit, and give the connection back.
+         */
+        private void close() {
+            try {
+                if (writer != null)
+                    writer.abort();
+                if (!committed)
+                    connection.rollback();
+                connection.setAutoCommit(true);
+            } catch (SQLException ex) {
+                // The connection is discarded by the pool when it is broken
+            } finally {
+                try {
+                    connection.close();
+                } catch (SQLException ex) {
+                    // Nothing left to release
+                }
+            }
+        }
+    }
+
+    /**
+     * New companies of the import, added in a transaction of their own on the primary shard.
+     * They are committed right before the shards and rolled back with them.
+     */
+    private class CompanyImport {
+
+        private final Map<String, Integer> ids = new HashMap<>();
+
+        private Connection connection;
+
+        private boolean committed;
+
+        private int idOf(String name) throws SQLException {
+            Integer id = ids.get(name);
+
+            if (id == null) {
+                id = companyDictionary.idOf(connection(), name);
+                ids.put(name, id);
+            }
+
+            return id;
+        }
+
+        private Connection connection() throws SQLException {
+            if (connection == null) {
+                connection = shardRouter.getDataSource(ShardContext.PRIMARY).getConnection();
+                connection.setAutoCommit(false);
+            }
+
+            return connection;
+        }
+
+        private void commit() throws SQLException {
+            if (connection == null)
+                return;
+
+            connection.commit();
+            committed = true;
+            companyDictionary.reload();
+        }
+
+        /**
+         * Roll back when the import did not get to commit, and give the connection back.
+         */
+        private void close() {
+            if (connection == null)
+                return;
+
+            try {
+                if (!committed)
+                    connection.rollback();
+                connection.setAutoCommit(true);
+            } catch (SQLException ex) {
+                // The connection is discarded by the pool when it is broken
+            } finally {
+                try {
+                    connection.close();
+                } catch (SQLException ex) {
+                    // Nothing left to release
+                }
+            }
+        }
+    }
+}
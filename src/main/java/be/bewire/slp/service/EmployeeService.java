@@ -1,16 +1,24 @@
 package be.bewire.slp.service;
 
 import be.bewire.slp.domain.Employee;
+import be.bewire.slp.domain.EmployeeLookup;
 import be.bewire.slp.exceptions.MalformedBodyException;
 import be.bewire.slp.exceptions.ResourceNotFoundException;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Interface for user services based around {@link be.bewire.slp.domain.Employee}.
  */
 public interface EmployeeService {
     Iterable<Employee> findAll();
     Employee findById(int id) throws ResourceNotFoundException;
+    List<Employee> findAllByCompany(String company);
+    EmployeeLookup findAllById(Collection<Integer> ids) throws MalformedBodyException;
     Employee create(Employee employee) throws MalformedBodyException;
     Employee update(Employee employee) throws ResourceNotFoundException;
+    Employee patch(int id, Map<String, Object> patch) throws ResourceNotFoundException, MalformedBodyException;
     void deleteById(int id) throws ResourceNotFoundException;
 }
@@ -1,33 +1,124 @@
 package be.bewire.slp.service;
 
+import be.bewire.slp.config.EmployeeProperties;
+import be.bewire.slp.config.EmployeeProperties.Batch;
 import be.bewire.slp.domain.Employee;
+import be.bewire.slp.domain.EmployeeLookup;
 import be.bewire.slp.exceptions.MalformedBodyException;
 import be.bewire.slp.exceptions.ResourceNotFoundException;
 import be.bewire.slp.repository.EmployeeRepository;
+import be.bewire.slp.sharding.ShardContext;
+import be.bewire.slp.sharding.ShardRouter;
+import be.bewire.slp.snapshot.EmployeeSnapshot;
+import be.bewire.slp.util.RequestCoalescer;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of {@link be.bewire.slp.service.EmployeeService}
+ * Calls for one employee run on its shard, listings are gathered from all shards in parallel.
+ * Committed creates, company changes and deletes are reported to the {@link be.bewire.slp.service.EmployeeAggregateService}.
+ * Committed changes are published to the {@link be.bewire.slp.service.EmployeeSnapshotService}, once its snapshot is loaded
+ * the reads are served from memory.
+ * Writes run in one transaction with their {@link be.bewire.slp.service.EmployeeAuditService} record.
  */
 @Service
 public class EmployeeServiceImpl implements EmployeeService {
 
     private final EmployeeRepository employeeRepository;
 
-    public EmployeeServiceImpl(EmployeeRepository employeeRepository) {
+    private final EmployeeProperties properties;
+
+    private final Validator validator;
+
+    private final ShardRouter shardRouter;
+
+    private final EmployeeAggregateService employeeAggregateService;
+
+    private final EmployeeSnapshotService employeeSnapshotService;
+
+    private final EmployeeAuditService employeeAuditService;
+
+    /**
+     * Transactions are started once the shard is known, so they connect to the right database.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Concurrent lookups of the same id share one query.
+     */
+    private final RequestCoalescer<Integer, Optional<Employee>> findByIdCoalescer;
+
+    /**
+     * Concurrent listings share one query.
+     */
+    private final RequestCoalescer<Boolean, Iterable<Employee>> findAllCoalescer;
+
+    public EmployeeServiceImpl(EmployeeRepository employeeRepository,
+                               EmployeeProperties properties,
+                               Validator validator,
+                               ShardRouter shardRouter,
+                               PlatformTransactionManager transactionManager,
+                               EmployeeAggregateService employeeAggregateService,
+                               EmployeeSnapshotService employeeSnapshotService,
+                               EmployeeAuditService employeeAuditService) {
         this.employeeRepository = employeeRepository;
+        this.properties = properties;
+        this.validator = validator;
+        this.shardRouter = shardRouter;
+        this.employeeAggregateService = employeeAggregateService;
+        this.employeeSnapshotService = employeeSnapshotService;
+        this.employeeAuditService = employeeAuditService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.findByIdCoalescer = new RequestCoalescer<>(properties.isCoalescing(), found -> found.map(Employee::new));
+        this.findAllCoalescer = new RequestCoalescer<>(properties.isCoalescing(), EmployeeServiceImpl::copyAll);
     }
 
     /**
      * Find all employees
      *
-     * @return all employees
+     * @return all employees, ordered by id when there are several shards
      */
     @Override
     public Iterable<Employee> findAll() {
-        return employeeRepository.findAll();
+        EmployeeSnapshot snapshot = employeeSnapshotService.current();
+
+        if (snapshot != null)
+            return snapshot.findAll();
+
+        return findAllCoalescer.execute(Boolean.TRUE, () -> {
+            List<Iterable<Employee>> shards = shardRouter.onAllShards(shard -> employeeRepository.findAll());
+
+            if (shards.size() == 1)
+                return shards.get(0);
+
+            List<Employee> employees = new ArrayList<>();
+            for (Iterable<Employee> shard : shards)
+                shard.forEach(employees::add);
+
+            employees.sort(Comparator.comparingInt(Employee::getId));
+
+            return employees;
+        });
     }
 
     /**
@@ -38,16 +129,102 @@ public class EmployeeServiceImpl implements EmployeeService {
      */
     @Override
     public Employee findById(int id) {
-        Optional<Employee> employee = employeeRepository.findById(id);
+        EmployeeSnapshot snapshot = employeeSnapshotService.current();
 
-        if (!employee.isPresent())
+        if (snapshot == null)
+            return findInDatabase(id);
+
+        Employee employee = snapshot.find(id);
+
+        if (employee == null)
             throw new ResourceNotFoundException(String.format("No employee with id %d.", id));
 
-        return employee.get();
+        return employee;
+    }
+
+    /**
+     * Find the employees of one company
+     *
+     * @param company company of the employees
+     * @return the employees of the company, ordered by id
+     */
+    @Override
+    public List<Employee> findAllByCompany(String company) {
+        EmployeeSnapshot snapshot = employeeSnapshotService.current();
+
+        if (snapshot != null)
+            return snapshot.findAllByCompany(company);
+
+        // Employees keep their shard when they change company, so every shard is asked
+        List<Employee> employees = new ArrayList<>();
+        for (List<Employee> shard : shardRouter.onAllShards(shard -> employeeRepository.findAllByCompany(company)))
+            employees.addAll(shard);
+
+        employees.sort(Comparator.comparingInt(Employee::getId));
+
+        return employees;
+    }
+
+    /**
+     * Find many employees by their ids with as few queries as possible.
+     * The ids are resolved in chunks of {@code WHERE id IN (...)} queries on their shards in parallel,
+     * unknown ids are reported as missing.
+     *
+     * @param ids employee ids
+     * @return the found employees in request order and the missing ids
+     */
+    @Override
+    public EmployeeLookup findAllById(Collection<Integer> ids) {
+        Batch batch = properties.getBatch();
+
+        if (ids.size() > batch.getMaxSize())
+            throw new MalformedBodyException(String.format("Cannot look up more than %d employees at once.", batch.getMaxSize()));
+
+        if (ids.contains(null))
+            throw new MalformedBodyException("Employee ids cannot be empty.");
+
+        List<Integer> requested = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Integer, Employee> byId = new HashMap<>();
+        EmployeeSnapshot snapshot = employeeSnapshotService.current();
+
+        if (snapshot != null) {
+            for (Integer id : requested) {
+                Employee employee = snapshot.find(id);
+
+                if (employee != null)
+                    byId.put(id, employee);
+            }
+        } else {
+            Map<Integer, List<Integer>> byShard = new LinkedHashMap<>();
+
+            // Ids of shards that do not exist are missing without a query
+            for (Integer id : requested)
+                if (shardRouter.hasShardOf(id))
+                    byShard.computeIfAbsent(shardRouter.shardOf(id), shard -> new ArrayList<>()).add(id);
+
+            for (List<Employee> shard : shardRouter.onShards(byShard.keySet(), shard -> findChunked(byShard.get(shard), batch.getChunkSize())))
+                for (Employee employee : shard)
+                    byId.put(employee.getId(), employee);
+        }
+
+        List<Employee> found = new ArrayList<>(byId.size());
+        List<Integer> missing = new ArrayList<>();
+
+        for (Integer id : requested) {
+            Employee employee = byId.get(id);
+
+            if (employee == null)
+                missing.add(id);
+            else
+                found.add(employee);
+        }
+
+        return new EmployeeLookup(found, missing);
     }
 
     /**
      * Add a new (valid) employee.
+     * The employee is placed on the shard of its company and gets an id of that shard.
      *
      * @param employee valid employee model
      * @return the created employee
@@ -57,24 +234,71 @@ public class EmployeeServiceImpl implements EmployeeService {
         if (employee.getId() != 0)
             throw new MalformedBodyException("Employee cannot have an id already.");
 
-        return employeeRepository.save(employee);
+        Employee created = ShardContext.call(shardRouter.shardForCompany(employee.getCompany()), () -> transactionTemplate.execute(status -> {
+            Employee saved = employeeRepository.save(employee);
+            employeeAuditService.created(saved);
+
+            return saved;
+        }));
+        afterCommit(() -> {
+            employeeAggregateService.created(created);
+            employeeSnapshotService.saved(created);
+        });
+
+        return created;
     }
 
     /**
      * Update an existing employee
+     * The employee stays on its shard, also when its company changes.
      *
      * @param employee valid and existing employee model
      * @return the updated employee
      */
     @Override
     public Employee update(Employee employee) {
-        // Check if employee exists
-        Employee old = findById(employee.getId());
+        return ShardContext.call(shardRouter.shardOf(employee.getId()), () -> transactionTemplate.execute(status -> {
+            // Check if employee exists, in the database as the snapshot may lag behind unreported writes.
+            // Within the transaction so saving merges into it without selecting it again
+            Optional<Employee> found = employeeRepository.findById(employee.getId());
+
+            if (!found.isPresent())
+                throw new ResourceNotFoundException(String.format("No employee with id %d.", employee.getId()));
+
+            Employee old = found.get();
+            String oldCompany = old.getCompany();
+
+            // Preserve information
+            employee.setCreated(old.getCreated());
+
+            // Saving merges the new values into the old instance
+            employeeAuditService.updated(old, employee);
+
+            Employee updated = employeeRepository.save(employee);
+            afterCommit(() -> {
+                employeeAggregateService.companyChanged(oldCompany, updated.getCompany(), 1);
+                employeeSnapshotService.saved(updated);
+            });
 
-        // Preserve information
-        employee.setCreated(old.getCreated());
+            return updated;
+        }));
+    }
+
+    /**
+     * Partially update an existing employee with a JSON merge patch (RFC 7396).
+     * Only the supplied fields are validated and written, a patch that changes nothing does not write at all.
+     *
+     * @param id    employee id
+     * @param patch fields to change, a null value removes the field
+     * @return the (updated) employee
+     */
+    @Override
+    public Employee patch(int id, Map<String, Object> patch) {
+        // Validate before touching the database
+        for (Map.Entry<String, Object> field : patch.entrySet())
+            validatePatchField(id, field.getKey(), field.getValue());
 
-        return employeeRepository.save(employee);
+        return ShardContext.call(shardRouter.shardOf(id), () -> transactionTemplate.execute(status -> applyPatch(id, patch)));
     }
 
     /**
@@ -84,10 +308,146 @@ public class EmployeeServiceImpl implements EmployeeService {
      */
     @Override
     public void deleteById(int id) {
-        // Check if employee exists
-        if (!employeeRepository.existsById(id))
+        ShardContext.run(shardRouter.shardOf(id), () -> transactionTemplate.executeWithoutResult(status -> {
+            // Check if employee exists, within the transaction so deleting does not select it again.
+            // Its company and creation day are uncounted afterwards
+            Optional<Employee> employee = employeeRepository.findById(id);
+
+            if (!employee.isPresent())
+                throw new ResourceNotFoundException(String.format("No employee with id %d.", id));
+
+            employeeRepository.delete(employee.get());
+            employeeAuditService.deleted(employee.get());
+            afterCommit(() -> {
+                employeeAggregateService.deleted(employee.get());
+                employeeSnapshotService.deleted(id);
+            });
+        }));
+    }
+
+    private Employee findInDatabase(int id) {
+        Optional<Employee> employee = findByIdCoalescer.execute(id,
+                () -> ShardContext.call(shardRouter.shardOf(id), () -> employeeRepository.findById(id)));
+
+        if (!employee.isPresent())
+            throw new ResourceNotFoundException(String.format("No employee with id %d.", id));
+
+        return employee.get();
+    }
+
+    private List<Employee> findChunked(List<Integer> ids, int chunkSize) {
+        List<Employee> employees = new ArrayList<>(ids.size());
+
+        for (int from = 0; from < ids.size(); from += chunkSize)
+            employeeRepository.findAllById(ids.subList(from, Math.min(from + chunkSize, ids.size()))).forEach(employees::add);
+
+        return employees;
+    }
+
+    private Employee applyPatch(int id, Map<String, Object> patch) {
+        // Load the employee directly, a coalesced instance could be shared with concurrent readers
+        Optional<Employee> found = employeeRepository.findById(id);
+
+        if (!found.isPresent())
             throw new ResourceNotFoundException(String.format("No employee with id %d.", id));
 
-        employeeRepository.deleteById(id);
+        Employee employee = found.get();
+        Employee before = new Employee(id, employee.getFirstName(), employee.getLastName(), employee.getCompany());
+        String oldCompany = employee.getCompany();
+        boolean changed = false;
+
+        for (Map.Entry<String, Object> field : patch.entrySet())
+            changed |= applyPatchField(employee, field.getKey(), field.getValue());
+
+        if (!changed)
+            return employee;
+
+        employeeAuditService.updated(before, employee);
+
+        Employee updated = employeeRepository.save(employee);
+        afterCommit(() -> {
+            employeeAggregateService.companyChanged(oldCompany, updated.getCompany(), 1);
+            employeeSnapshotService.saved(updated);
+        });
+
+        return updated;
+    }
+
+    /**
+     * Run an action once the current transaction committed, or right away when there is none (it already committed).
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void validatePatchField(int id, String field, Object value) {
+        switch (field) {
+            case "id":
+                if (!(value instanceof Number) || ((Number) value).intValue() != id)
+                    throw new MalformedBodyException("Url id does not match request body id.");
+                return;
+            case "firstName":
+            case "lastName":
+            case "company":
+                if (value != null && !(value instanceof String))
+                    throw new MalformedBodyException(String.format("Field %s must be a string.", field));
+
+                Set<ConstraintViolation<Employee>> violations = validator.validateValue(Employee.class, field, value);
+
+                if (!violations.isEmpty())
+                    throw new MalformedBodyException(violations.stream()
+                            .map(ConstraintViolation::getMessage)
+                            .collect(Collectors.joining(", ")));
+                return;
+            default:
+                throw new MalformedBodyException(String.format("Field %s cannot be patched.", field));
+        }
+    }
+
+    private static boolean applyPatchField(Employee employee, String field, Object value) {
+        switch (field) {
+            case "firstName":
+                if (Objects.equals(employee.getFirstName(), value))
+                    return false;
+                employee.setFirstName((String) value);
+                return true;
+            case "lastName":
+                if (Objects.equals(employee.getLastName(), value))
+                    return false;
+                employee.setLastName((String) value);
+                return true;
+            case "company":
+                if (Objects.equals(employee.getCompany(), value))
+                    return false;
+                employee.setCompany((String) value);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Copy every employee of a listing, for a caller that joined a coalesced listing.
+     *
+     * @param employees shared listing
+     * @return independent copies of the employees
+     */
+    private static Iterable<Employee> copyAll(Iterable<Employee> employees) {
+        List<Employee> copies = new ArrayList<>();
+
+        for (Employee employee : employees)
+            copies.add(new Employee(employee));
+
+        return copies;
     }
 }
@@ -0,0 +1,18 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.snapshot.EmployeeSnapshot;
+
+/**
+ * Interface for the in-memory read model of {@link be.bewire.slp.domain.Employee}.
+ * Writers report their committed changes, so reads are served from the {@link be.bewire.slp.snapshot.EmployeeSnapshot}.
+ */
+public interface EmployeeSnapshotService {
+    EmployeeSnapshot current();
+
+    void saved(Employee employee);
+
+    void deleted(int id);
+
+    void reload();
+}
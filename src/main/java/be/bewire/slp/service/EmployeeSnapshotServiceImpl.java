@@ -0,0 +1,233 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.config.EmployeeProperties;
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.repository.EmployeeRepository;
+import be.bewire.slp.sharding.ShardContext;
+import be.bewire.slp.sharding.ShardRouter;
+import be.bewire.slp.snapshot.EmployeeSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Implementation of {@link be.bewire.slp.service.EmployeeSnapshotService}
+ * The snapshot is loaded once the application is ready and published through a volatile reference, so reads never lock.
+ * Committed changes are applied copy-on-write: every publish copies the columns once, and changes reported while
+ * another writer publishes are picked up by that writer, so concurrent writes share one copy.
+ * A reporter only returns once its change is published, so a client reads its own writes (on this instance).
+ * The snapshot is reloaded every five minutes to pick up writes that do not report their changes, eg. imports.
+ * Does nothing unless {@code slp.employee.snapshot.enabled} is set.
+ */
+@Service
+public class EmployeeSnapshotServiceImpl implements EmployeeSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeSnapshotServiceImpl.class);
+
+    private static final long RELOAD_INTERVAL_MILLIS = 5 * 60 * 1000;
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private final EmployeeRepository employeeRepository;
+
+    private final ShardRouter shardRouter;
+
+    private final boolean enabled;
+
+    private volatile EmployeeSnapshot snapshot;
+
+    /**
+     * Changes that are not published yet, in the order they were reported.
+     */
+    private final Queue<Change> pending = new ConcurrentLinkedQueue<>();
+
+    private final Object writeLock = new Object();
+
+    private final Object reloadLock = new Object();
+
+    // Guarded by the write lock
+
+    private EmployeeSnapshot.Writer writer;
+
+    private long version;
+
+    /**
+     * Changes published while a reload runs, they are applied again on top of the reloaded snapshot.
+     */
+    private List<Change> changesDuringReload;
+
+    public EmployeeSnapshotServiceImpl(EmployeeRepository employeeRepository,
+                                       ShardRouter shardRouter,
+                                       EmployeeProperties properties) {
+        this.employeeRepository = employeeRepository;
+        this.shardRouter = shardRouter;
+        this.enabled = properties.getSnapshot().isEnabled();
+    }
+
+    /**
+     * The current snapshot.
+     *
+     * @return snapshot, or null when it is disabled or not loaded yet
+     */
+    @Override
+    public EmployeeSnapshot current() {
+        return snapshot;
+    }
+
+    /**
+     * Publish a committed created or updated employee.
+     *
+     * @param employee the saved employee
+     */
+    @Override
+    public void saved(Employee employee) {
+        if (!enabled)
+            return;
+
+        // The entity can still change after this call, the snapshot keeps a copy
+        Employee copy = new Employee(employee.getId(), employee.getFirstName(), employee.getLastName(), employee.getCompany());
+        copy.setCreated(employee.getCreated());
+        copy.setUpdated(employee.getUpdated());
+
+        publish(new Change(employee.getId(), copy));
+    }
+
+    /**
+     * Publish a committed deleted employee.
+     *
+     * @param id id of the deleted employee
+     */
+    @Override
+    public void deleted(int id) {
+        if (!enabled)
+            return;
+
+        publish(new Change(id, null));
+    }
+
+    /**
+     * Load the snapshot, the schema exists once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reload();
+    }
+
+    /**
+     * Replace the snapshot with a fresh load of the database.
+     */
+    @Override
+    @Scheduled(fixedDelay = RELOAD_INTERVAL_MILLIS, initialDelay = RELOAD_INTERVAL_MILLIS)
+    public void reload() {
+        if (!enabled)
+            return;
+
+        synchronized (reloadLock) {
+            synchronized (writeLock) {
+                changesDuringReload = new ArrayList<>();
+            }
+
+            try {
+                long started = System.nanoTime();
+                EmployeeSnapshot.Writer loader = new EmployeeSnapshot.Writer();
+
+                for (int shard = 0; shard < shardRouter.getShardCount(); shard++)
+                    ShardContext.run(shard, () -> load(loader));
+
+                EmployeeSnapshot loaded;
+
+                synchronized (writeLock) {
+                    loaded = loader.build(++version);
+
+                    if (!changesDuringReload.isEmpty())
+                        loaded = loader.apply(loaded, ++version, merge(changesDuringReload));
+
+                    writer = loader;
+                    snapshot = loaded;
+                }
+
+                logger.info("Loaded {} employees into snapshot version {} in {} ms, about {} MB.", loaded.size(),
+                        loaded.getVersion(), (System.nanoTime() - started) / 1_000_000, loaded.estimateBytes() / (1024 * 1024));
+            } finally {
+                synchronized (writeLock) {
+                    changesDuringReload = null;
+                }
+            }
+        }
+    }
+
+    private void load(EmployeeSnapshot.Writer loader) {
+        PageRequest page = PageRequest.of(0, LOAD_PAGE_SIZE);
+        int afterId = 0;
+
+        while (true) {
+            List<Employee> employees = employeeRepository.findPage(afterId, page);
+            employees.forEach(loader::add);
+
+            if (employees.size() < LOAD_PAGE_SIZE)
+                return;
+
+            afterId = employees.get(employees.size() - 1).getId();
+        }
+    }
+
+    private void publish(Change change) {
+        pending.add(change);
+
+        synchronized (writeLock) {
+            // Already published by a concurrent writer
+            if (pending.isEmpty())
+                return;
+
+            List<Change> changes = new ArrayList<>();
+            Change next;
+            while ((next = pending.poll()) != null)
+                changes.add(next);
+
+            if (changesDuringReload != null)
+                changesDuringReload.addAll(changes);
+
+            // Before the first load there is nothing to change, the load reads the committed change
+            if (snapshot != null)
+                snapshot = writer.apply(snapshot, ++version, merge(changes));
+        }
+    }
+
+    /**
+     * The last change of every id.
+     */
+    private static SortedMap<Integer, Employee> merge(List<Change> changes) {
+        SortedMap<Integer, Employee> merged = new TreeMap<>();
+
+        for (Change change : changes)
+            merged.put(change.id, change.employee);
+
+        return merged;
+    }
+
+    private static class Change {
+
+        private final int id;
+
+        /**
+         * The saved employee, null when it was deleted.
+         */
+        private final Employee employee;
+
+        private Change(int id, Employee employee) {
+            this.id = id;
+            this.employee = employee;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.exceptions.ConflictException;
+
+import java.util.function.Supplier;
+
+/**
+ * Interface for executing a request at most once per {@code Idempotency-Key}.
+ * The first request runs the action and its result is kept, duplicates wait for the in-flight original
+ * and replays get the kept result without running the action again.
+ */
+public interface IdempotencyStore {
+    <T> T execute(String key, String fingerprint, Class<T> type, Supplier<T> action) throws ConflictException;
+}
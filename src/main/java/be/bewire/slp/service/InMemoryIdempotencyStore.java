@@ -0,0 +1,156 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.config.IdempotencyProperties;
+import be.bewire.slp.exceptions.ConflictException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Implementation of {@link be.bewire.slp.service.IdempotencyStore} that keeps the results in memory.
+ * The store is bounded: keys expire after the ttl, and when it is full the oldest finished keys are evicted first.
+ */
+@Service
+@ConditionalOnProperty(prefix = "slp.idempotency", name = "store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Keys in insertion order, so expiry and eviction start with the oldest keys.
+     */
+    private final ConcurrentLinkedQueue<Map.Entry<String, Entry>> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    private final IdempotencyProperties properties;
+
+    public InMemoryIdempotencyStore(IdempotencyProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Run the action once per key.
+     *
+     * @param key         idempotency key supplied by the client
+     * @param fingerprint fingerprint of the request, a reused key with another request is refused
+     * @param type        type of the result
+     * @param action      request to execute
+     * @return result of the first request with this key
+     */
+    @Override
+    public <T> T execute(String key, String fingerprint, Class<T> type, Supplier<T> action) {
+        long now = System.currentTimeMillis();
+        evict(now);
+
+        Entry entry = new Entry(fingerprint, now);
+
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, entry);
+
+            if (existing == null)
+                break;
+
+            if (!existing.isExpired(now, properties.getTtl().toMillis()))
+                return type.cast(await(existing, fingerprint));
+
+            entries.remove(key, existing);
+        }
+
+        insertionOrder.add(new AbstractMap.SimpleImmutableEntry<>(key, entry));
+
+        try {
+            T result = action.get();
+            entry.result.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            // Failures are not replayed, a retry with the same key runs again
+            entries.remove(key, entry);
+            entry.result.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Amount of keys currently kept.
+     *
+     * @return amount of keys
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private Object await(Entry existing, String fingerprint) {
+        if (!existing.fingerprint.equals(fingerprint))
+            throw new ConflictException("Idempotency-Key was already used for a different request.");
+
+        try {
+            return existing.result.get(properties.getWaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new ConflictException("A request with this Idempotency-Key is still in progress.", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while waiting for the request with this Idempotency-Key.", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Drop expired keys, then the oldest finished keys while the store is over its bound.
+     */
+    private void evict(long now) {
+        long ttl = properties.getTtl().toMillis();
+        Iterator<Map.Entry<String, Entry>> oldest = insertionOrder.iterator();
+
+        while (oldest.hasNext()) {
+            Map.Entry<String, Entry> candidate = oldest.next();
+            Entry entry = candidate.getValue();
+            boolean full = entries.size() >= properties.getMaxEntries();
+
+            if (entries.get(candidate.getKey()) != entry) {
+                // Already replaced or removed
+                oldest.remove();
+            } else if (entry.isExpired(now, ttl) || (full && entry.result.isDone())) {
+                entries.remove(candidate.getKey(), entry);
+                oldest.remove();
+            } else if (!full) {
+                break;
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private final String fingerprint;
+
+        private final long created;
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Entry(String fingerprint, long created) {
+            this.fingerprint = fingerprint;
+            this.created = created;
+        }
+
+        private boolean isExpired(long now, long ttl) {
+            return result.isDone() && now - created > ttl;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.domain.Employee;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Interface for non-blocking user services based around {@link be.bewire.slp.domain.Employee}.
+ * Errors are signalled with the same exceptions as {@link be.bewire.slp.service.EmployeeService}.
+ */
+public interface ReactiveEmployeeService {
+    Flux<Employee> findAll();
+    Mono<Employee> findById(int id);
+    Mono<Employee> create(Employee employee);
+    Mono<Employee> update(Employee employee);
+    Mono<Employee> patch(int id, Map<String, Object> patch);
+    Mono<Void> deleteById(int id);
+}
@@ -0,0 +1,106 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.exceptions.ResourceNotFoundException;
+import be.bewire.slp.repository.ReactiveEmployeeRepository;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Implementation of {@link be.bewire.slp.service.ReactiveEmployeeService}
+ * Only the reads are R2DBC, non-blocking end to end. Writes are the blocking JPA calls of
+ * {@link be.bewire.slp.service.EmployeeService}, offloaded to the bounded elastic scheduler: id generation, timestamps
+ * and validation stay in one place and never block the event loop, but a write still holds a worker thread and a
+ * pooled JDBC connection while it runs. Thread-bound request state does not follow a call onto the worker thread,
+ * so it has to be handed over explicitly.
+ */
+@Service
+public class ReactiveEmployeeServiceImpl implements ReactiveEmployeeService {
+
+    private final ReactiveEmployeeRepository reactiveEmployeeRepository;
+
+    private final EmployeeService employeeService;
+
+    public ReactiveEmployeeServiceImpl(ReactiveEmployeeRepository reactiveEmployeeRepository, EmployeeService employeeService) {
+        this.reactiveEmployeeRepository = reactiveEmployeeRepository;
+        this.employeeService = employeeService;
+    }
+
+    /**
+     * Find all employees
+     *
+     * @return stream of all employees
+     */
+    @Override
+    public Flux<Employee> findAll() {
+        return reactiveEmployeeRepository.findAll();
+    }
+
+    /**
+     * Find one employee by its id and check if employee exists
+     *
+     * @param id employee id
+     * @return the requested employee
+     */
+    @Override
+    public Mono<Employee> findById(int id) {
+        return reactiveEmployeeRepository.findById(id)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new ResourceNotFoundException(String.format("No employee with id %d.", id)))));
+    }
+
+    /**
+     * Add a new (valid) employee.
+     *
+     * @param employee valid employee model
+     * @return the created employee
+     */
+    @Override
+    public Mono<Employee> create(Employee employee) {
+        return blocking(() -> employeeService.create(employee));
+    }
+
+    /**
+     * Update an existing employee
+     *
+     * @param employee valid and existing employee model
+     * @return the updated employee
+     */
+    @Override
+    public Mono<Employee> update(Employee employee) {
+        return blocking(() -> employeeService.update(employee));
+    }
+
+    /**
+     * Partially update an existing employee with a JSON merge patch.
+     *
+     * @param id    employee id
+     * @param patch fields to change
+     * @return the (updated) employee
+     */
+    @Override
+    public Mono<Employee> patch(int id, Map<String, Object> patch) {
+        return blocking(() -> employeeService.patch(id, patch));
+    }
+
+    /**
+     * Delete an existing employee
+     *
+     * @param id employee id
+     * @return completion
+     */
+    @Override
+    public Mono<Void> deleteById(int id) {
+        return Mono.fromRunnable(() -> employeeService.deleteById(id))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
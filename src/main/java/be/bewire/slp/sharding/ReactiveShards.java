@@ -0,0 +1,38 @@
+package be.bewire.slp.sharding;
+
+import org.springframework.data.r2dbc.core.DatabaseClient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Non-blocking clients of the shards, indexed like the {@link be.bewire.slp.sharding.ShardRouter} shards.
+ */
+public class ReactiveShards {
+
+    private final List<DatabaseClient> clients;
+
+    public ReactiveShards(List<DatabaseClient> clients) {
+        this.clients = Collections.unmodifiableList(new ArrayList<>(clients));
+    }
+
+    /**
+     * Client of one shard.
+     *
+     * @param shard shard number
+     * @return database client
+     */
+    public DatabaseClient get(int shard) {
+        return clients.get(shard);
+    }
+
+    /**
+     * Clients of all shards.
+     *
+     * @return database clients in shard order
+     */
+    public List<DatabaseClient> all() {
+        return clients;
+    }
+}
@@ -0,0 +1,63 @@
+package be.bewire.slp.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard the current thread works on. Connections from the {@link be.bewire.slp.sharding.ShardRoutingDataSource}
+ * and ids from the {@link be.bewire.slp.sharding.ShardedIdGenerator} follow it. Without a shard the primary
+ * shard (0) is used, which also holds the tables that are not sharded.
+ */
+public final class ShardContext {
+
+    public static final int PRIMARY = 0;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Shard of the current thread.
+     *
+     * @return shard number
+     */
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? PRIMARY : shard;
+    }
+
+    /**
+     * Run a call on a shard, the previous shard of the thread is restored afterwards.
+     *
+     * @param shard shard number
+     * @param call  call to run
+     * @param <T>   result type
+     * @return result of the call
+     */
+    public static <T> T call(int shard, Supplier<T> call) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+
+        try {
+            return call.get();
+        } finally {
+            if (previous == null)
+                CURRENT.remove();
+            else
+                CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Run a call without result on a shard.
+     *
+     * @param shard shard number
+     * @param call  call to run
+     */
+    public static void run(int shard, Runnable call) {
+        call(shard, () -> {
+            call.run();
+            return null;
+        });
+    }
+}
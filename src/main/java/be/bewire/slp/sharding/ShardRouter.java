@@ -0,0 +1,209 @@
+package be.bewire.slp.sharding;
+
+import be.bewire.slp.deadline.Deadline;
+import be.bewire.slp.exceptions.DeadlineExceededException;
+import be.bewire.slp.exceptions.ResourceNotFoundException;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+ * Places employees on shards and runs calls on one or all shards.
+ * A new employee is placed by a stable hash of its company, after that its id is the source of truth:
+ * the shard is encoded in the lowest {@link #SHARD_BITS} bits, so a row stays reachable when its company changes
+ * or shards are added.
+ */
+public class ShardRouter {
+
+    public static final int SHARD_BITS = 4;
+
+    public static final int MAX_SHARDS = 1 << SHARD_BITS;
+
+    /**
+     * Highest sequence that still fits a positive int id.
+     */
+    public static final long MAX_SEQUENCE = Integer.MAX_VALUE >> SHARD_BITS;
+
+    private final List<DataSource> shards;
+
+    private final List<Integer> allShards;
+
+    /**
+     * Runs the scatter-gather calls on the other shards, one thread per other shard, absent with a single shard.
+     */
+    private final ExecutorService executor;
+
+    public ShardRouter(List<DataSource> shards) {
+        if (shards.isEmpty() || shards.size() > MAX_SHARDS)
+            throw new IllegalArgumentException(String.format("Between 1 and %d shards are supported.", MAX_SHARDS));
+
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.allShards = Collections.unmodifiableList(IntStream.range(0, shards.size()).boxed().collect(Collectors.toList()));
+
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = shards.size() == 1 ? null : Executors.newFixedThreadPool(shards.size() - 1, runnable -> {
+            Thread thread = new Thread(runnable, "shard-query-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Compose an employee id.
+     *
+     * @param sequence value of the id sequence of the shard
+     * @param shard    shard number
+     * @return employee id
+     */
+    public static int encodeId(long sequence, int shard) {
+        return (int) (sequence << SHARD_BITS | shard);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Data source of one shard, connections from it are not bound to Spring transactions.
+     *
+     * @param shard shard number
+     * @return data source
+     */
+    public DataSource getDataSource(int shard) {
+        return shards.get(shard);
+    }
+
+    /**
+     * Shard that holds an employee.
+     *
+     * @param id employee id
+     * @return shard number
+     * @throws ResourceNotFoundException when the id belongs to a shard that does not exist
+     */
+    public int shardOf(int id) {
+        if (!hasShardOf(id))
+            throw new ResourceNotFoundException(String.format("No employee with id %d.", id));
+
+        return shards.size() == 1 ? ShardContext.PRIMARY : id & (MAX_SHARDS - 1);
+    }
+
+    /**
+     * Check if the shard an id belongs to exists, no employee can have the id otherwise.
+     * A single shard holds every id, also those from before sharding.
+     *
+     * @param id employee id
+     * @return true when the shard exists
+     */
+    public boolean hasShardOf(int id) {
+        return shards.size() == 1 || (id & (MAX_SHARDS - 1)) < shards.size();
+    }
+
+    /**
+     * Shard a new employee of a company is placed on.
+     *
+     * @param company company name
+     * @return shard number
+     */
+    public int shardForCompany(String company) {
+        if (shards.size() == 1)
+            return ShardContext.PRIMARY;
+
+        CRC32 crc = new CRC32();
+        crc.update(company.getBytes(StandardCharsets.UTF_8));
+
+        return (int) (crc.getValue() % shards.size());
+    }
+
+    /**
+     * Run a call on every shard in parallel.
+     *
+     * @param call call with the shard number, runs with the {@link be.bewire.slp.sharding.ShardContext} set
+     * @param <T>  result type
+     * @return results in shard order
+     */
+    public <T> List<T> onAllShards(IntFunction<T> call) {
+        return onShards(allShards, call);
+    }
+
+    /**
+     * Run a call on some shards in parallel, the first shard runs on the calling thread.
+     * The other shards run with the {@link be.bewire.slp.deadline.Deadline} of the caller, which stops waiting for them once it expires.
+     *
+     * @param targets shard numbers
+     * @param call    call with the shard number, runs with the {@link be.bewire.slp.sharding.ShardContext} set
+     * @param <T>     result type
+     * @return results in the order of the targets
+     */
+    public <T> List<T> onShards(Collection<Integer> targets, IntFunction<T> call) {
+        List<Integer> order = new ArrayList<>(targets);
+        List<Future<T>> others = new ArrayList<>(Math.max(0, order.size() - 1));
+        Deadline deadline = Deadline.current();
+
+        for (int shard : order.subList(Math.min(1, order.size()), order.size()))
+            others.add(executor.submit(() -> Deadline.call(deadline, () -> ShardContext.call(shard, () -> call.apply(shard)))));
+
+        List<T> results = new ArrayList<>(order.size());
+
+        try {
+            if (!order.isEmpty()) {
+                int first = order.get(0);
+                results.add(ShardContext.call(first, () -> call.apply(first)));
+            }
+
+            for (Future<T> other : others)
+                results.add(await(other, deadline));
+        } finally {
+            // Nothing left to wait for when one shard failed
+            for (Future<T> other : others)
+                other.cancel(true);
+        }
+
+        return results;
+    }
+
+    /**
+     * Stop the scatter-gather threads.
+     */
+    public void shutdown() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    private static <T> T await(Future<T> result, Deadline deadline) {
+        try {
+            if (deadline == null)
+                return result.get();
+
+            return result.get(Math.max(0, deadline.remainingMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new DeadlineExceededException("The request deadline was exceeded while waiting for a shard.", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shard.", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package be.bewire.slp.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data source that hands out connections of the shard in the {@link be.bewire.slp.sharding.ShardContext}.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++)
+            targets.put(shard, shards.get(shard));
+
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(ShardContext.PRIMARY));
+        setLenientFallback(false);
+    }
+
+    /**
+     * Close the connection pools of the shards.
+     *
+     * @throws Exception when a pool cannot be closed
+     */
+    public void close() throws Exception {
+        for (DataSource shard : shards)
+            if (shard instanceof AutoCloseable)
+                ((AutoCloseable) shard).close();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
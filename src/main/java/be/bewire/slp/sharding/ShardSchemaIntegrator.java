@@ -0,0 +1,54 @@
+package be.bewire.slp.sharding;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.hbm2ddl.SchemaExport;
+import org.hibernate.tool.hbm2ddl.SchemaUpdate;
+import org.hibernate.tool.schema.TargetType;
+
+import java.util.EnumSet;
+
+/**
+ * Hibernate only manages the schema of the primary shard, this applies the same {@code ddl-auto}
+ * schema generation to the other shards, from the same mapping.
+ */
+public class ShardSchemaIntegrator implements Integrator {
+
+    private final int shardCount;
+
+    public ShardSchemaIntegrator(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        Object action = serviceRegistry.getService(ConfigurationService.class).getSettings().get(AvailableSettings.HBM2DDL_AUTO);
+
+        if (action == null)
+            return;
+
+        for (int shard = 1; shard < shardCount; shard++) {
+            switch (action.toString()) {
+                case "create":
+                case "create-drop":
+                    ShardContext.run(shard, () -> new SchemaExport().create(EnumSet.of(TargetType.DATABASE), metadata));
+                    break;
+                case "update":
+                    ShardContext.run(shard, () -> new SchemaUpdate().execute(EnumSet.of(TargetType.DATABASE), metadata));
+                    break;
+                default:
+                    // Validation and none leave the schema alone
+                    return;
+            }
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        // The schema of the other shards outlives the application, like with create
+    }
+}
@@ -0,0 +1,25 @@
+package be.bewire.slp.sharding;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerationException;
+import org.hibernate.id.enhanced.TableGenerator;
+
+import java.io.Serializable;
+
+/**
+ * Employee ids that encode their shard: {@code sequence << SHARD_BITS | shard}.
+ * The sequence comes from the {@code hibernate_sequences} table of the shard the row is inserted in,
+ * so ids are unique over all shards and any id can be routed without a lookup.
+ */
+public class ShardedIdGenerator extends TableGenerator {
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        long sequence = ((Number) super.generate(session, object)).longValue();
+
+        if (sequence > ShardRouter.MAX_SEQUENCE)
+            throw new IdentifierGenerationException("Employee id sequence exhausted on shard " + ShardContext.current());
+
+        return ShardRouter.encodeId(sequence, ShardContext.current());
+    }
+}
@@ -0,0 +1,416 @@
+package be.bewire.slp.snapshot;
+
+import be.bewire.slp.domain.Employee;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Immutable in-memory copy of all employees, stored column by column: the ids in a sorted {@code int[]},
+ * the timestamps in {@code long[]}s and the strings as codes into per-column dictionaries, so every distinct
+ * first name, last name and company is held once. An employee costs 32 bytes plus its new strings.
+ * Snapshots are never changed: a {@link be.bewire.slp.snapshot.EmployeeSnapshot.Writer} copies the columns
+ * into a new snapshot, so readers need no locks.
+ */
+public final class EmployeeSnapshot {
+
+    private static final int NULL_STRING = -1;
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    /**
+     * Estimated size of a {@link java.lang.String} without its characters (compressed oops, Latin-1 strings).
+     */
+    private static final int STRING_OVERHEAD_BYTES = 24 + 16;
+
+    private static final int ARRAY_OVERHEAD_BYTES = 16;
+
+    private final long version;
+
+    private final int size;
+
+    private final int[] ids;
+
+    private final int[] firstNames;
+
+    private final int[] lastNames;
+
+    private final int[] companies;
+
+    private final long[] created;
+
+    private final long[] updated;
+
+    private final String[] firstNameValues;
+
+    private final String[] lastNameValues;
+
+    private final String[] companyValues;
+
+    private final int companyCount;
+
+    private EmployeeSnapshot(long version, int size, int[] ids, int[] firstNames, int[] lastNames, int[] companies,
+                             long[] created, long[] updated, Dictionary firstNameDictionary,
+                             Dictionary lastNameDictionary, Dictionary companyDictionary) {
+        this.version = version;
+        this.size = size;
+        this.ids = ids;
+        this.firstNames = firstNames;
+        this.lastNames = lastNames;
+        this.companies = companies;
+        this.created = created;
+        this.updated = updated;
+        this.firstNameValues = firstNameDictionary.values;
+        this.lastNameValues = lastNameDictionary.values;
+        this.companyValues = companyDictionary.values;
+        this.companyCount = companyDictionary.size;
+    }
+
+    /**
+     * Find one employee.
+     *
+     * @param id employee id
+     * @return a new instance of the employee, or null when it does not exist
+     */
+    public Employee find(int id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+
+        return row >= 0 ? employee(row) : null;
+    }
+
+    /**
+     * All employees.
+     *
+     * @return new instances of the employees, ordered by id
+     */
+    public List<Employee> findAll() {
+        List<Employee> employees = new ArrayList<>(size);
+
+        for (int row = 0; row < size; row++)
+            employees.add(employee(row));
+
+        return employees;
+    }
+
+    /**
+     * The employees of one company, found with a scan of the company column.
+     *
+     * @param company company of the employees
+     * @return new instances of the employees, ordered by id
+     */
+    public List<Employee> findAllByCompany(String company) {
+        int code = NULL_STRING;
+
+        for (int i = 0; i < companyCount; i++) {
+            if (companyValues[i].equals(company)) {
+                code = i;
+                break;
+            }
+        }
+
+        if (code == NULL_STRING)
+            return Collections.emptyList();
+
+        List<Employee> employees = new ArrayList<>();
+
+        for (int row = 0; row < size; row++)
+            if (companies[row] == code)
+                employees.add(employee(row));
+
+        return employees;
+    }
+
+    /**
+     * Version of the snapshot, it goes up with every published change.
+     *
+     * @return version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Amount of employees.
+     *
+     * @return amount of employees
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Estimated heap taken by the snapshot: the columns and the strings of the dictionaries.
+     *
+     * @return size in bytes
+     */
+    public long estimateBytes() {
+        long bytes = 4L * ARRAY_OVERHEAD_BYTES + 4L * 4 * ids.length + 2L * (ARRAY_OVERHEAD_BYTES + 8L * created.length);
+
+        for (String[] values : Arrays.asList(firstNameValues, lastNameValues, companyValues)) {
+            bytes += ARRAY_OVERHEAD_BYTES + 4L * values.length;
+
+            for (String value : values)
+                if (value != null)
+                    bytes += STRING_OVERHEAD_BYTES + value.length();
+        }
+
+        return bytes;
+    }
+
+    private Employee employee(int row) {
+        Employee employee = new Employee(ids[row],
+                decode(firstNameValues, firstNames[row]),
+                decode(lastNameValues, lastNames[row]),
+                decode(companyValues, companies[row]));
+
+        if (created[row] != NULL_TIME)
+            employee.setCreated(new Date(created[row]));
+        if (updated[row] != NULL_TIME)
+            employee.setUpdated(new Date(updated[row]));
+
+        return employee;
+    }
+
+    private static String decode(String[] values, int code) {
+        return code == NULL_STRING ? null : values[code];
+    }
+
+    private static long time(Date date) {
+        return date == null ? NULL_TIME : date.getTime();
+    }
+
+    /**
+     * Builds the snapshots: first loads the employees, then applies changes copy-on-write.
+     * Not thread-safe, there can only be one writer at a time. Its dictionaries only grow:
+     * start a new writer with a full load to drop strings that are no longer used.
+     */
+    public static final class Writer {
+
+        private final Dictionary firstNameDictionary = new Dictionary();
+
+        private final Dictionary lastNameDictionary = new Dictionary();
+
+        private final Dictionary companyDictionary = new Dictionary();
+
+        private Columns loading = new Columns(1024);
+
+        /**
+         * Add an employee to the initial load, in any order.
+         *
+         * @param employee loaded employee
+         */
+        public void add(Employee employee) {
+            if (loading.size == loading.ids.length)
+                loading = loading.copy(loading.size * 2);
+
+            loading.set(loading.size++, employee);
+        }
+
+        /**
+         * Build the snapshot of the loaded employees.
+         *
+         * @param version version of the snapshot
+         * @return snapshot ordered by id, of the last added instance of every id
+         */
+        public EmployeeSnapshot build(long version) {
+            int size = loading.size;
+
+            // Sort the rows by id, the low bits keep the row so the columns can follow
+            long[] order = new long[size];
+            for (int row = 0; row < size; row++)
+                order[row] = (long) loading.ids[row] << 32 | row;
+            Arrays.sort(order);
+
+            Columns sorted = new Columns(size);
+            for (int i = 0; i < size; i++) {
+                int row = (int) order[i];
+
+                // Of duplicate ids the last added one wins
+                if (sorted.size > 0 && sorted.ids[sorted.size - 1] == loading.ids[row])
+                    sorted.size--;
+
+                sorted.copyRow(sorted.size++, loading, row);
+            }
+
+            loading = new Columns(0);
+
+            return snapshot(version, sorted);
+        }
+
+        /**
+         * Apply changes to a snapshot, the snapshot itself stays unchanged.
+         * A saved employee that is older than the one in the snapshot (by its update timestamp) is ignored,
+         * so changes that are reported out of order do not roll an employee back.
+         *
+         * @param base    snapshot built by this writer
+         * @param version version of the new snapshot
+         * @param changes saved employees by id, null for a deleted employee
+         * @return new snapshot with the changes
+         */
+        public EmployeeSnapshot apply(EmployeeSnapshot base, long version, SortedMap<Integer, Employee> changes) {
+            Map<Integer, Integer> existing = new HashMap<>();
+            int size = base.size;
+
+            for (Map.Entry<Integer, Employee> change : changes.entrySet()) {
+                int row = Arrays.binarySearch(base.ids, 0, base.size, change.getKey());
+                Employee employee = change.getValue();
+
+                if (row >= 0)
+                    existing.put(change.getKey(), row);
+
+                if (employee == null && row >= 0)
+                    size--;
+                else if (employee != null && row < 0)
+                    size++;
+            }
+
+            Columns columns = new Columns(size);
+            int from = 0;
+
+            for (Map.Entry<Integer, Employee> change : changes.entrySet()) {
+                Integer row = existing.get(change.getKey());
+                int until = row != null ? row : -(Arrays.binarySearch(base.ids, from, base.size, change.getKey()) + 1);
+
+                // Unchanged rows before the change
+                columns.copyRows(base, from, until - from);
+                from = row != null ? row + 1 : until;
+
+                Employee employee = change.getValue();
+
+                if (employee == null)
+                    continue;
+
+                if (row != null && employee.getUpdated() != null && base.updated[row] > employee.getUpdated().getTime())
+                    columns.copyRow(columns.size++, base, row);
+                else
+                    columns.set(columns.size++, employee);
+            }
+
+            columns.copyRows(base, from, base.size - from);
+
+            return snapshot(version, columns);
+        }
+
+        private EmployeeSnapshot snapshot(long version, Columns columns) {
+            return new EmployeeSnapshot(version, columns.size, columns.ids, columns.firstNames, columns.lastNames,
+                    columns.companies, columns.created, columns.updated,
+                    firstNameDictionary, lastNameDictionary, companyDictionary);
+        }
+
+        /**
+         * Mutable columns while a snapshot is built.
+         */
+        private final class Columns {
+
+            private final int[] ids;
+
+            private final int[] firstNames;
+
+            private final int[] lastNames;
+
+            private final int[] companies;
+
+            private final long[] created;
+
+            private final long[] updated;
+
+            private int size;
+
+            private Columns(int capacity) {
+                this(new int[capacity], new int[capacity], new int[capacity], new int[capacity],
+                        new long[capacity], new long[capacity], 0);
+            }
+
+            private Columns(int[] ids, int[] firstNames, int[] lastNames, int[] companies,
+                            long[] created, long[] updated, int size) {
+                this.ids = ids;
+                this.firstNames = firstNames;
+                this.lastNames = lastNames;
+                this.companies = companies;
+                this.created = created;
+                this.updated = updated;
+                this.size = size;
+            }
+
+            private Columns copy(int capacity) {
+                return new Columns(Arrays.copyOf(ids, capacity), Arrays.copyOf(firstNames, capacity),
+                        Arrays.copyOf(lastNames, capacity), Arrays.copyOf(companies, capacity),
+                        Arrays.copyOf(created, capacity), Arrays.copyOf(updated, capacity), size);
+            }
+
+            private void set(int row, Employee employee) {
+                ids[row] = employee.getId();
+                firstNames[row] = firstNameDictionary.encode(employee.getFirstName());
+                lastNames[row] = lastNameDictionary.encode(employee.getLastName());
+                companies[row] = companyDictionary.encode(employee.getCompany());
+                created[row] = time(employee.getCreated());
+                updated[row] = time(employee.getUpdated());
+            }
+
+            private void copyRow(int row, Columns source, int sourceRow) {
+                ids[row] = source.ids[sourceRow];
+                firstNames[row] = source.firstNames[sourceRow];
+                lastNames[row] = source.lastNames[sourceRow];
+                companies[row] = source.companies[sourceRow];
+                created[row] = source.created[sourceRow];
+                updated[row] = source.updated[sourceRow];
+            }
+
+            private void copyRow(int row, EmployeeSnapshot source, int sourceRow) {
+                ids[row] = source.ids[sourceRow];
+                firstNames[row] = source.firstNames[sourceRow];
+                lastNames[row] = source.lastNames[sourceRow];
+                companies[row] = source.companies[sourceRow];
+                created[row] = source.created[sourceRow];
+                updated[row] = source.updated[sourceRow];
+            }
+
+            private void copyRows(EmployeeSnapshot source, int from, int length) {
+                System.arraycopy(source.ids, from, ids, size, length);
+                System.arraycopy(source.firstNames, from, firstNames, size, length);
+                System.arraycopy(source.lastNames, from, lastNames, size, length);
+                System.arraycopy(source.companies, from, companies, size, length);
+                System.arraycopy(source.created, from, created, size, length);
+                System.arraycopy(source.updated, from, updated, size, length);
+                size += length;
+            }
+        }
+    }
+
+    /**
+     * Append-only dictionary of the strings of one column. New strings go to unused slots and used slots never
+     * change, so snapshots that share its array keep seeing the same string for each of their codes.
+     */
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        private String[] values = new String[16];
+
+        private int size;
+
+        private int encode(String value) {
+            if (value == null)
+                return NULL_STRING;
+
+            Integer code = codes.get(value);
+
+            if (code != null)
+                return code;
+
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+
+            values[size] = value;
+            codes.put(value, size);
+
+            return size++;
+        }
+    }
+}
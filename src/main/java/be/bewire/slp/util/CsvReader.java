@@ -0,0 +1,149 @@
+package be.bewire.slp.util;
+
+import be.bewire.slp.exceptions.MalformedBodyException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental RFC 4180 csv reader: one record is parsed at a time, so arbitrarily large inputs
+ * are never held in memory. Quoted fields may contain separators, doubled quotes and line breaks.
+ * Input that is not csv, a quote that is never closed or a field beyond the maximum length, is refused
+ * with a {@link be.bewire.slp.exceptions.MalformedBodyException} naming the line of the record.
+ */
+public class CsvReader implements Closeable {
+
+    private static final int NONE = -2;
+
+    private final Reader reader;
+
+    private final int maxFieldLength;
+
+    private final char[] buffer = new char[8192];
+
+    private int position;
+
+    private int limit;
+
+    private int pushedBack = NONE;
+
+    private long line = 1;
+
+    private long recordLine;
+
+    /**
+     * @param reader         csv input
+     * @param maxFieldLength maximum amount of characters in one field
+     */
+    public CsvReader(Reader reader, int maxFieldLength) {
+        this.reader = reader;
+        this.maxFieldLength = maxFieldLength;
+    }
+
+    /**
+     * Read the next record.
+     *
+     * @return the fields of the record, or null at the end of the input
+     * @throws IOException            when the input cannot be read
+     * @throws MalformedBodyException when a quote is not closed or a field is too long
+     */
+    public List<String> next() throws IOException {
+        int c = read();
+
+        if (c == -1)
+            return null;
+
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+
+        while (true) {
+            if (inQuotes) {
+                if (c == -1) {
+                    throw new MalformedBodyException(String.format("The quoted field on line %d is never closed.", recordLine));
+                } else if (c == '"') {
+                    int next = read();
+
+                    if (next == '"') {
+                        append(field, '"');
+                    } else {
+                        inQuotes = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n')
+                        line++;
+                    append(field, (char) c);
+                }
+            } else if (c == -1 || c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n')
+                        pushedBack = next;
+                }
+                if (c != -1)
+                    line++;
+
+                fields.add(field.toString());
+                return fields;
+            } else if (c == '"' && field.length() == 0) {
+                inQuotes = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                append(field, (char) c);
+            }
+
+            c = read();
+        }
+    }
+
+    /**
+     * Line number on which the last returned record started.
+     *
+     * @return line number, starting at 1
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    private void append(StringBuilder field, char c) {
+        if (field.length() == maxFieldLength)
+            throw new MalformedBodyException(String.format("A field of the record on line %d is longer than %d characters.",
+                    recordLine, maxFieldLength));
+
+        field.append(c);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != NONE) {
+            int c = pushedBack;
+            pushedBack = NONE;
+            return c;
+        }
+
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+
+        return buffer[position++];
+    }
+}
@@ -0,0 +1,109 @@
+package be.bewire.slp.util;
+
+import be.bewire.slp.deadline.Deadline;
+import be.bewire.slp.exceptions.DeadlineExceededException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Single-flight execution of identical concurrent calls.
+ * The first caller for a key runs the loader, every caller that arrives while that call is still in flight
+ * waits for its result (or its exception). Every joining caller gets its own copy of the result, so callers can
+ * never observe each other's changes to it. The pending entry is removed as soon as the call completes,
+ * so nothing is cached beyond the lifetime of one call. A joining caller with a {@link be.bewire.slp.deadline.Deadline}
+ * stops waiting when its own deadline expires, the shared call itself runs within the deadline of the first caller.
+ *
+ * @param <K> key identifying identical calls
+ * @param <V> result of the call
+ */
+public class RequestCoalescer<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+
+    /**
+     * Copies the shared result for every caller that joined the call.
+     */
+    private final UnaryOperator<V> copy;
+
+    /**
+     * @param enabled whether identical calls are coalesced at all
+     * @param copy    creates an independent copy of a result, for a joining caller
+     */
+    public RequestCoalescer(boolean enabled, UnaryOperator<V> copy) {
+        this.enabled = enabled;
+        this.copy = copy;
+    }
+
+    /**
+     * Run the loader, or join the call that is already running for the same key.
+     *
+     * @param key    key identifying identical calls
+     * @param loader call to execute when no identical call is in flight
+     * @return the result of the call, a copy of it for a caller that joined
+     */
+    public V execute(K key, Supplier<V> loader) {
+        if (!enabled)
+            return loader.get();
+
+        CompletableFuture<V> pending = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, pending);
+
+        if (existing != null)
+            return copy.apply(join(existing));
+
+        try {
+            V result = loader.get();
+            pending.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            pending.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    /**
+     * Number of calls currently in flight.
+     *
+     * @return amount of pending keys
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        Deadline deadline = Deadline.current();
+
+        try {
+            if (deadline == null)
+                return future.join();
+
+            return future.get(Math.max(0, deadline.remainingMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new DeadlineExceededException("The request deadline was exceeded while waiting for an identical call.", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an identical call.", ex);
+        } catch (CompletionException | ExecutionException ex) {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+
+            throw new IllegalStateException(cause);
+        }
+    }
+}
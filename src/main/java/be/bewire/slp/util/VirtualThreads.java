@@ -0,0 +1,56 @@
+package be.bewire.slp.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads (Java 21+) while the code base is still compiled for Java 8.
+ */
+public final class VirtualThreads {
+
+    private static final String PARALLELISM = "jdk.virtualThreadScheduler.parallelism";
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Check if the running JVM supports virtual threads.
+     *
+     * @return true on Java 21 or newer
+     */
+    public static boolean isSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Reserve carrier threads for virtual threads that are pinned inside blocking (synchronized) driver code.
+     * Only has effect before the first virtual thread is started and when the parallelism is not configured explicitly.
+     *
+     * @param pinnedCarriers maximum amount of carriers that can be pinned at the same time
+     */
+    public static void reserveCarriers(int pinnedCarriers) {
+        if (System.getProperty(PARALLELISM) == null)
+            System.setProperty(PARALLELISM, String.valueOf(Runtime.getRuntime().availableProcessors() + pinnedCarriers));
+    }
+
+    /**
+     * Executor that starts a new virtual thread for every task.
+     *
+     * @return virtual thread per task executor
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException(String.format(
+                    "Virtual threads need Java 21 or newer, running on %s.", System.getProperty("java.version")), ex);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Cannot create virtual thread executor.", ex);
+        }
+    }
+}
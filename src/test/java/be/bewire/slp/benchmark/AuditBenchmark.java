@@ -0,0 +1,78 @@
+package be.bewire.slp.benchmark;
+
+import be.bewire.slp.SlpApplication;
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.service.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write path latency of {@link be.bewire.slp.service.EmployeeServiceImpl} with the audit history on and off,
+ * against the full application on an in-memory H2 database. With auditing on every update also inserts its
+ * outbox row, and the outbox is drained in the background every second as in production.
+ * Sample-time mode reports the latency percentiles of one update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class AuditBenchmark {
+
+    private static final int EMPLOYEES = 1000;
+
+    @Param({"true", "false"})
+    public boolean audit;
+
+    private ConfigurableApplicationContext context;
+
+    private EmployeeService employeeService;
+
+    private final List<Integer> ids = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SlpApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:audit-benchmark-" + audit + ";DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.show-sql=false",
+                        "slp.r2dbc.url=r2dbc:h2:mem:///audit-benchmark",
+                        "slp.r2dbc.username=sa",
+                        "slp.r2dbc.password=",
+                        "slp.grpc.enabled=false",
+                        "slp.audit.enabled=" + audit,
+                        "logging.level.root=WARN")
+                .run();
+
+        employeeService = context.getBean(EmployeeService.class);
+
+        for (int i = 0; i < EMPLOYEES; i++)
+            ids.add(employeeService.create(new Employee("John", "Doe", "bewire")).getId());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Employee update() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = ids.get(random.nextInt(ids.size()));
+
+        return employeeService.update(new Employee(id, "John" + random.nextInt(100), "Doe", "bewire"));
+    }
+}
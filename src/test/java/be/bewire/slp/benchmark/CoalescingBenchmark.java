@@ -0,0 +1,101 @@
+package be.bewire.slp.benchmark;
+
+import be.bewire.slp.config.EmployeeProperties;
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.repository.EmployeeRepository;
+import be.bewire.slp.service.EmployeeService;
+import be.bewire.slp.service.EmployeeServiceImpl;
+import be.bewire.slp.service.EmployeeSnapshotServiceImpl;
+import be.bewire.slp.sharding.ShardRouter;
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hot-key read workload against {@link be.bewire.slp.service.EmployeeServiceImpl} with and without
+ * request coalescing. The repository is a stub that simulates a 2 ms query and counts how often it is hit.
+ * Sample-time mode reports the latency percentiles, the teardown prints database queries per lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class CoalescingBenchmark {
+
+    /**
+     * Share of lookups that go to the single hot id.
+     */
+    private static final double HOT_KEY_RATIO = 0.8;
+
+    private static final int HOT_ID = 1;
+
+    private static final int ID_RANGE = 1000;
+
+    private static final long QUERY_LATENCY_MICROS = 2000;
+
+    @Param({"true", "false"})
+    public boolean coalescing;
+
+    private final AtomicLong lookups = new AtomicLong();
+
+    private final AtomicLong queries = new AtomicLong();
+
+    private EmployeeService employeeService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        EmployeeProperties properties = new EmployeeProperties();
+        properties.setCoalescing(coalescing);
+
+        // Only reads are benchmarked, they need neither validation, transactions nor aggregates
+        ShardRouter shardRouter = new ShardRouter(Collections.singletonList((DataSource) null));
+        employeeService = new EmployeeServiceImpl(slowRepository(), properties, null, shardRouter, null, null,
+                new EmployeeSnapshotServiceImpl(null, shardRouter, properties), null);
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%ncoalescing=%s: %d lookups, %d queries (%.3f queries per lookup)%n",
+                coalescing, lookups.get(), queries.get(), (double) queries.get() / Math.max(1, lookups.get()));
+    }
+
+    @Benchmark
+    public Employee hotKeyFindById() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = random.nextDouble() < HOT_KEY_RATIO ? HOT_ID : 1 + random.nextInt(ID_RANGE);
+
+        lookups.incrementAndGet();
+        return employeeService.findById(id);
+    }
+
+    /**
+     * Repository stub that only answers the read queries used by the benchmark.
+     */
+    private EmployeeRepository slowRepository() {
+        return (EmployeeRepository) Proxy.newProxyInstance(
+                EmployeeRepository.class.getClassLoader(),
+                new Class<?>[]{EmployeeRepository.class},
+                (proxy, method, args) -> {
+                    queries.incrementAndGet();
+                    TimeUnit.MICROSECONDS.sleep(QUERY_LATENCY_MICROS);
+
+                    switch (method.getName()) {
+                        case "findById":
+                            return Optional.of(new Employee((Integer) args[0], "John", "Doe", "bewire"));
+                        case "findAll":
+                            return Collections.emptyList();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
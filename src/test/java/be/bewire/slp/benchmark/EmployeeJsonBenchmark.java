@@ -0,0 +1,102 @@
+package be.bewire.slp.benchmark;
+
+import be.bewire.slp.config.EmployeeProperties;
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.json.EmployeeJsonCache;
+import be.bewire.slp.json.EmployeeJsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization cost of one employee and of a list of 100 employees with the default Jackson bean serializer,
+ * the specialized {@link be.bewire.slp.json.EmployeeJsonSerializer} and the {@link be.bewire.slp.json.EmployeeJsonCache}.
+ * Run with {@code -prof gc} to compare the allocation rate as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeJsonBenchmark {
+
+    private static final int LIST_SIZE = 100;
+
+    private ObjectMapper defaultMapper;
+
+    private ObjectMapper specializedMapper;
+
+    private EmployeeJsonCache cache;
+
+    private Employee employee;
+
+    private List<Employee> employees;
+
+    @Setup
+    public void setUp() {
+        defaultMapper = new ObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        specializedMapper = new ObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .registerModule(new SimpleModule().addSerializer(Employee.class, new EmployeeJsonSerializer()));
+
+        EmployeeProperties properties = new EmployeeProperties();
+        properties.getJsonCache().setEnabled(true);
+        cache = new EmployeeJsonCache(specializedMapper, properties);
+
+        employees = new ArrayList<>(LIST_SIZE);
+        for (int id = 1; id <= LIST_SIZE; id++) {
+            Employee next = new Employee(id, "John" + id, "Doe", id % 2 == 0 ? "bewire" : "c4j");
+            next.setCreated(new Date(1581330930123L + id));
+            next.setUpdated(new Date(1581330930123L + id * 1000L));
+            employees.add(next);
+        }
+        employee = employees.get(0);
+    }
+
+    @Benchmark
+    public byte[] singleDefault() throws Exception {
+        return defaultMapper.writeValueAsBytes(employee);
+    }
+
+    @Benchmark
+    public byte[] singleSpecialized() throws Exception {
+        return specializedMapper.writeValueAsBytes(employee);
+    }
+
+    @Benchmark
+    public byte[] singleCached() throws Exception {
+        return cache.toJson(employee);
+    }
+
+    @Benchmark
+    public byte[] listDefault() throws Exception {
+        return defaultMapper.writeValueAsBytes(employees);
+    }
+
+    @Benchmark
+    public byte[] listSpecialized() throws Exception {
+        return specializedMapper.writeValueAsBytes(employees);
+    }
+
+    @Benchmark
+    public byte[] listCached() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128 * LIST_SIZE);
+        out.write('[');
+
+        for (int i = 0; i < employees.size(); i++) {
+            if (i > 0)
+                out.write(',');
+            out.write(cache.toJson(employees.get(i)));
+        }
+
+        out.write(']');
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,114 @@
+package be.bewire.slp.benchmark;
+
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.snapshot.EmployeeSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads from an {@link be.bewire.slp.snapshot.EmployeeSnapshot} of a million employees, on one thread and on
+ * every core, while a writer publishes a changed employee every millisecond. Names come from pools of
+ * realistic size, so the dictionaries are as large as they would be for a real directory.
+ * The setup prints the estimated snapshot size per million employees and the time to publish one change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class EmployeeSnapshotBenchmark {
+
+    private static final int EMPLOYEES = 1_000_000;
+
+    private static final int FIRST_NAMES = 5_000;
+
+    private static final int LAST_NAMES = 50_000;
+
+    private static final int COMPANIES = 50;
+
+    private static final long PUBLISH_INTERVAL_MILLIS = 1;
+
+    private volatile EmployeeSnapshot snapshot;
+
+    private Thread publisher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        EmployeeSnapshot.Writer writer = new EmployeeSnapshot.Writer();
+
+        for (int id = 1; id <= EMPLOYEES; id++)
+            writer.add(employee(id));
+
+        snapshot = writer.build(1);
+
+        System.out.printf("%nsnapshot of %d employees: about %d MB per million employees%n",
+                snapshot.size(), snapshot.estimateBytes() * 1_000_000 / snapshot.size() / (1024 * 1024));
+
+        publisher = new Thread(() -> publish(writer));
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        publisher.interrupt();
+        publisher.join();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Employee findByIdOneThread() {
+        return snapshot.find(1 + ThreadLocalRandom.current().nextInt(EMPLOYEES));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Employee findByIdAllCores() {
+        return snapshot.find(1 + ThreadLocalRandom.current().nextInt(EMPLOYEES));
+    }
+
+    /**
+     * Keep publishing changed employees, the way committed updates are published.
+     */
+    private void publish(EmployeeSnapshot.Writer writer) {
+        long published = 0;
+        long nanos = 0;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            int id = 1 + ThreadLocalRandom.current().nextInt(EMPLOYEES);
+            SortedMap<Integer, Employee> changes = new TreeMap<>();
+            changes.put(id, employee(id));
+
+            long started = System.nanoTime();
+            snapshot = writer.apply(snapshot, snapshot.getVersion() + 1, changes);
+            nanos += System.nanoTime() - started;
+            published++;
+
+            try {
+                Thread.sleep(PUBLISH_INTERVAL_MILLIS);
+            } catch (InterruptedException ex) {
+                break;
+            }
+        }
+
+        System.out.printf("%npublished %d changes, %.2f ms per publish%n", published, nanos / 1e6 / Math.max(1, published));
+    }
+
+    private static Employee employee(int id) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Employee employee = new Employee(id,
+                "First" + random.nextInt(FIRST_NAMES),
+                "Last" + random.nextInt(LAST_NAMES),
+                "Company" + random.nextInt(COMPANIES));
+        employee.setCreated(new Date());
+        employee.setUpdated(employee.getCreated());
+
+        return employee;
+    }
+}
@@ -0,0 +1,107 @@
+package be.bewire.slp.benchmark;
+
+import be.bewire.slp.sharding.ShardContext;
+import be.bewire.slp.sharding.ShardRouter;
+import be.bewire.slp.sharding.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput as shards are added. Every shard is an in-memory H2 database behind a pool of 4 connections,
+ * and every query holds its connection for 1 ms like a round trip to a real server, so one shard saturates at
+ * about 4000 queries per second. Single-id lookups should scale with the shards, scatter-gather listings
+ * pay for the slowest shard.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class ShardingBenchmark {
+
+    private static final int POOL_SIZE = 4;
+
+    private static final int EMPLOYEES_PER_SHARD = 1000;
+
+    private static final int QUERY_LATENCY_MILLIS = 1;
+
+    @Param({"1", "2", "3", "4", "5", "6", "7", "8"})
+    public int shards;
+
+    private final List<HikariDataSource> databases = new ArrayList<>();
+
+    private ShardRouter shardRouter;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int shard = 0; shard < shards; shard++) {
+            HikariDataSource database = new HikariDataSource();
+            database.setJdbcUrl("jdbc:h2:mem:shard-benchmark-" + shard + ";DB_CLOSE_DELAY=-1");
+            database.setMaximumPoolSize(POOL_SIZE);
+
+            JdbcTemplate shardTemplate = new JdbcTemplate(database);
+            shardTemplate.execute("CREATE ALIAS IF NOT EXISTS SLEEP_MS FOR \"" + ShardingBenchmark.class.getName() + ".sleep\"");
+            shardTemplate.execute("DROP TABLE IF EXISTS employee");
+            shardTemplate.execute("CREATE TABLE employee (id INT PRIMARY KEY, first_name VARCHAR(255))");
+
+            for (int sequence = 1; sequence <= EMPLOYEES_PER_SHARD; sequence++)
+                shardTemplate.update("INSERT INTO employee VALUES (?, 'John')", ShardRouter.encodeId(sequence, shard));
+
+            databases.add(database);
+        }
+
+        List<DataSource> shardDataSources = new ArrayList<>(databases);
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(shardDataSources);
+        routing.afterPropertiesSet();
+
+        shardRouter = new ShardRouter(shardDataSources);
+        jdbcTemplate = new JdbcTemplate(routing);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        shardRouter.shutdown();
+        databases.forEach(HikariDataSource::close);
+    }
+
+    @Benchmark
+    public String findById() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = ShardRouter.encodeId(1 + random.nextInt(EMPLOYEES_PER_SHARD), random.nextInt(shards));
+
+        return ShardContext.call(shardRouter.shardOf(id), () -> jdbcTemplate.queryForObject(
+                "SELECT first_name FROM employee WHERE id = ? AND SLEEP_MS(?) = 0", String.class, id, QUERY_LATENCY_MILLIS));
+    }
+
+    @Benchmark
+    public int countAll() {
+        return shardRouter.onAllShards(shard -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) + SLEEP_MS(?) FROM employee", Integer.class, QUERY_LATENCY_MILLIS))
+                .stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    /**
+     * Stands in for the network and server time of a query, called from H2.
+     *
+     * @param millis time to wait
+     * @return 0
+     * @throws InterruptedException when interrupted
+     */
+    public static int sleep(int millis) throws InterruptedException {
+        Thread.sleep(millis);
+        return 0;
+    }
+}
@@ -0,0 +1,125 @@
+package be.bewire.slp.benchmark;
+
+import be.bewire.slp.jdbc.PermitDataSource;
+import be.bewire.slp.util.VirtualThreads;
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 10k concurrent clients against the request execution modes: the default 200-thread Tomcat-sized pool versus
+ * a virtual thread per request (needs Java 21). Every request waits 50 ms on a slow client and does one 2 ms
+ * database round trip through a {@link be.bewire.slp.jdbc.PermitDataSource} with 10 permits (the pool size).
+ * The score is the time to serve all clients, the teardown prints the peak platform threads and heap in use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx1g"})
+public class VirtualThreadBenchmark {
+
+    private static final int CLIENTS = 10_000;
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    private static final int POOL_SIZE = 10;
+
+    private static final long CLIENT_LATENCY_MILLIS = 50;
+
+    private static final long QUERY_LATENCY_MILLIS = 2;
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    private ExecutorService executor;
+
+    private DataSource dataSource;
+
+    private long peakHeapBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (mode.equals("virtual")) {
+            VirtualThreads.reserveCarriers(POOL_SIZE);
+            executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+        } else {
+            executor = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        }
+
+        dataSource = new PermitDataSource(slowDataSource(), POOL_SIZE);
+    }
+
+    @TearDown(Level.Iteration)
+    public void sampleMemory() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        peakHeapBytes = Math.max(peakHeapBytes, memory.getHeapMemoryUsage().getUsed());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        System.out.printf("%nmode=%s: peak platform threads %d, peak heap %d MB%n",
+                mode, threads.getPeakThreadCount(), peakHeapBytes / (1024 * 1024));
+
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int serveClients() throws Exception {
+        List<Future<Boolean>> requests = new ArrayList<>(CLIENTS);
+
+        for (int client = 0; client < CLIENTS; client++)
+            requests.add(executor.submit(this::handleRequest));
+
+        int served = 0;
+        for (Future<Boolean> request : requests)
+            if (request.get())
+                served++;
+
+        return served;
+    }
+
+    private boolean handleRequest() throws Exception {
+        // Reading the request from (and writing the response to) a slow client
+        Thread.sleep(CLIENT_LATENCY_MILLIS);
+
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.isValid(0);
+        }
+    }
+
+    /**
+     * Data source stub whose connections take one database round trip to answer {@code isValid}.
+     */
+    private static DataSource slowDataSource() {
+        Connection connection = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("isValid")) {
+                        Thread.sleep(QUERY_LATENCY_MILLIS);
+                        return true;
+                    }
+                    return null;
+                });
+
+        return (DataSource) Proxy.newProxyInstance(
+                DataSource.class.getClassLoader(),
+                new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> method.getName().equals("getConnection") ? connection : null);
+    }
+}
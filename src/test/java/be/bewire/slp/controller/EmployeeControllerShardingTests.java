@@ -0,0 +1,119 @@
+package be.bewire.slp.controller;
+
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.repository.ReactiveEmployeeRepository;
+import be.bewire.slp.sharding.ShardContext;
+import be.bewire.slp.sharding.ShardRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration testing of {@link be.bewire.slp.controller.EmployeeController} on two embedded shards,
+ * with the idempotency keys in the database of the primary shard.
+ */
+@SpringBootTest(properties = {
+        "slp.sharding.enabled=true",
+        "slp.sharding.shards[0].url=jdbc:h2:mem:controller-sharding-0;DB_CLOSE_DELAY=-1",
+        "slp.sharding.shards[1].url=jdbc:h2:mem:controller-sharding-1;DB_CLOSE_DELAY=-1",
+        "slp.sharding.shards[1].r2dbc-url=r2dbc:h2:mem:///controller-sharding-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "slp.r2dbc.url=r2dbc:h2:mem:///controller-sharding-0",
+        "slp.r2dbc.username=sa",
+        "slp.r2dbc.password=",
+        "slp.grpc.enabled=false",
+        "slp.audit.drain-interval-millis=3600000",
+        "slp.idempotency.store=database"
+})
+@AutoConfigureMockMvc
+public class EmployeeControllerShardingTests {
+
+    private static final String API_URL = "/api/employee/";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReactiveEmployeeRepository reactiveEmployeeRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * The idempotency key is stored on the primary shard first, the employee should still be written to its own shard.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void givenIdempotencyKey_whenCreate_thenWriteToShardOfCompany() throws Exception {
+        // Arrange
+        String company = Arrays.asList("bewire", "c4j", "evance", "ordina", "jworks", "cronos").stream()
+                .filter(name -> shardRouter.shardForCompany(name) == 1)
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+        Employee employee = new Employee("John", "Doe", company);
+
+        // Act
+        String body = mvc.perform(MockMvcRequestBuilders.post(API_URL)
+                .header("Idempotency-Key", "sharded-create")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(employee)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        int id = objectMapper.readTree(body).get("id").asInt();
+
+        // Assert
+        assertEquals(1, shardRouter.shardOf(id));
+        assertEquals(Integer.valueOf(1), ShardContext.call(1, () -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM employee WHERE id = ?", Integer.class, id)));
+        assertEquals(Integer.valueOf(0), ShardContext.call(ShardContext.PRIMARY, () -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM employee", Integer.class)));
+        assertEquals(Integer.valueOf(1), ShardContext.call(ShardContext.PRIMARY, () -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM idempotency_record", Integer.class)));
+    }
+
+    /**
+     * The reactive findAll should merge the rows of the shards by id.
+     */
+    @Test
+    public void givenEmployeesOnBothShards_whenReactiveFindAll_thenOrderById() {
+        // Arrange
+        int[][] rows = {{3, 0}, {1, 1}, {2, 0}, {5, 1}, {4, 0}};
+        for (int[] row : rows) {
+            int id = ShardRouter.encodeId(1000 + row[0], row[1]);
+            ShardContext.run(row[1], () -> jdbcTemplate.update(
+                    "INSERT INTO employee (id, first_name, last_name) VALUES (?, 'John', 'Doe')", id));
+        }
+
+        // Act
+        List<Integer> ids = reactiveEmployeeRepository.findAll()
+                .map(Employee::getId)
+                .filter(id -> id >= ShardRouter.encodeId(1000, 0))
+                .collectList()
+                .block();
+
+        // Assert
+        assertEquals(Arrays.stream(rows).map(row -> ShardRouter.encodeId(1000 + row[0], row[1])).sorted().collect(Collectors.toList()), ids);
+    }
+}
@@ -0,0 +1,264 @@
+package be.bewire.slp.controller;
+
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.jdbc.SqlRecorder;
+import be.bewire.slp.repository.EmployeeRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL budget of every {@link be.bewire.slp.controller.EmployeeController} route, against an embedded database.
+ * Each route declares how many database round trips one call may take, a route that takes more or runs the same
+ * query more than once (N+1) fails the build. Lower a budget when a route gets cheaper, never raise one silently.
+ * Every budget is the exact count of a passing run on H2, its comment lists the round trips in execution order;
+ * a failure prints the SQL of every round trip, which is how a new budget is derived.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sql-budget;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "slp.r2dbc.url=r2dbc:h2:mem:///sql-budget",
+        "slp.r2dbc.username=sa",
+        "slp.r2dbc.password=",
+        "slp.grpc.enabled=false",
+        "slp.audit.drain-interval-millis=3600000"
+})
+@AutoConfigureMockMvc
+public class EmployeeControllerSqlBudgetTests {
+
+    /**
+     * One select, whatever the amount of employees or companies.
+     */
+    private static final int FIND_ALL_BUDGET = 1;
+
+    private static final int FIND_BY_ID_BUDGET = 1;
+
+    /**
+     * One {@code IN} query per chunk of ids.
+     */
+    private static final int FIND_ALL_BY_ID_BUDGET = 1;
+
+    /**
+     * Select and update of the id sequence, insert of the employee, insert into the audit outbox.
+     */
+    private static final int CREATE_BUDGET = 4;
+
+    /**
+     * Select of the current employee (also the existence check), update of the changed columns, insert into the audit outbox.
+     */
+    private static final int UPDATE_BUDGET = 3;
+
+    /**
+     * Select, update of the changed columns, insert into the audit outbox.
+     */
+    private static final int PATCH_BUDGET = 3;
+
+    /**
+     * Select (also the existence check), delete, insert into the audit outbox.
+     */
+    private static final int DELETE_BUDGET = 3;
+
+    private static final String API_URL = "/api/employee/";
+
+    private static final SqlRecorder recorder = new SqlRecorder();
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<Employee> employees;
+
+    @TestConfiguration
+    static class RecordingConfig {
+
+        @Bean
+        public static BeanPostProcessor sqlRecordingPostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? recorder.wrap((DataSource) bean) : bean;
+                }
+            };
+        }
+    }
+
+    @BeforeEach
+    public void seed() {
+        employeeRepository.deleteAll();
+
+        employees = new ArrayList<>();
+        for (Employee employee : employeeRepository.saveAll(Arrays.asList(
+                new Employee("John", "Doe", "bewire"),
+                new Employee("Sarah", "Doe", "c4j"),
+                new Employee("Richard", "Doe", "evance"))))
+            employees.add(employee);
+    }
+
+    /**
+     * Listing all employees should take one query, also with many employees of many companies.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void findAll_withinBudget() throws Exception {
+        // Arrange
+        List<Employee> more = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            more.add(new Employee("Employee" + i, "Doe", "company" + i % 5));
+        employeeRepository.saveAll(more);
+
+        // Act & Assert
+        assertRoute("GET /api/employee", FIND_ALL_BUDGET, MockMvcRequestBuilders.get(API_URL));
+    }
+
+    /**
+     * Test the SQL budget of findById.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void findById_withinBudget() throws Exception {
+        // Arrange
+        int id = employees.get(0).getId();
+
+        // Act & Assert
+        assertRoute("GET /api/employee/{id}", FIND_BY_ID_BUDGET, MockMvcRequestBuilders.get(API_URL + id));
+    }
+
+    /**
+     * Test the SQL budget of findById with an unknown id.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void findByUnknownId_withinBudget() throws Exception {
+        // Act & Assert
+        recorder.start();
+        mvc.perform(MockMvcRequestBuilders.get(API_URL + 99999)).andExpect(status().isNotFound());
+        SqlRecorder.assertWithinBudget("GET /api/employee/{id} (unknown)", FIND_BY_ID_BUDGET, recorder.stop());
+    }
+
+    /**
+     * Looking up many employees should take one query, not one per id.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void findAllById_withinBudget() throws Exception {
+        // Arrange
+        String ids = employees.get(0).getId() + "," + employees.get(1).getId() + "," + employees.get(2).getId() + ",99999";
+
+        // Act & Assert
+        assertRoute("GET /api/employee?ids=", FIND_ALL_BY_ID_BUDGET, MockMvcRequestBuilders.get(API_URL).param("ids", ids));
+    }
+
+    /**
+     * Test the SQL budget of the POST lookup.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void lookup_withinBudget() throws Exception {
+        // Arrange
+        List<Integer> ids = Arrays.asList(employees.get(0).getId(), employees.get(2).getId());
+
+        // Act & Assert
+        assertRoute("POST /api/employee/lookup", FIND_ALL_BY_ID_BUDGET, MockMvcRequestBuilders.post(API_URL + "lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ids)));
+    }
+
+    /**
+     * Test the SQL budget of create.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void create_withinBudget() throws Exception {
+        // Arrange
+        Employee employee = new Employee("Jane", "Doe", "bewire");
+
+        // Act & Assert
+        assertRoute("POST /api/employee", CREATE_BUDGET, MockMvcRequestBuilders.post(API_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(employee)));
+    }
+
+    /**
+     * Test the SQL budget of update.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void update_withinBudget() throws Exception {
+        // Arrange
+        Employee employee = employees.get(0);
+        Employee changed = new Employee(employee.getId(), employee.getFirstName(), "Smith", "c4j");
+
+        // Act & Assert
+        assertRoute("PUT /api/employee/{id}", UPDATE_BUDGET, MockMvcRequestBuilders.put(API_URL + employee.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(changed)));
+    }
+
+    /**
+     * Test the SQL budget of patch.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void patch_withinBudget() throws Exception {
+        // Arrange
+        int id = employees.get(1).getId();
+
+        // Act & Assert
+        assertRoute("PATCH /api/employee/{id}", PATCH_BUDGET, MockMvcRequestBuilders.patch(API_URL + id)
+                .contentType("application/merge-patch+json")
+                .content("{\"lastName\": \"Smith\"}"));
+    }
+
+    /**
+     * Test the SQL budget of delete.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void delete_withinBudget() throws Exception {
+        // Arrange
+        int id = employees.get(2).getId();
+
+        // Act & Assert
+        assertRoute("DELETE /api/employee/{id}", DELETE_BUDGET, MockMvcRequestBuilders.delete(API_URL + id));
+    }
+
+    private void assertRoute(String route, int budget, MockHttpServletRequestBuilder request) throws Exception {
+        recorder.start();
+        mvc.perform(request).andExpect(status().isOk());
+
+        SqlRecorder.assertWithinBudget(route, budget, recorder.stop());
+    }
+}
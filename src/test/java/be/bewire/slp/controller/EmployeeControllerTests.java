@@ -1,27 +1,39 @@
 package be.bewire.slp.controller;
 
 import be.bewire.slp.domain.Employee;
+import be.bewire.slp.domain.EmployeeLookup;
+import be.bewire.slp.exceptions.DeadlineExceededException;
 import be.bewire.slp.exceptions.MalformedBodyException;
 import be.bewire.slp.exceptions.ResourceNotFoundException;
 import be.bewire.slp.service.EmployeeService;
+import be.bewire.slp.service.EmployeeSnapshotService;
+import be.bewire.slp.service.IdempotencyStore;
+import be.bewire.slp.snapshot.EmployeeSnapshot;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.CannotCreateTransactionException;
 
+import java.sql.SQLTransientConnectionException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -47,6 +59,18 @@ public class EmployeeControllerTests {
     @MockBean
     private EmployeeService service;
 
+    /**
+     * Mock of the idempotency store
+     */
+    @MockBean
+    private IdempotencyStore idempotencyStore;
+
+    /**
+     * Mock of the employee snapshot
+     */
+    @MockBean
+    private EmployeeSnapshotService employeeSnapshotService;
+
     /**
      * Base url of the api
      */
@@ -79,6 +103,49 @@ public class EmployeeControllerTests {
         verify(service, times(1)).findAll();
     }
 
+    /**
+     * Test the basic flow of findAllByCompany.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenGetUsersOfCompany_thenResponseWithUsersOfCompany() throws Exception {
+        // Arrange
+        given(service.findAllByCompany("c4j"))
+                .willReturn(Collections.singletonList(new Employee(2, "Sarah", "Doe", "c4j")));
+
+        // Act & Assert
+        mvc.perform(MockMvcRequestBuilders.get(API_URL)
+                .param("company", "c4j")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].company", is("c4j")))
+                .andExpect(MockMvcResultMatchers.header().doesNotExist("X-Snapshot-Version"));
+
+        verify(service, times(1)).findAllByCompany("c4j");
+    }
+
+    /**
+     * Test that reads served from the snapshot carry its version.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenSnapshotLoaded_thenResponseWithSnapshotVersion() throws Exception {
+        // Arrange
+        given(employeeSnapshotService.current())
+                .willReturn(new EmployeeSnapshot.Writer().build(7));
+        given(service.findById(1))
+                .willReturn(new Employee(1, "John", "Doe", "bewire"));
+
+        // Act & Assert
+        mvc.perform(MockMvcRequestBuilders.get(API_URL + 1)
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("X-Snapshot-Version", "7"));
+    }
+
     /**
      * Test the basic flow of findById.
      *
@@ -123,6 +190,80 @@ public class EmployeeControllerTests {
         verify(service, times(1)).findById(id);
     }
 
+    /**
+     * Test that findById gives 504 status when a query is cancelled at the request deadline,
+     * also when the persistence layer wrapped the timeout.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenGetUserPastDeadline_thenReturn504() throws Exception {
+        // Arrange
+        int id = 1;
+
+        given(service.findById(id))
+                .willThrow(new QueryTimeoutException("Query cancelled."))
+                .willThrow(new CannotCreateTransactionException("Could not open JPA EntityManager for transaction",
+                        new DeadlineExceededException("The request deadline was exceeded.")));
+
+        // Act & Assert
+        mvc.perform(MockMvcRequestBuilders.get(API_URL + id)
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isGatewayTimeout());
+        mvc.perform(MockMvcRequestBuilders.get(API_URL + id)
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isGatewayTimeout());
+    }
+
+    /**
+     * Test that findById gives 503 status when no connection is available before the request deadline.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenGetUserWithoutConnection_thenReturn503() throws Exception {
+        // Arrange
+        int id = 1;
+
+        given(service.findById(id))
+                .willThrow(new CannotCreateTransactionException("Could not open JPA EntityManager for transaction",
+                        new SQLTransientConnectionException("Connection is not available, request timed out after 500ms.")));
+
+        // Act & Assert
+        mvc.perform(MockMvcRequestBuilders.get(API_URL + id)
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    /**
+     * Test the basic flow of findAllById.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenGetUsersByIds_thenResponseWithFoundAndMissingUsers() throws Exception {
+        // Arrange
+        EmployeeLookup expected = new EmployeeLookup(
+                Collections.singletonList(new Employee(1, "John", "Doe", "bewire")),
+                Collections.singletonList(99)
+        );
+
+        given(service.findAllById(Arrays.asList(1, 99)))
+                .willReturn(expected);
+
+        // Act & Assert
+        mvc.perform(MockMvcRequestBuilders.get(API_URL)
+                .param("ids", "1,99")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.found", hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.found[0].id", is(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.missing[0]", is(99)));
+
+        verify(service, times(1)).findAllById(Arrays.asList(1, 99));
+        verify(service, times(0)).findAll();
+    }
+
     /**
      * Test the basic flow of create.
      *
@@ -148,6 +289,64 @@ public class EmployeeControllerTests {
         verify(service, times(1)).create(Mockito.any(Employee.class));
     }
 
+    /**
+     * Create with an Idempotency-Key should run through the idempotency store.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenCreateWithIdempotencyKey_thenExecuteThroughIdempotencyStore() throws Exception {
+        // Arrange
+        Employee body = new Employee("John", "Doe", "bewire");
+        Employee expected = new Employee(1, "John", "Doe", "bewire");
+
+        given(service.create(Mockito.any(Employee.class)))
+                .willReturn(expected);
+        given(idempotencyStore.execute(Mockito.eq("retry-1"), Mockito.anyString(), Mockito.eq(Employee.class), Mockito.any()))
+                .willAnswer(invocation -> ((Supplier<?>) invocation.getArgument(3)).get());
+
+        // Act & Assert
+        mvc.perform(MockMvcRequestBuilders.post(API_URL)
+                .header("Idempotency-Key", "retry-1")
+                .content(asJsonString(body))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id", is(1)));
+
+        verify(idempotencyStore, times(1)).execute(Mockito.eq("retry-1"), Mockito.anyString(), Mockito.eq(Employee.class), Mockito.any());
+        verify(service, times(1)).create(Mockito.any(Employee.class));
+    }
+
+    /**
+     * The fingerprint should be a SHA-256 of the body, equal for the same body in another layout
+     * and different for another body.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenCreateWithIdempotencyKey_thenFingerprintIsSha256OfBody() throws Exception {
+        // Arrange
+        ArgumentCaptor<String> fingerprints = ArgumentCaptor.forClass(String.class);
+        List<String> bodies = Arrays.asList(
+                "{\"firstName\":\"John\",\"lastName\":\"Doe\",\"company\":\"bewire\"}",
+                "{ \"company\" : \"bewire\", \"lastName\" : \"Doe\", \"firstName\" : \"John\" }",
+                "{\"firstName\":\"John\",\"lastName\":\"Doe\",\"company\":\"c4j\"}");
+
+        // Act
+        for (String body : bodies)
+            mvc.perform(MockMvcRequestBuilders.post(API_URL)
+                    .header("Idempotency-Key", "retry-1")
+                    .content(body)
+                    .contentType(MediaType.APPLICATION_JSON));
+
+        // Assert
+        verify(idempotencyStore, times(3)).execute(Mockito.eq("retry-1"), fingerprints.capture(), Mockito.eq(Employee.class), Mockito.any());
+        assertTrue(fingerprints.getAllValues().get(0).matches("[0-9a-f]{64}"));
+        assertEquals(fingerprints.getAllValues().get(0), fingerprints.getAllValues().get(1));
+        assertNotEquals(fingerprints.getAllValues().get(0), fingerprints.getAllValues().get(2));
+    }
+
     /**
      * Create should give 500 status if there is an id in the request body.
      *
@@ -239,6 +438,30 @@ public class EmployeeControllerTests {
         verify(service, times(0)).update(Mockito.any(Employee.class));
     }
 
+    /**
+     * Test the basic flow of patch.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenPatch_thenReturnPatchedEmployee() throws Exception {
+        // Arrange
+        Employee expected = new Employee(1, "John", "Doe", "evance");
+
+        given(service.patch(Mockito.eq(1), Mockito.anyMap()))
+                .willReturn(expected);
+
+        // Act & Assert
+        mvc.perform(MockMvcRequestBuilders.patch(API_URL + 1)
+                .content("{\"company\":\"evance\"}")
+                .contentType("application/merge-patch+json")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.company", is("evance")));
+
+        verify(service, times(1)).patch(Mockito.eq(1), Mockito.anyMap());
+    }
+
     /**
      * Test the basic flow of delete.
      *
@@ -0,0 +1,129 @@
+package be.bewire.slp.controller;
+
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.exceptions.ResourceNotFoundException;
+import be.bewire.slp.service.EmployeeSnapshotService;
+import be.bewire.slp.service.ReactiveEmployeeService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit testing for {@link be.bewire.slp.controller.EmployeeV2Controller}
+ */
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(EmployeeV2Controller.class)
+public class EmployeeV2ControllerTests {
+
+    /**
+     * Mock object to simulate http requests
+     */
+    @Autowired
+    private MockMvc mvc;
+
+    /**
+     * Mock of the reactive employee services
+     */
+    @MockBean
+    private ReactiveEmployeeService service;
+
+    /**
+     * Mock of the employee snapshot, used by the snapshot version advice
+     */
+    @MockBean
+    private EmployeeSnapshotService employeeSnapshotService;
+
+    /**
+     * Base url of the api
+     */
+    private static final String API_URL = "/api/v2/employee/";
+
+    /**
+     * Test the basic flow of findAll.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenGetUsers_thenResponseWithUsers() throws Exception {
+        // Arrange
+        given(service.findAll())
+                .willReturn(Flux.just(
+                        new Employee(1, "John", "Doe", "bewire"),
+                        new Employee(2, "Sarah", "Doe", "c4j")));
+
+        // Act
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(API_URL)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(2)));
+
+        verify(service, times(1)).findAll();
+    }
+
+    /**
+     * Test the basic flow of findById.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenGetUserById_thenResponseWithOneUser() throws Exception {
+        // Arrange
+        given(service.findById(1))
+                .willReturn(Mono.just(new Employee(1, "John", "Doe", "bewire")));
+
+        // Act
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(API_URL + 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id", is(1)));
+    }
+
+    /**
+     * Test that errors are mapped like on the blocking api.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenGetUserByIncorrectId_thenReturn404() throws Exception {
+        // Arrange
+        given(service.findById(99))
+                .willReturn(Mono.error(new ResourceNotFoundException("No employee with id 99.")));
+
+        // Act
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(API_URL + 99))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+}
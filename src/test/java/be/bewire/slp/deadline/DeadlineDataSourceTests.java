@@ -0,0 +1,191 @@
+package be.bewire.slp.deadline;
+
+import be.bewire.slp.config.ApplicationExceptionHandler;
+import be.bewire.slp.exceptions.DeadlineExceededException;
+import com.zaxxer.hikari.HikariDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for {@link be.bewire.slp.deadline.DeadlineDataSource} against slow queries on a local database
+ */
+public class DeadlineDataSourceTests {
+
+    /**
+     * Cross join of two million-row ranges, runs far longer than any deadline of the tests.
+     */
+    private static final String SLOW_QUERY = "SELECT SUM(a.X * b.X) FROM SYSTEM_RANGE(1, 1000000) a, SYSTEM_RANGE(1, 1000000) b";
+
+    /**
+     * A slow query should be cancelled on the database once the deadline has passed, and reported as a query timeout.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void givenDeadline_whenSlowQuery_thenCancelledAtDeadline() throws Exception {
+        // Arrange
+        JdbcDataSource h2 = h2("slow-query");
+        // Eager like the templates of the application (see DeadlineConfig), translating needs no connection
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DeadlineDataSource(h2, 10, 30000), false);
+        long start = System.nanoTime();
+
+        // Act
+        assertThrows(QueryTimeoutException.class,
+                () -> Deadline.run(Deadline.after(Duration.ofSeconds(1)), () -> jdbcTemplate.queryForObject(SLOW_QUERY, Long.class)));
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // Assert
+        assertTrue(elapsedMillis < 5000, "Query ran for " + elapsedMillis + " ms");
+        assertEquals(0, new JdbcTemplate(h2).queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS WHERE STATEMENT = ?", Integer.class, SLOW_QUERY));
+    }
+
+    /**
+     * Statements should get the remaining budget as timeout, and none without a deadline.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void givenDeadline_whenCreateStatement_thenRemainingBudgetIsQueryTimeout() throws Exception {
+        // Arrange
+        DeadlineDataSource dataSource = new DeadlineDataSource(h2("query-timeout"), 10, 30000);
+
+        // Act
+        int withDeadline = Deadline.call(Deadline.after(Duration.ofMillis(2500)), () -> queryTimeout(dataSource));
+        int withoutDeadline = queryTimeout(dataSource);
+
+        // Assert
+        assertEquals(3, withDeadline);
+        assertEquals(0, withoutDeadline);
+    }
+
+    /**
+     * No connection should be handed out once the deadline has passed.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void givenExpiredDeadline_whenGetConnection_thenDeadlineExceeded() throws Exception {
+        // Arrange
+        DeadlineDataSource dataSource = new DeadlineDataSource(h2("expired"), 10, 30000);
+        Deadline expired = Deadline.after(Duration.ofMillis(-1));
+
+        // Act & Assert
+        assertThrows(DeadlineExceededException.class, () -> Deadline.run(expired, () -> queryTimeout(dataSource)));
+    }
+
+    /**
+     * Waiting for an exhausted pool should end at the deadline instead of the connection timeout of the pool.
+     * Connections are only handed out through the gate, so the pool itself is never waited on.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void givenExhaustedPool_whenGetConnection_thenWaitUntilDeadline() throws Exception {
+        // Arrange
+        HikariDataSource pool = new HikariDataSource();
+        pool.setDataSource(h2("exhausted"));
+        pool.setMaximumPoolSize(1);
+        pool.setConnectionTimeout(30000);
+
+        DeadlineDataSource dataSource = new DeadlineDataSource(pool, pool.getMaximumPoolSize(), pool.getConnectionTimeout());
+
+        try (HikariDataSource closing = pool; Connection held = dataSource.getConnection()) {
+            long start = System.nanoTime();
+
+            // Act
+            Exception thrown = Deadline.call(Deadline.after(Duration.ofMillis(500)), () -> {
+                try (Connection connection = dataSource.getConnection()) {
+                    return null;
+                } catch (Exception ex) {
+                    return ex;
+                }
+            });
+            long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+            // Assert
+            assertTrue(thrown instanceof SQLTransientConnectionException);
+            assertTrue(elapsedMillis < 5000, "Waited " + elapsedMillis + " ms for a connection");
+        }
+    }
+
+    /**
+     * Closing a connection should give its place back, also when it is closed twice.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenConnectionClosed_thenNextCallerGetsConnection() throws Exception {
+        // Arrange
+        DeadlineDataSource dataSource = new DeadlineDataSource(h2("released"), 1, 200);
+        Connection first = dataSource.getConnection();
+
+        // Act
+        first.close();
+        first.close();
+
+        // Assert
+        try (Connection second = dataSource.getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        }
+        dataSource.getConnection().close();
+    }
+
+    /**
+     * Expired work should be answered with a 504, a request that cannot get a connection in time with a 503.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void givenDeadlineOutcomes_whenHandled_thenGatewayTimeoutOrServiceUnavailable() throws Exception {
+        // Arrange
+        ApplicationExceptionHandler handler = new ApplicationExceptionHandler();
+        HikariDataSource pool = new HikariDataSource();
+        pool.setDataSource(h2("outcomes"));
+        pool.setMaximumPoolSize(1);
+        DeadlineDataSource gated = new DeadlineDataSource(pool, pool.getMaximumPoolSize(), pool.getConnectionTimeout());
+        JdbcTemplate exhausted = new JdbcTemplate(gated, false);
+        JdbcTemplate expired = new JdbcTemplate(new DeadlineDataSource(h2("outcomes"), 10, 30000), false);
+
+        try (HikariDataSource closing = pool; Connection held = gated.getConnection()) {
+            // Act
+            Exception noConnection = assertThrows(Exception.class, () -> Deadline.run(Deadline.after(Duration.ofMillis(200)),
+                    () -> exhausted.queryForObject("SELECT 1", Integer.class)));
+            Exception deadlineExceeded = assertThrows(Exception.class, () -> Deadline.run(Deadline.after(Duration.ofMillis(-1)),
+                    () -> expired.queryForObject("SELECT 1", Integer.class)));
+            Exception queryTimeout = new QueryTimeoutException("cancelled", new SQLTimeoutException("cancelled"));
+
+            // Assert
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, handler.handleException(noConnection).getStatusCode());
+            assertEquals(HttpStatus.GATEWAY_TIMEOUT, handler.handleException(deadlineExceeded).getStatusCode());
+            assertEquals(HttpStatus.GATEWAY_TIMEOUT, handler.handleException(queryTimeout).getStatusCode());
+        }
+    }
+
+    private static int queryTimeout(DeadlineDataSource dataSource) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            return statement.getQueryTimeout();
+        } catch (SQLException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static JdbcDataSource h2(String name) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+
+        return h2;
+    }
+}
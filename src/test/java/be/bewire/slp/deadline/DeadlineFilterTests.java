@@ -0,0 +1,107 @@
+package be.bewire.slp.deadline;
+
+import be.bewire.slp.config.DeadlineProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for {@link be.bewire.slp.deadline.DeadlineFilter}
+ */
+public class DeadlineFilterTests {
+
+    /**
+     * The route timeout should apply, a client can shorten but not extend it.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void givenRouteAndHeader_whenTimeoutOf_thenShortestTimeout() throws Exception {
+        // Arrange
+        DeadlineProperties properties = new DeadlineProperties();
+        properties.setDefaultTimeout(Duration.ofSeconds(10));
+        properties.getRoutes().put("/api/employee/bulk/**", Duration.ofMinutes(5));
+        DeadlineFilter filter = new DeadlineFilter(properties);
+
+        MockHttpServletRequest bulk = new MockHttpServletRequest("POST", "/api/employee/bulk/import");
+        MockHttpServletRequest shortened = new MockHttpServletRequest("GET", "/api/employee/1");
+        shortened.addHeader("X-Request-Timeout", "1500");
+        MockHttpServletRequest extended = new MockHttpServletRequest("GET", "/api/employee/1");
+        extended.addHeader("X-Request-Timeout", "60000");
+        MockHttpServletRequest malformed = new MockHttpServletRequest("GET", "/api/employee/1");
+        malformed.addHeader("X-Request-Timeout", "soon");
+
+        // Act & Assert
+        assertEquals(Duration.ofMinutes(5), filter.timeoutOf(bulk));
+        assertEquals(Duration.ofMillis(1500), filter.timeoutOf(shortened));
+        assertEquals(Duration.ofSeconds(10), filter.timeoutOf(extended));
+        assertEquals(Duration.ofSeconds(10), filter.timeoutOf(malformed));
+    }
+
+    /**
+     * The deadline should be set while the request is handled, and removed afterwards.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenFilterRequest_thenDeadlineDuringRequest() throws Exception {
+        // Arrange
+        DeadlineFilter filter = new DeadlineFilter(new DeadlineProperties());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/employee");
+        request.addHeader("X-Request-Timeout", "2000");
+        AtomicReference<Deadline> seen = new AtomicReference<>();
+
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                seen.set(Deadline.current());
+            }
+        });
+
+        // Act
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // Assert
+        assertNotNull(seen.get());
+        assertTrue(seen.get().remainingMillis() <= 2000);
+        assertNull(Deadline.current());
+    }
+
+    /**
+     * A timeout of zero or less should be refused before the request is handled.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void givenNonPositiveTimeout_whenFilterRequest_thenBadRequest() throws Exception {
+        // Arrange
+        DeadlineFilter filter = new DeadlineFilter(new DeadlineProperties());
+        MockHttpServletRequest zero = new MockHttpServletRequest("GET", "/api/employee");
+        zero.addHeader("X-Request-Timeout", "0");
+        MockHttpServletRequest negative = new MockHttpServletRequest("GET", "/api/employee");
+        negative.addHeader("X-Request-Timeout", "-500");
+        MockHttpServletResponse zeroResponse = new MockHttpServletResponse();
+        MockHttpServletResponse negativeResponse = new MockHttpServletResponse();
+        MockFilterChain zeroChain = new MockFilterChain();
+        MockFilterChain negativeChain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(zero, zeroResponse, zeroChain);
+        filter.doFilter(negative, negativeResponse, negativeChain);
+
+        // Assert
+        assertEquals(HttpServletResponse.SC_BAD_REQUEST, zeroResponse.getStatus());
+        assertEquals(HttpServletResponse.SC_BAD_REQUEST, negativeResponse.getStatus());
+        assertNull(zeroChain.getRequest());
+        assertNull(negativeChain.getRequest());
+    }
+}
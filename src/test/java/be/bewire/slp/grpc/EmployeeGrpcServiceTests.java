@@ -0,0 +1,176 @@
+package be.bewire.slp.grpc;
+
+import be.bewire.slp.domain.EmployeeLookup;
+import be.bewire.slp.exceptions.ResourceNotFoundException;
+import be.bewire.slp.grpc.proto.CreateEmployeeRequest;
+import be.bewire.slp.grpc.proto.Employee;
+import be.bewire.slp.grpc.proto.EmployeeServiceGrpc;
+import be.bewire.slp.grpc.proto.GetEmployeeRequest;
+import be.bewire.slp.grpc.proto.GetEmployeesRequest;
+import be.bewire.slp.grpc.proto.GetEmployeesResponse;
+import be.bewire.slp.grpc.proto.ListEmployeesRequest;
+import be.bewire.slp.repository.EmployeeRepository;
+import be.bewire.slp.service.EmployeeService;
+import be.bewire.slp.sharding.ShardRouter;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import javax.sql.DataSource;
+import javax.validation.Validation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit testing for {@link be.bewire.slp.grpc.EmployeeGrpcService}, over an in-process channel
+ */
+public class EmployeeGrpcServiceTests {
+
+    private final EmployeeService employeeService = mock(EmployeeService.class);
+
+    private final EmployeeRepository employeeRepository = mock(EmployeeRepository.class);
+
+    private Server server;
+
+    private ManagedChannel channel;
+
+    private EmployeeServiceGrpc.EmployeeServiceBlockingStub stub;
+
+    @BeforeEach
+    public void startServer() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+
+        server = InProcessServerBuilder.forName(name)
+                .addService(new EmployeeGrpcService(employeeService, employeeRepository,
+                        new ShardRouter(Collections.singletonList(mock(DataSource.class))),
+                        Validation.buildDefaultValidatorFactory().getValidator()))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+        stub = EmployeeServiceGrpc.newBlockingStub(channel);
+    }
+
+    @AfterEach
+    public void stopServer() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    /**
+     * Test the basic flow of GetEmployee.
+     */
+    @Test
+    public void whenGetEmployee_thenReturnEmployee() {
+        // Arrange
+        when(employeeService.findById(1))
+                .thenReturn(new be.bewire.slp.domain.Employee(1, "John", "Doe", "bewire"));
+
+        // Act
+        Employee result = stub.getEmployee(GetEmployeeRequest.newBuilder().setId(1).build());
+
+        // Assert
+        assertEquals(1, result.getId());
+        assertEquals("John", result.getFirstName());
+        assertEquals("bewire", result.getCompany());
+        assertFalse(result.hasCreated());
+    }
+
+    /**
+     * A missing employee should be NOT_FOUND, with the message of the exception.
+     */
+    @Test
+    public void whenGetUnknownEmployee_thenNotFound() {
+        // Arrange
+        when(employeeService.findById(99))
+                .thenThrow(new ResourceNotFoundException("No employee with id 99."));
+
+        // Act
+        StatusRuntimeException thrown = assertThrows(StatusRuntimeException.class,
+                () -> stub.getEmployee(GetEmployeeRequest.newBuilder().setId(99).build()));
+
+        // Assert
+        assertEquals(Status.Code.NOT_FOUND, thrown.getStatus().getCode());
+        assertEquals("No employee with id 99.", thrown.getStatus().getDescription());
+    }
+
+    /**
+     * An invalid employee should be INVALID_ARGUMENT, without reaching the service.
+     */
+    @Test
+    public void whenCreateInvalidEmployee_thenInvalidArgument() {
+        // Arrange
+        CreateEmployeeRequest request = CreateEmployeeRequest.newBuilder()
+                .setEmployee(Employee.newBuilder().setLastName("Doe").setCompany("bewire"))
+                .build();
+
+        // Act
+        StatusRuntimeException thrown = assertThrows(StatusRuntimeException.class, () -> stub.createEmployee(request));
+
+        // Assert
+        assertEquals(Status.Code.INVALID_ARGUMENT, thrown.getStatus().getCode());
+        assertEquals("First Name is mandatory", thrown.getStatus().getDescription());
+        verify(employeeService, never()).create(any());
+    }
+
+    /**
+     * Test the basic flow of GetEmployees.
+     */
+    @Test
+    public void whenGetEmployees_thenReturnFoundAndMissing() {
+        // Arrange
+        when(employeeService.findAllById(Arrays.asList(1, 2)))
+                .thenReturn(new EmployeeLookup(
+                        Collections.singletonList(new be.bewire.slp.domain.Employee(1, "John", "Doe", "bewire")),
+                        Collections.singletonList(2)));
+
+        // Act
+        GetEmployeesResponse result = stub.getEmployees(GetEmployeesRequest.newBuilder().addIds(1).addIds(2).build());
+
+        // Assert
+        assertEquals(1, result.getEmployeesCount());
+        assertEquals("John", result.getEmployees(0).getFirstName());
+        assertEquals(Collections.singletonList(2), result.getMissingIdsList());
+        verify(employeeService, times(1)).findAllById(anyList());
+    }
+
+    /**
+     * The listing should page through the repository until a page is not full.
+     */
+    @Test
+    public void whenListEmployees_thenStreamEveryPage() {
+        // Arrange
+        when(employeeRepository.findPage(eq(0), any(Pageable.class)))
+                .thenReturn(Arrays.asList(employee(1), employee(2)));
+        when(employeeRepository.findPage(eq(2), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(employee(3)));
+
+        // Act
+        Iterator<Employee> stream = stub.listEmployees(ListEmployeesRequest.newBuilder().setPageSize(2).build());
+        List<Integer> ids = new ArrayList<>();
+        stream.forEachRemaining(employee -> ids.add(employee.getId()));
+
+        // Assert
+        assertEquals(Arrays.asList(1, 2, 3), ids);
+        verify(employeeRepository, times(2)).findPage(anyInt(), any(Pageable.class));
+    }
+
+    private static be.bewire.slp.domain.Employee employee(int id) {
+        return new be.bewire.slp.domain.Employee(id, "John", "Doe", "bewire");
+    }
+}
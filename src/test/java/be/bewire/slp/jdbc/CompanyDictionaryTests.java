@@ -0,0 +1,165 @@
+package be.bewire.slp.jdbc;
+
+import be.bewire.slp.domain.CompanyConverter;
+import be.bewire.slp.sharding.ShardRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.sql.Connection;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing of {@link be.bewire.slp.jdbc.CompanyDictionary} against an embedded H2 database.
+ */
+public class CompanyDictionaryTests {
+
+    private EmbeddedDatabase database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ShardRouter shardRouter;
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE company (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL UNIQUE)");
+        jdbcTemplate.update("INSERT INTO company (name) VALUES ('bewire')");
+
+        shardRouter = new ShardRouter(Collections.singletonList(database));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    /**
+     * A new company should be added once, and every lookup should return the same name instance.
+     */
+    @Test
+    public void whenIdOfNewCompany_thenAddOnceAndShareName() {
+        // Arrange
+        CompanyDictionary companyDictionary = new CompanyDictionary(shardRouter);
+
+        // Act
+        int first = companyDictionary.idOf(new String("c4j"));
+        int second = companyDictionary.idOf(new String("c4j"));
+
+        // Assert
+        assertEquals(first, second);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM company WHERE name = 'c4j'", Integer.class));
+        assertSame(companyDictionary.nameOf(first), companyDictionary.nameOf(second));
+        assertEquals("bewire", companyDictionary.nameOf(companyDictionary.idOf("bewire")));
+    }
+
+    /**
+     * Companies added by another instance should be picked up on a miss.
+     */
+    @Test
+    public void givenCompanyAddedElsewhere_whenNameOf_thenReload() {
+        // Arrange
+        CompanyDictionary companyDictionary = new CompanyDictionary(shardRouter);
+        int size = companyDictionary.size();
+        int id = new CompanyDictionary(shardRouter).idOf("evance");
+
+        // Act
+        String name = companyDictionary.nameOf(id);
+
+        // Assert
+        assertEquals(1, size);
+        assertEquals("evance", name);
+        assertEquals(2, companyDictionary.size());
+    }
+
+    /**
+     * Looking up an unknown company should not add it.
+     */
+    @Test
+    public void whenFindUnknownCompany_thenEmpty() {
+        // Arrange
+        CompanyDictionary companyDictionary = new CompanyDictionary(shardRouter);
+
+        // Act
+        boolean found = companyDictionary.find("unknown").isPresent();
+
+        // Assert
+        assertFalse(found);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM company", Integer.class));
+    }
+
+    /**
+     * The cached lookup should never load, it only knows what was loaded before.
+     */
+    @Test
+    public void whenCachedNameOf_thenOnlyLoadedCompanies() {
+        // Arrange
+        CompanyDictionary companyDictionary = new CompanyDictionary(shardRouter);
+        int bewire = jdbcTemplate.queryForObject("SELECT id FROM company WHERE name = 'bewire'", Integer.class);
+
+        // Act
+        String beforeLoad = companyDictionary.cachedNameOf(bewire);
+        companyDictionary.size();
+        String afterLoad = companyDictionary.cachedNameOf(bewire);
+        int added = new CompanyDictionary(shardRouter).idOf("c4j");
+
+        // Assert
+        assertNull(beforeLoad);
+        assertEquals("bewire", afterLoad);
+        assertNull(companyDictionary.cachedNameOf(added));
+    }
+
+    /**
+     * Converting an unknown company, eg. as query parameter, should match no row and not add it.
+     */
+    @Test
+    public void whenConvertUnknownCompany_thenUnknownIdAndNotAdded() {
+        // Arrange
+        CompanyConverter companyConverter = new CompanyConverter(new CompanyDictionary(shardRouter));
+
+        // Act
+        Integer id = companyConverter.convertToDatabaseColumn("unknown");
+
+        // Assert
+        assertEquals(CompanyConverter.UNKNOWN, id);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM company", Integer.class));
+    }
+
+    /**
+     * A company added in a transaction should be gone with its rollback, the dictionary should only learn committed ones.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenIdOfInRolledBackTransaction_thenNothingLeftBehind() throws Exception {
+        // Arrange
+        CompanyDictionary companyDictionary = new CompanyDictionary(shardRouter);
+        int bewire = companyDictionary.idOf("bewire");
+        int added;
+
+        // Act
+        try (Connection connection = database.getConnection()) {
+            connection.setAutoCommit(false);
+            assertEquals(bewire, companyDictionary.idOf(connection, "bewire"));
+            added = companyDictionary.idOf(connection, "c4j");
+            connection.rollback();
+        }
+        companyDictionary.reload();
+
+        // Assert
+        assertTrue(added > bewire);
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM company WHERE name = 'c4j'", Integer.class));
+        assertFalse(companyDictionary.find("c4j").isPresent());
+    }
+}
@@ -0,0 +1,37 @@
+package be.bewire.slp.jdbc;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for {@link be.bewire.slp.jdbc.PermitDataSource}
+ */
+public class PermitDataSourceTests {
+
+    /**
+     * A connection should hold its permit until it is closed, closing twice releases once.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenConnectionClosed_thenReleasePermitOnce() throws Exception {
+        // Arrange
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:permits");
+        PermitDataSource dataSource = new PermitDataSource(h2, 2);
+
+        // Act
+        Connection connection = dataSource.getConnection();
+        int whileOpen = dataSource.getAvailablePermits();
+        connection.close();
+        connection.close();
+
+        // Assert
+        assertEquals(1, whileOpen);
+        assertEquals(2, dataSource.getAvailablePermits());
+    }
+}
@@ -0,0 +1,162 @@
+package be.bewire.slp.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Records the SQL statements executed through a data source, for statement-count budgets in tests.
+ * Every {@code execute*} call is one round trip, a JDBC batch is one round trip for all its statements.
+ * Commits and rollbacks are not counted.
+ */
+public class SqlRecorder {
+
+    private final List<String> roundTrips = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile boolean recording;
+
+    /**
+     * Wrap a data source, its statements are recorded while the recorder is started.
+     *
+     * @param dataSource data source to record
+     * @return recording data source
+     */
+    public DataSource wrap(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return recording(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return recording(super.getConnection(username, password));
+            }
+        };
+    }
+
+    /**
+     * Forget everything recorded so far and start recording.
+     */
+    public void start() {
+        roundTrips.clear();
+        recording = true;
+    }
+
+    /**
+     * Stop recording.
+     *
+     * @return the SQL of every round trip since the start, in execution order
+     */
+    public List<String> stop() {
+        recording = false;
+
+        synchronized (roundTrips) {
+            return new ArrayList<>(roundTrips);
+        }
+    }
+
+    /**
+     * Fail when a route used more round trips than its budget, or ran the same query more than once (N+1).
+     *
+     * @param route      route description for the failure message
+     * @param budget     maximum amount of round trips
+     * @param roundTrips recorded round trips of one call of the route
+     */
+    public static void assertWithinBudget(String route, int budget, List<String> roundTrips) {
+        if (roundTrips.size() > budget)
+            fail(String.format("%s used %d round trips, its budget is %d:%n%s", route, roundTrips.size(), budget, describe(roundTrips)));
+
+        Map<String, Long> repeated = roundTrips.stream()
+                .filter(sql -> sql.regionMatches(true, 0, "select", 0, 6))
+                .collect(Collectors.groupingBy(sql -> sql, LinkedHashMap::new, Collectors.counting()));
+        repeated.values().removeIf(count -> count == 1);
+
+        if (!repeated.isEmpty())
+            fail(String.format("%s repeats queries (N+1): %s%n%s", route, repeated, describe(roundTrips)));
+    }
+
+    private static String describe(List<String> roundTrips) {
+        return roundTrips.stream().map(sql -> "  " + sql).collect(Collectors.joining(System.lineSeparator()));
+    }
+
+    private Connection recording(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("equals"))
+                        return proxy == args[0];
+                    if (method.getName().equals("hashCode"))
+                        return System.identityHashCode(proxy);
+
+                    Object result = invoke(connection, method, args);
+
+                    // createStatement, prepareStatement and prepareCall
+                    if (result instanceof Statement)
+                        return recording((Statement) result, method.getReturnType(),
+                                args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null);
+
+                    return result;
+                });
+    }
+
+    private Statement recording(Statement statement, Class<?> type, String preparedSql) {
+        List<String> batch = new ArrayList<>();
+
+        return (Statement) Proxy.newProxyInstance(
+                Statement.class.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+
+                    if (name.equals("equals"))
+                        return proxy == args[0];
+                    if (name.equals("hashCode"))
+                        return System.identityHashCode(proxy);
+
+                    if (name.equals("addBatch"))
+                        batch.add(args != null && args.length > 0 ? (String) args[0] : preparedSql);
+                    else if (name.equals("clearBatch"))
+                        batch.clear();
+                    else if (name.equals("executeBatch") || name.equals("executeLargeBatch"))
+                        record("batch of " + batch.size() + ": " + (batch.isEmpty() ? "" : batch.get(0)));
+                    else if (name.startsWith("execute"))
+                        record(args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql);
+
+                    Object result = invoke(statement, method, args);
+
+                    if (name.equals("executeBatch") || name.equals("executeLargeBatch"))
+                        batch.clear();
+
+                    return result;
+                });
+    }
+
+    private void record(String sql) {
+        if (recording)
+            roundTrips.add(sql);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+}
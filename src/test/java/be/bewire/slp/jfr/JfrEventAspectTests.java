@@ -0,0 +1,101 @@
+package be.bewire.slp.jfr;
+
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.repository.EmployeeRepository;
+import be.bewire.slp.service.EmployeeService;
+import jdk.jfr.Event;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit testing for {@link be.bewire.slp.jfr.JfrEventAspect}, the events are read back from a real recording.
+ */
+public class JfrEventAspectTests {
+
+    /**
+     * A service operation should be recorded with its name and employee id.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenServiceOperation_thenRecordEvent() throws Exception {
+        // Arrange
+        EmployeeService target = mock(EmployeeService.class);
+        when(target.findById(7)).thenReturn(new Employee(7, "John", "Doe", "bewire"));
+        EmployeeService employeeService = proxy(target);
+
+        // Act
+        List<RecordedEvent> events = record(EmployeeServiceEvent.class, () -> employeeService.findById(7));
+
+        // Assert
+        assertEquals(1, events.size());
+        assertEquals("findById", events.get(0).getString("operation"));
+        assertEquals(7, events.get(0).getInt("employeeId"));
+        assertNull(events.get(0).getClass("failure"));
+    }
+
+    /**
+     * A repository call should be recorded with the amount of returned rows.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenRepositoryCall_thenRecordRows() throws Exception {
+        // Arrange
+        EmployeeRepository target = mock(EmployeeRepository.class);
+        when(target.findAll()).thenReturn(Arrays.asList(
+                new Employee(1, "John", "Doe", "bewire"),
+                new Employee(2, "Sarah", "Doe", "c4j")));
+        EmployeeRepository employeeRepository = proxy(target);
+
+        // Act
+        List<RecordedEvent> events = record(RepositoryCallEvent.class, employeeRepository::findAll);
+
+        // Assert
+        assertEquals(1, events.size());
+        assertEquals("findAll", events.get(0).getString("method"));
+        assertEquals(2, events.get(0).getLong("rows"));
+        assertEquals(0, events.get(0).getInt("statements"));
+    }
+
+    private static <T> T proxy(T target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new JfrEventAspect());
+
+        return factory.getProxy();
+    }
+
+    private static List<RecordedEvent> record(Class<? extends Event> eventType, Runnable action) throws Exception {
+        Path file = Files.createTempFile("slp", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(eventType).withThreshold(Duration.ZERO);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        try {
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals(eventType.getAnnotation(Name.class).value()))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
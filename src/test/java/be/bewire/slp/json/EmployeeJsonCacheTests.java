@@ -0,0 +1,67 @@
+package be.bewire.slp.json;
+
+import be.bewire.slp.config.EmployeeProperties;
+import be.bewire.slp.domain.Employee;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for {@link be.bewire.slp.json.EmployeeJsonCache}
+ */
+public class EmployeeJsonCacheTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * A change within the same millisecond leaves the updated timestamp as it was, it should be serialized anyway.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void givenChangedWithinSameMillisecond_whenToJson_thenSerializeAgain() throws Exception {
+        // Arrange
+        EmployeeJsonCache cache = new EmployeeJsonCache(objectMapper, new EmployeeProperties());
+        Employee employee = new Employee(1, "John", "Doe", "bewire");
+        employee.setUpdated(new Date(1581330930123L));
+        cache.toJson(employee);
+
+        // Act
+        employee.setCompany("c4j");
+        byte[] changed = cache.toJson(employee);
+
+        // Assert
+        assertTrue(new String(changed, StandardCharsets.UTF_8).contains("\"company\":\"c4j\""));
+        assertSame(changed, cache.toJson(employee));
+    }
+
+    /**
+     * A full cache should evict the least recently used employee.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void givenFull_whenToJson_thenEvictLeastRecentlyUsed() throws Exception {
+        // Arrange
+        EmployeeProperties properties = new EmployeeProperties();
+        properties.getJsonCache().setMaxEntries(2);
+        EmployeeJsonCache cache = new EmployeeJsonCache(objectMapper, properties);
+        Employee john = new Employee(1, "John", "Doe", "bewire");
+        Employee sarah = new Employee(2, "Sarah", "Doe", "c4j");
+        byte[] johnJson = cache.toJson(john);
+        byte[] sarahJson = cache.toJson(sarah);
+        cache.toJson(john);
+
+        // Act
+        cache.toJson(new Employee(3, "Richard", "Doe", "evance"));
+
+        // Assert
+        assertEquals(2, cache.size());
+        assertSame(johnJson, cache.toJson(john));
+        assertNotSame(sarahJson, cache.toJson(sarah));
+    }
+}
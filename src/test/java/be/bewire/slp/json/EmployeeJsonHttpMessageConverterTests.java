@@ -0,0 +1,76 @@
+package be.bewire.slp.json;
+
+import be.bewire.slp.config.EmployeeProperties;
+import be.bewire.slp.domain.Employee;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for {@link be.bewire.slp.json.EmployeeJsonHttpMessageConverter}
+ */
+public class EmployeeJsonHttpMessageConverterTests {
+
+    private static final Type EMPLOYEE_LIST = new ParameterizedTypeReference<List<Employee>>() {
+    }.getType();
+
+    private final ObjectMapper objectMapper = new ObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final EmployeeJsonHttpMessageConverter converter = new EmployeeJsonHttpMessageConverter(
+            new EmployeeJsonCache(objectMapper, new EmployeeProperties()), objectMapper);
+
+    /**
+     * A list of employees should be written as the same json as Jackson writes.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenWriteEmployees_thenSameJsonAsJackson() throws Exception {
+        // Arrange
+        Employee employee = new Employee(1, "John", "Doe", "bewire");
+        employee.setUpdated(new Date(1581330930123L));
+        List<Employee> employees = Arrays.asList(employee, new Employee(2, "Sarah", "Doe", "c4j"));
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+        // Act
+        converter.write(employees, EMPLOYEE_LIST, MediaType.APPLICATION_JSON, output);
+
+        // Assert
+        assertEquals(objectMapper.writeValueAsString(employees), output.getBodyAsString(StandardCharsets.UTF_8));
+        assertEquals(MediaType.APPLICATION_JSON, output.getHeaders().getContentType());
+    }
+
+    /**
+     * Requests should be left to the Jackson converter, a direct read still works.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenRead_thenLeftToJackson() throws Exception {
+        // Arrange
+        MockHttpInputMessage input = new MockHttpInputMessage(
+                "[{\"id\":1,\"firstName\":\"John\",\"lastName\":\"Doe\",\"company\":\"bewire\"}]".getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        @SuppressWarnings("unchecked")
+        List<Employee> result = (List<Employee>) converter.read(EMPLOYEE_LIST, null, input);
+
+        // Assert
+        assertFalse(converter.canRead(Employee.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canRead(EMPLOYEE_LIST, null, MediaType.APPLICATION_JSON));
+        assertTrue(converter.canWrite(EMPLOYEE_LIST, List.class, MediaType.APPLICATION_JSON));
+        assertEquals("John", result.get(0).getFirstName());
+    }
+}
@@ -0,0 +1,66 @@
+package be.bewire.slp.json;
+
+import be.bewire.slp.domain.Employee;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for {@link be.bewire.slp.json.EmployeeJsonSerializer}
+ */
+public class EmployeeJsonSerializerTests {
+
+    /**
+     * The specialized serializer should produce exactly the json of the default serialization.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenSerialize_thenSameJsonAsDefault() throws Exception {
+        // Arrange
+        ObjectMapper defaultMapper = new ObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        ObjectMapper specializedMapper = new ObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .registerModule(new SimpleModule().addSerializer(Employee.class, new EmployeeJsonSerializer()));
+
+        Employee created = new Employee(1, "John", "Doe", "bewire");
+        created.setCreated(new Date(1581330930123L));
+        created.setUpdated(new Date(951782400000L));
+        Employee fresh = new Employee(2, "Sarah", "D\"oe", "c4j");
+        List<Employee> employees = Arrays.asList(created, fresh);
+
+        // Act
+        String expected = defaultMapper.writeValueAsString(employees);
+        String result = specializedMapper.writeValueAsString(employees);
+
+        // Assert
+        assertEquals(expected, result);
+    }
+
+    /**
+     * Dates should be written as timestamps when the mapper is configured that way.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenDatesAsTimestamps_thenWriteEpochMillis() throws Exception {
+        // Arrange
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .registerModule(new SimpleModule().addSerializer(Employee.class, new EmployeeJsonSerializer()));
+
+        Employee employee = new Employee(1, "John", "Doe", "bewire");
+        employee.setCreated(new Date(1581330930123L));
+
+        // Act
+        String result = mapper.writeValueAsString(employee);
+
+        // Assert
+        assertTrue(result.contains("\"created\":1581330930123"));
+    }
+}
@@ -0,0 +1,144 @@
+package be.bewire.slp.repository;
+
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.jdbc.CompanyDictionary;
+import be.bewire.slp.jdbc.EmployeeIdAllocator;
+import be.bewire.slp.sharding.ShardContext;
+import be.bewire.slp.sharding.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing of {@link be.bewire.slp.repository.EmployeeRepository} inserts through JPA, against two embedded shards,
+ * so the id generator of {@link be.bewire.slp.domain.Employee} runs for real.
+ */
+@SpringBootTest(properties = {
+        "slp.sharding.enabled=true",
+        "slp.sharding.shards[0].url=jdbc:h2:mem:repository-0;DB_CLOSE_DELAY=-1",
+        "slp.sharding.shards[1].url=jdbc:h2:mem:repository-1;DB_CLOSE_DELAY=-1",
+        "slp.sharding.shards[1].r2dbc-url=r2dbc:h2:mem:///repository-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "slp.r2dbc.url=r2dbc:h2:mem:///repository-0",
+        "slp.r2dbc.username=sa",
+        "slp.r2dbc.password=",
+        "slp.grpc.enabled=false",
+        "slp.audit.drain-interval-millis=3600000"
+})
+public class EmployeeRepositoryTests {
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EmployeeIdAllocator employeeIdAllocator;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private EmployeeAuditEventRepository employeeAuditEventRepository;
+
+    @Autowired
+    private CompanyDictionary companyDictionary;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Saved employees should get an id of the shard they are saved in, and land in that shard.
+     */
+    @Test
+    public void whenSaveInShardContext_thenIdEncodesShard() {
+        for (String company : Arrays.asList("bewire", "c4j", "evance", "ordina")) {
+            // Arrange
+            int shard = shardRouter.shardForCompany(company);
+
+            // Act
+            Employee saved = ShardContext.call(shard, () -> employeeRepository.save(new Employee("John", "Doe", company)));
+
+            // Assert
+            assertTrue(saved.getId() > 0);
+            assertEquals(shard, shardRouter.shardOf(saved.getId()));
+            Integer companyId = ShardContext.call(shard, () -> jdbcTemplate.queryForObject(
+                    "SELECT company_id FROM employee WHERE id = ?", Integer.class, saved.getId()));
+            assertEquals(company, companyDictionary.nameOf(companyId));
+        }
+    }
+
+    /**
+     * Ids reserved for set-based inserts should never overlap the ids of the entity, they share one sequence.
+     */
+    @Test
+    public void whenSaveAndAllocate_thenSequencesDoNotOverlap() {
+        // Arrange
+        int shard = ShardContext.PRIMARY;
+
+        // Act
+        List<Employee> saved = ShardContext.call(shard, () -> (List<Employee>) employeeRepository.saveAll(Arrays.asList(
+                new Employee("John", "Doe", "bewire"),
+                new Employee("Sarah", "Doe", "bewire"))));
+        long first = employeeIdAllocator.allocate(shard, 10);
+        Employee after = ShardContext.call(shard, () -> employeeRepository.save(new Employee("Richard", "Doe", "bewire")));
+
+        // Assert
+        for (Employee employee : saved)
+            assertTrue(ShardRouter.encodeId(first, shard) > employee.getId());
+        assertTrue(after.getId() >= ShardRouter.encodeId(first + 10, shard));
+    }
+
+    /**
+     * Looking up a company that no employee has should find nothing, without adding the company.
+     */
+    @Test
+    public void givenUnknownCompany_whenFindAllByCompany_thenEmptyList() {
+        // Act
+        List<Employee> employees = ShardContext.call(ShardContext.PRIMARY, () -> employeeRepository.findAllByCompany("unknown"));
+
+        // Assert
+        assertTrue(employees.isEmpty());
+        assertFalse(companyDictionary.find("unknown").isPresent());
+    }
+
+    /**
+     * A bulk update should be recorded in the audit outbox of its shard for exactly the rows it moved.
+     */
+    @Test
+    public void whenReassignCompanyAndRecordUpdated_thenRecordMovedRowsOnly() {
+        // Arrange
+        int shard = shardRouter.shardForCompany("jworks");
+        List<Employee> saved = ShardContext.call(shard, () -> (List<Employee>) employeeRepository.saveAll(Arrays.asList(
+                new Employee("John", "Doe", "jworks"),
+                new Employee("Sarah", "Doe", "jworks"),
+                new Employee("Richard", "Doe", "cronos"))));
+        List<Integer> ids = Arrays.asList(saved.get(0).getId(), saved.get(2).getId());
+        Date now = new Date();
+
+        // Act
+        int recorded = ShardContext.call(shard, () -> new TransactionTemplate(transactionManager).execute(status -> {
+            employeeRepository.reassignCompany(ids, "jworks", "ordina", now);
+            return employeeAuditEventRepository.recordUpdated(ids, companyDictionary.idOf("ordina"),
+                    "{\"company\":{\"from\":\"jworks\",\"to\":\"ordina\"}}", now);
+        }));
+
+        // Assert
+        assertEquals(1, recorded);
+        assertEquals(saved.get(0).getId(), ShardContext.call(shard, () -> jdbcTemplate.queryForObject(
+                "SELECT employee_id FROM employee_audit_outbox WHERE action = 'UPDATED'", Integer.class)));
+    }
+}
@@ -0,0 +1,112 @@
+package be.bewire.slp.repository;
+
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.jdbc.CompanyDictionary;
+import be.bewire.slp.sharding.ReactiveShards;
+import be.bewire.slp.sharding.ShardRouter;
+import io.r2dbc.h2.H2ConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testing of {@link be.bewire.slp.repository.ReactiveEmployeeRepository} against an embedded H2 database.
+ */
+public class ReactiveEmployeeRepositoryTests {
+
+    private static final String DATABASE = "reactive-repository";
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ShardRouter shardRouter;
+
+    private CompanyDictionary companyDictionary;
+
+    private ReactiveEmployeeRepository reactiveEmployeeRepository;
+
+    /**
+     * Threads the company dictionary was asked to resolve an id on.
+     */
+    private final List<String> lookupThreads = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        DriverManagerDataSource database = new DriverManagerDataSource("jdbc:h2:mem:" + DATABASE + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE company (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL UNIQUE)");
+        jdbcTemplate.execute("CREATE TABLE employee (id INT PRIMARY KEY, first_name VARCHAR(255), last_name VARCHAR(255), " +
+                "company_id INT, created TIMESTAMP, updated TIMESTAMP)");
+
+        shardRouter = new ShardRouter(Collections.singletonList(database));
+        companyDictionary = spy(new CompanyDictionary(shardRouter));
+        doAnswer(invocation -> {
+            lookupThreads.add(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(companyDictionary).nameOf(anyInt());
+
+        reactiveEmployeeRepository = new ReactiveEmployeeRepository(
+                new ReactiveShards(Collections.singletonList(DatabaseClient.create(H2ConnectionFactory.inMemory(DATABASE)))),
+                shardRouter, companyDictionary);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    /**
+     * A company that is not in memory yet should be loaded off the event loop, known companies without a lookup.
+     */
+    @Test
+    public void givenCompanyNotLoaded_whenFindAll_thenResolveOffEventLoop() {
+        // Arrange
+        int bewire = companyDictionary.idOf("bewire");
+        int c4j = new CompanyDictionary(shardRouter).idOf("c4j");
+        lookupThreads.clear();
+
+        jdbcTemplate.update("INSERT INTO employee (id, first_name, last_name, company_id) VALUES (?, 'John', 'Doe', ?)",
+                ShardRouter.encodeId(1, 0), bewire);
+        jdbcTemplate.update("INSERT INTO employee (id, first_name, last_name, company_id) VALUES (?, 'Sarah', 'Doe', ?)",
+                ShardRouter.encodeId(2, 0), c4j);
+
+        // Act
+        List<Employee> result = reactiveEmployeeRepository.findAll().collectList().block(Duration.ofSeconds(5));
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals("bewire", result.get(0).getCompany());
+        assertEquals("c4j", result.get(1).getCompany());
+        assertEquals(1, lookupThreads.size());
+        assertTrue(lookupThreads.get(0).startsWith("boundedElastic"), lookupThreads.get(0));
+    }
+
+    /**
+     * A single employee should get its company the same way.
+     */
+    @Test
+    public void givenCompanyNotLoaded_whenFindById_thenResolveOffEventLoop() {
+        // Arrange
+        int evance = new CompanyDictionary(shardRouter).idOf("evance");
+        jdbcTemplate.update("INSERT INTO employee (id, first_name, last_name, company_id) VALUES (?, 'Richard', 'Doe', ?)",
+                ShardRouter.encodeId(3, 0), evance);
+
+        // Act
+        Employee result = reactiveEmployeeRepository.findById(ShardRouter.encodeId(3, 0)).block(Duration.ofSeconds(5));
+
+        // Assert
+        assertEquals("evance", result.getCompany());
+        assertEquals(1, lookupThreads.size());
+        assertTrue(lookupThreads.get(0).startsWith("boundedElastic"), lookupThreads.get(0));
+    }
+}
@@ -0,0 +1,213 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.config.IdempotencyProperties;
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.domain.IdempotencyRecord;
+import be.bewire.slp.exceptions.ConflictException;
+import be.bewire.slp.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testing of {@link be.bewire.slp.service.DatabaseIdempotencyStore} against an embedded database.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "slp.r2dbc.url=r2dbc:h2:mem:///idempotency",
+        "slp.r2dbc.username=sa",
+        "slp.r2dbc.password=",
+        "slp.grpc.enabled=false",
+        "slp.audit.drain-interval-millis=3600000"
+})
+public class DatabaseIdempotencyStoreTests {
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final IdempotencyProperties properties = new IdempotencyProperties();
+
+    private DatabaseIdempotencyStore store;
+
+    @BeforeEach
+    public void setUp() {
+        idempotencyRecordRepository.deleteAll();
+        store = new DatabaseIdempotencyStore(idempotencyRecordRepository, objectMapper, properties);
+    }
+
+    /**
+     * The first request should claim the key and store its response, a replay gets the stored response.
+     */
+    @Test
+    public void whenReplay_thenReturnStoredResult() {
+        // Arrange
+        AtomicInteger executions = new AtomicInteger();
+
+        // Act
+        Employee first = store.execute("key", "body", Employee.class,
+                () -> new Employee(executions.incrementAndGet(), "John", "Doe", "bewire"));
+        Employee second = store.execute("key", "body", Employee.class,
+                () -> new Employee(executions.incrementAndGet(), "John", "Doe", "bewire"));
+
+        // Assert
+        assertEquals(1, first.getId());
+        assertEquals(1, second.getId());
+        assertEquals("John", second.getFirstName());
+        assertEquals(1, executions.get());
+
+        IdempotencyRecord record = idempotencyRecordRepository.findById("key").orElseThrow(IllegalStateException::new);
+        assertEquals("body", record.getFingerprint());
+        assertNotNull(record.getResponse());
+    }
+
+    /**
+     * A key claimed by another instance should be awaited until that instance completes it.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void givenClaimedElsewhere_whenExecute_thenWaitForStoredResponse() throws Exception {
+        // Arrange
+        AtomicInteger executions = new AtomicInteger();
+        idempotencyRecordRepository.save(new IdempotencyRecord("key", "body", new Date()));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            // Act
+            Future<String> duplicate = executor.submit(() -> store.execute("key", "body", String.class,
+                    () -> "result-" + executions.incrementAndGet()));
+            Thread.sleep(200);
+            idempotencyRecordRepository.complete("key", "\"result-elsewhere\"");
+
+            // Assert
+            assertEquals("result-elsewhere", duplicate.get(5, TimeUnit.SECONDS));
+            assertEquals(0, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reusing a key for a different request should be refused.
+     */
+    @Test
+    public void whenKeyReusedWithOtherRequest_thenThrowConflictException() {
+        // Arrange
+        store.execute("key", "body", String.class, () -> "result");
+
+        // Act
+        Executable executable = () -> store.execute("key", "other body", String.class, () -> "other result");
+
+        // Assert
+        assertThrows(ConflictException.class, executable);
+    }
+
+    /**
+     * A failed request should release its key, so a retry runs again.
+     */
+    @Test
+    public void whenOriginalFails_thenReleaseKeyAndRetryRunsAgain() {
+        // Arrange
+        assertThrows(IllegalStateException.class, () -> store.execute("key", "body", String.class, () -> {
+            throw new IllegalStateException("database down");
+        }));
+        assertFalse(idempotencyRecordRepository.existsById("key"));
+
+        // Act
+        String result = store.execute("key", "body", String.class, () -> "result");
+
+        // Assert
+        assertEquals("result", result);
+    }
+
+    /**
+     * Failing to store the response should release the key as well, instead of leaving a claim that answers 409.
+     */
+    @Test
+    public void whenStoringResponseFails_thenReleaseKey() {
+        // Arrange
+        IdempotencyRecordRepository failingRepository = mock(IdempotencyRecordRepository.class, delegatesTo(idempotencyRecordRepository));
+        doThrow(new IllegalStateException("database down")).when(failingRepository).complete(anyString(), anyString());
+        DatabaseIdempotencyStore failingStore = new DatabaseIdempotencyStore(failingRepository, objectMapper, properties);
+
+        // Act
+        Executable executable = () -> failingStore.execute("key", "body", String.class, () -> "result");
+
+        // Assert
+        assertThrows(IllegalStateException.class, executable);
+        assertFalse(idempotencyRecordRepository.existsById("key"));
+    }
+
+    /**
+     * Beyond the maximum amount of keys the oldest finished keys should be removed, keys in progress kept.
+     */
+    @Test
+    public void givenMoreKeysThanMax_whenPurgeExpired_thenRemoveOldestFinishedKeys() {
+        // Arrange
+        properties.setMaxEntries(2);
+        long now = System.currentTimeMillis();
+        idempotencyRecordRepository.save(new IdempotencyRecord("in-progress", "body", new Date(now - 4000)));
+        store.execute("oldest", "body", String.class, () -> "result");
+        store.execute("older", "body", String.class, () -> "result");
+        store.execute("newest", "body", String.class, () -> "result");
+        setCreated("oldest", now - 3000);
+        setCreated("older", now - 2000);
+        setCreated("newest", now - 1000);
+
+        // Act
+        store.purgeExpired();
+
+        // Assert
+        assertTrue(idempotencyRecordRepository.existsById("in-progress"));
+        assertFalse(idempotencyRecordRepository.existsById("oldest"));
+        assertFalse(idempotencyRecordRepository.existsById("older"));
+        assertTrue(idempotencyRecordRepository.existsById("newest"));
+    }
+
+    /**
+     * Keys older than the ttl should be purged, younger keys kept.
+     */
+    @Test
+    public void whenPurgeExpired_thenRemoveKeysOlderThanTtl() {
+        // Arrange
+        properties.setTtl(Duration.ofHours(1));
+        idempotencyRecordRepository.save(new IdempotencyRecord("expired", "body",
+                new Date(System.currentTimeMillis() - Duration.ofHours(2).toMillis())));
+        store.execute("fresh", "body", String.class, () -> "result");
+
+        // Act
+        store.purgeExpired();
+
+        // Assert
+        assertFalse(idempotencyRecordRepository.existsById("expired"));
+        assertTrue(idempotencyRecordRepository.existsById("fresh"));
+    }
+
+    private void setCreated(String key, long created) {
+        IdempotencyRecord record = idempotencyRecordRepository.findById(key).orElseThrow(IllegalStateException::new);
+        record.setCreated(new Date(created));
+        idempotencyRecordRepository.save(record);
+    }
+}
@@ -0,0 +1,150 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.domain.EmployeeAggregates;
+import be.bewire.slp.repository.EmployeeRepository;
+import be.bewire.slp.sharding.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit testing for {@link be.bewire.slp.service.EmployeeAggregateServiceImpl}
+ */
+@ExtendWith(SpringExtension.class)
+public class EmployeeAggregateServiceImplTests {
+
+    /**
+     * Test Configuration.
+     */
+    @TestConfiguration
+    static class EmployeeAggregateServiceImplTestsContextConfiguration {
+
+        @Autowired
+        private EmployeeRepository employeeRepository;
+
+        @Bean
+        public EmployeeAggregateService employeeAggregateService() {
+            return new EmployeeAggregateServiceImpl(employeeRepository,
+                    new ShardRouter(Collections.singletonList(mock(DataSource.class))));
+        }
+    }
+
+    @Autowired
+    private EmployeeAggregateService employeeAggregateService;
+
+    /**
+     * Mock bean of the employee repository.
+     */
+    @MockBean
+    private EmployeeRepository employeeRepositoryMock;
+
+    /**
+     * Seeded counters should follow the reported changes without querying the database again.
+     */
+    @Test
+    public void givenSeeded_whenCreateMoveAndDelete_thenAggregatesFollow() {
+        // Arrange
+        LocalDate today = LocalDate.now();
+        givenDatabaseCounts(
+                Arrays.asList(new Object[]{"bewire", 2L}, new Object[]{"c4j", 1L}),
+                Collections.singletonList(new Object[]{java.sql.Date.valueOf(today), 3L}));
+        employeeAggregateService.reconcile();
+
+        Employee created = employee(4, "bewire", today);
+        Employee deleted = employee(2, "c4j", today);
+
+        // Act
+        employeeAggregateService.created(created);
+        employeeAggregateService.companyChanged("bewire", "evance", 1);
+        employeeAggregateService.deleted(deleted);
+        EmployeeAggregates result = employeeAggregateService.getAggregates();
+
+        // Assert
+        assertEquals(3, result.getTotal());
+        assertEquals(2L, result.getCompanies().get("bewire"));
+        assertEquals(1L, result.getCompanies().get("evance"));
+        assertFalse(result.getCompanies().containsKey("c4j"));
+        assertEquals(3L, result.getCreatedPerDay().get(today.toString()));
+        verify(employeeRepositoryMock, times(1)).countPerCompany();
+    }
+
+    /**
+     * An import should be counted per company and on the day it was created.
+     */
+    @Test
+    public void givenSeeded_whenImported_thenCountPerCompanyAndDay() {
+        // Arrange
+        LocalDate today = LocalDate.now();
+        givenDatabaseCounts(
+                Collections.singletonList(new Object[]{"bewire", 1L}),
+                Collections.singletonList(new Object[]{java.sql.Date.valueOf(today), 1L}));
+        employeeAggregateService.reconcile();
+
+        Map<String, Long> companyCounts = new HashMap<>();
+        companyCounts.put("bewire", 2L);
+        companyCounts.put("jworks", 1L);
+
+        // Act
+        employeeAggregateService.imported(companyCounts, Timestamp.valueOf(LocalDateTime.of(today, java.time.LocalTime.NOON)));
+        EmployeeAggregates result = employeeAggregateService.getAggregates();
+
+        // Assert
+        assertEquals(4, result.getTotal());
+        assertEquals(3L, result.getCompanies().get("bewire"));
+        assertEquals(1L, result.getCompanies().get("jworks"));
+        assertEquals(4L, result.getCreatedPerDay().get(today.toString()));
+    }
+
+    /**
+     * Reconciliation should correct counters that drifted from the database.
+     */
+    @Test
+    public void givenDrift_whenReconcile_thenCountsOfDatabase() {
+        // Arrange
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        employeeAggregateService.created(employee(1, "ordina", yesterday));
+        employeeAggregateService.created(employee(2, "ordina", yesterday));
+        givenDatabaseCounts(
+                Collections.singletonList(new Object[]{"ordina", 5L}),
+                Collections.singletonList(new Object[]{java.sql.Date.valueOf(yesterday), 5L}));
+
+        // Act
+        employeeAggregateService.reconcile();
+        EmployeeAggregates result = employeeAggregateService.getAggregates();
+
+        // Assert
+        assertEquals(5, result.getTotal());
+        assertEquals(Collections.singletonMap("ordina", 5L), result.getCompanies());
+        assertEquals(Collections.singletonMap(yesterday.toString(), 5L), result.getCreatedPerDay());
+    }
+
+    private void givenDatabaseCounts(List<Object[]> perCompany, List<Object[]> perDay) {
+        when(employeeRepositoryMock.countPerCompany()).thenReturn(perCompany);
+        when(employeeRepositoryMock.countPerCreatedDay()).thenReturn(perDay);
+    }
+
+    private static Employee employee(int id, String company, LocalDate created) {
+        Employee employee = new Employee(id, "John", "Doe", company);
+        employee.setCreated(Timestamp.valueOf(LocalDateTime.of(created, java.time.LocalTime.NOON)));
+
+        return employee;
+    }
+}
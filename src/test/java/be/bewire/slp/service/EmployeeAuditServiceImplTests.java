@@ -0,0 +1,168 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.config.AuditProperties;
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.domain.EmployeeAuditEvent;
+import be.bewire.slp.domain.EmployeeHistoryEntry;
+import be.bewire.slp.jdbc.CompanyDictionary;
+import be.bewire.slp.repository.EmployeeAuditEventRepository;
+import be.bewire.slp.sharding.ShardRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testing of {@link be.bewire.slp.service.EmployeeAuditServiceImpl} against an embedded H2 database.
+ */
+public class EmployeeAuditServiceImplTests {
+
+    private final EmployeeAuditEventRepository employeeAuditEventRepository = mock(EmployeeAuditEventRepository.class);
+
+    private final AuditProperties properties = new AuditProperties();
+
+    private final CompanyDictionary companyDictionary = mock(CompanyDictionary.class);
+
+    private EmbeddedDatabase database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private EmployeeAuditServiceImpl employeeAuditService;
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE employee_audit_outbox (id BIGINT AUTO_INCREMENT PRIMARY KEY, employee_id INT NOT NULL, " +
+                "action VARCHAR(16) NOT NULL, changes TEXT, changed TIMESTAMP NOT NULL)");
+
+        properties.setBatchSize(2);
+        employeeAuditService = new EmployeeAuditServiceImpl(employeeAuditEventRepository, jdbcTemplate,
+                new ShardRouter(Collections.singletonList(database)), new ObjectMapper(), properties,
+                new DataSourceTransactionManager(database), companyDictionary);
+        employeeAuditService.createHistoryTables();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    /**
+     * An update should only record the fields that changed.
+     */
+    @Test
+    public void whenUpdated_thenRecordChangedFields() {
+        // Act
+        employeeAuditService.updated(new Employee(1, "John", "Doe", "c4j"), new Employee(1, "Johnny", "Doe", "c4j"));
+
+        // Assert
+        ArgumentCaptor<EmployeeAuditEvent> event = ArgumentCaptor.forClass(EmployeeAuditEvent.class);
+        verify(employeeAuditEventRepository, times(1)).save(event.capture());
+        assertEquals(1, event.getValue().getEmployeeId());
+        assertEquals(EmployeeAuditEvent.Action.UPDATED, event.getValue().getAction());
+        assertEquals("{\"firstName\":{\"from\":\"John\",\"to\":\"Johnny\"}}", event.getValue().getChanges());
+    }
+
+    /**
+     * An update without changes, or with auditing turned off, should not record anything.
+     */
+    @Test
+    public void whenUpdatedWithoutChangesOrDisabled_thenRecordNothing() {
+        // Act
+        employeeAuditService.updated(new Employee(1, "John", "Doe", "c4j"), new Employee(1, "John", "Doe", "c4j"));
+        properties.setEnabled(false);
+        employeeAuditService.created(new Employee(2, "Sarah", "Doe", "c4j"));
+
+        // Assert
+        verify(employeeAuditEventRepository, never()).save(any(EmployeeAuditEvent.class));
+    }
+
+    /**
+     * A company reassignment should be recorded for all moved employees with one statement.
+     */
+    @Test
+    public void whenCompanyReassigned_thenRecordCompanyChangeSetBased() {
+        // Arrange
+        Date changed = new Date();
+        when(companyDictionary.idOf("evance")).thenReturn(3);
+
+        // Act
+        employeeAuditService.companyReassigned(Arrays.asList(1, 2), "c4j", "evance", changed);
+
+        // Assert
+        verify(employeeAuditEventRepository, times(1)).recordUpdated(Arrays.asList(1, 2), 3,
+                "{\"company\":{\"from\":\"c4j\",\"to\":\"evance\"}}", changed);
+        verify(employeeAuditEventRepository, never()).save(any(EmployeeAuditEvent.class));
+    }
+
+    /**
+     * The drain should move the whole outbox to the history in batches, the history stays the same throughout.
+     */
+    @Test
+    public void whenDrain_thenMoveOutboxToHistoryInBatches() {
+        // Arrange
+        givenOutbox(1, "CREATED", "{\"firstName\":{\"from\":null,\"to\":\"John\"}}");
+        givenOutbox(1, "UPDATED", "{\"company\":{\"from\":\"c4j\",\"to\":\"evance\"}}");
+        givenOutbox(2, "CREATED", "{}");
+        givenOutbox(1, "DELETED", "{}");
+        List<EmployeeHistoryEntry> before = employeeAuditService.findHistory(1);
+
+        // Act
+        int moved = employeeAuditService.drain();
+        List<EmployeeHistoryEntry> after = employeeAuditService.findHistory(1);
+
+        // Assert
+        assertEquals(4, moved);
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee_audit_outbox", Integer.class));
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee_history", Integer.class));
+
+        assertEquals(3, after.size());
+        assertEquals(EmployeeAuditEvent.Action.CREATED, after.get(0).getAction());
+        assertEquals("evance", after.get(1).getChanges().get("company").getTo());
+        assertEquals(EmployeeAuditEvent.Action.DELETED, after.get(2).getAction());
+        assertEquals(before.size(), after.size());
+    }
+
+    /**
+     * Changes longer than a VARCHAR column holds should be kept whole in the outbox and the history.
+     */
+    @Test
+    public void givenLongChanges_whenDrain_thenKeepChanges() {
+        // Arrange
+        String firstName = String.join("", Collections.nCopies(5000, "a"));
+        givenOutbox(1, "CREATED", "{\"firstName\":{\"from\":null,\"to\":\"" + firstName + "\"}}");
+
+        // Act
+        int moved = employeeAuditService.drain();
+        List<EmployeeHistoryEntry> history = employeeAuditService.findHistory(1);
+
+        // Assert
+        assertEquals(1, moved);
+        assertEquals(firstName, history.get(0).getChanges().get("firstName").getTo());
+    }
+
+    private void givenOutbox(int employeeId, String action, String changes) {
+        jdbcTemplate.update("INSERT INTO employee_audit_outbox (employee_id, action, changes, changed) VALUES (?, ?, ?, ?)",
+                employeeId, action, changes, new Timestamp(System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,162 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.config.EmployeeProperties;
+import be.bewire.slp.domain.BulkUpdateResult;
+import be.bewire.slp.domain.CompanyReassignment;
+import be.bewire.slp.exceptions.MalformedBodyException;
+import be.bewire.slp.jdbc.CompanyDictionary;
+import be.bewire.slp.repository.EmployeeRepository;
+import be.bewire.slp.sharding.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit testing for {@link be.bewire.slp.service.EmployeeBulkServiceImpl}
+ */
+@ExtendWith(SpringExtension.class)
+public class EmployeeBulkServiceImplTests {
+
+    /**
+     * Test Configuration.
+     */
+    @TestConfiguration
+    static class EmployeeBulkServiceImplTestsContextConfiguration {
+
+        @Autowired
+        private EmployeeRepository employeeRepository;
+
+        @Autowired
+        private CompanyDictionary companyDictionary;
+
+        @Autowired
+        private EmployeeAggregateService employeeAggregateService;
+
+        @Autowired
+        private EmployeeSnapshotService employeeSnapshotService;
+
+        @Autowired
+        private EmployeeAuditService employeeAuditService;
+
+        @Bean
+        public EmployeeBulkService employeeBulkService() {
+            EmployeeProperties properties = new EmployeeProperties();
+            properties.getBulk().setChunkSize(2);
+
+            return new EmployeeBulkServiceImpl(employeeRepository, properties,
+                    new ShardRouter(Collections.singletonList(mock(DataSource.class))), companyDictionary,
+                    employeeAggregateService, employeeSnapshotService, employeeAuditService,
+                    mock(PlatformTransactionManager.class));
+        }
+    }
+
+    /**
+     * Bean of the bulk service that will be tested.
+     */
+    @Autowired
+    private EmployeeBulkService employeeBulkService;
+
+    /**
+     * Mock bean of the employee repository.
+     */
+    @MockBean
+    private EmployeeRepository employeeRepositoryMock;
+
+    /**
+     * Mock bean of the aggregates.
+     */
+    @MockBean
+    private EmployeeAggregateService employeeAggregateServiceMock;
+
+    /**
+     * Mock bean of the snapshot, without a snapshot the reads go to the repository.
+     */
+    @MockBean
+    private EmployeeSnapshotService employeeSnapshotServiceMock;
+
+    /**
+     * Mock bean of the audit service.
+     */
+    @MockBean
+    private EmployeeAuditService employeeAuditServiceMock;
+
+    /**
+     * Mock bean of the company dictionary.
+     */
+    @MockBean
+    private CompanyDictionary companyDictionaryMock;
+
+    /**
+     * Test that reassignCompany walks the company in keyset chunks with one UPDATE per chunk.
+     */
+    @Test
+    public void whenReassignCompany_thenUpdateInChunks() {
+        // Arrange
+        when(companyDictionaryMock.find("c4j")).thenReturn(OptionalInt.of(2));
+        when(employeeRepositoryMock.findIdsByCompany(eq("c4j"), eq(0), any(Pageable.class)))
+                .thenReturn(Arrays.asList(1, 2));
+        when(employeeRepositoryMock.findIdsByCompany(eq("c4j"), eq(2), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(5));
+        when(employeeRepositoryMock.reassignCompany(anyCollection(), eq("c4j"), eq("evance"), any(Date.class)))
+                .thenAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).size());
+
+        // Act
+        BulkUpdateResult result = employeeBulkService.reassignCompany(new CompanyReassignment("c4j", "evance"));
+
+        // Assert
+        assertEquals(3, result.getAffected());
+        assertEquals(2, result.getChunks());
+        verify(employeeRepositoryMock, times(2)).reassignCompany(anyCollection(), anyString(), anyString(), any(Date.class));
+        verify(employeeRepositoryMock, never()).findAll();
+        verify(employeeSnapshotServiceMock, times(1)).reload();
+        verify(employeeAuditServiceMock, times(1)).companyReassigned(eq(Arrays.asList(1, 2)), eq("c4j"), eq("evance"), any(Date.class));
+        verify(employeeAuditServiceMock, times(1)).companyReassigned(eq(Collections.singletonList(5)), eq("c4j"), eq("evance"), any(Date.class));
+    }
+
+    /**
+     * Test that reassignCompany of an unknown company does not query the employees.
+     */
+    @Test
+    public void givenUnknownCompany_whenReassignCompany_thenNothingIsUpdated() {
+        // Arrange
+        when(companyDictionaryMock.find("unknown")).thenReturn(OptionalInt.empty());
+
+        // Act
+        BulkUpdateResult result = employeeBulkService.reassignCompany(new CompanyReassignment("unknown", "evance"));
+
+        // Assert
+        assertEquals(0, result.getAffected());
+        verify(employeeRepositoryMock, never()).findIdsByCompany(anyString(), anyInt(), any(Pageable.class));
+        verify(companyDictionaryMock, never()).idOf(anyString());
+    }
+
+    /**
+     * Test that reassignCompany refuses to move a company onto itself.
+     */
+    @Test
+    public void whenReassignCompanyToItself_thenThrowMalformedBodyException() {
+        // Act
+        Executable executable = () -> employeeBulkService.reassignCompany(new CompanyReassignment("c4j", "c4j"));
+
+        // Assert
+        assertThrows(MalformedBodyException.class, executable);
+        verify(employeeRepositoryMock, never()).reassignCompany(anyCollection(), anyString(), anyString(), any(Date.class));
+    }
+}
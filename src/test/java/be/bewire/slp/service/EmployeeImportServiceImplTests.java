@@ -0,0 +1,275 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.config.AuditProperties;
+import be.bewire.slp.domain.EmployeeAuditEvent;
+import be.bewire.slp.domain.EmployeeHistoryEntry;
+import be.bewire.slp.domain.ImportReport;
+import be.bewire.slp.exceptions.MalformedBodyException;
+import be.bewire.slp.jdbc.CompanyDictionary;
+import be.bewire.slp.jdbc.EmployeeIdAllocator;
+import be.bewire.slp.repository.EmployeeAuditEventRepository;
+import be.bewire.slp.sharding.ShardRouter;
+import be.bewire.slp.sharding.ShardRoutingDataSource;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import javax.validation.Validation;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testing of {@link be.bewire.slp.service.EmployeeImportServiceImpl} against embedded H2 databases (JDBC batch path).
+ */
+public class EmployeeImportServiceImplTests {
+
+    private EmbeddedDatabase database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private EmployeeImportService employeeImportService;
+
+    private final EmployeeAggregateService employeeAggregateService = mock(EmployeeAggregateService.class);
+
+    private final EmployeeSnapshotService employeeSnapshotService = mock(EmployeeSnapshotService.class);
+
+    private EmployeeAuditServiceImpl employeeAuditService;
+
+    @BeforeEach
+    public void setUp() {
+        database = createDatabase();
+        jdbcTemplate = new JdbcTemplate(database);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(database);
+        ShardRouter shardRouter = new ShardRouter(Collections.singletonList(database));
+        CompanyDictionary companyDictionary = new CompanyDictionary(shardRouter);
+        employeeAuditService = createAuditService(shardRouter, jdbcTemplate, transactionManager, companyDictionary);
+        employeeImportService = new EmployeeImportServiceImpl(shardRouter,
+                new EmployeeIdAllocator(jdbcTemplate, transactionManager), companyDictionary,
+                Validation.buildDefaultValidatorFactory().getValidator(), employeeAggregateService, employeeSnapshotService,
+                employeeAuditService);
+    }
+
+    /**
+     * Valid lines should be imported with fresh ids, invalid lines reported with their line number.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenImportCsv_thenImportValidLinesAndReportErrors() throws Exception {
+        // Arrange
+        String csv = "firstName,lastName,company\n" +
+                "John,Doe,bewire\n" +
+                "Sarah,,c4j\n" +
+                "\"Richard, Jr.\",Doe,evance\n" +
+                "too,few\n";
+
+        // Act
+        ImportReport report = employeeImportService.importCsv(new StringReader(csv));
+
+        // Assert
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getRejected());
+        assertEquals(3, report.getErrors().get(0).getLine());
+        assertEquals("Last Name is mandatory", report.getErrors().get(0).getMessage());
+        assertEquals(5, report.getErrors().get(1).getLine());
+
+        List<Integer> ids = jdbcTemplate.queryForList("SELECT id FROM employee ORDER BY id", Integer.class);
+        assertIterableEquals(Arrays.asList(ShardRouter.encodeId(5, 0), ShardRouter.encodeId(6, 0)), ids);
+        assertEquals("Richard, Jr.", jdbcTemplate.queryForObject("SELECT first_name FROM employee WHERE id = ?",
+                String.class, ShardRouter.encodeId(6, 0)));
+        assertEquals(6L, jdbcTemplate.queryForObject("SELECT next_val FROM hibernate_sequences", Long.class));
+        assertEquals("evance", jdbcTemplate.queryForObject("SELECT c.name FROM employee e JOIN company c ON c.id = e.company_id " +
+                "WHERE e.id = ?", String.class, ShardRouter.encodeId(6, 0)));
+        verify(employeeSnapshotService, times(1)).reload();
+
+        Map<String, Long> companyCounts = new HashMap<>();
+        companyCounts.put("bewire", 1L);
+        companyCounts.put("evance", 1L);
+        verify(employeeAggregateService, times(1)).imported(eq(companyCounts), any(Date.class));
+
+        database.shutdown();
+    }
+
+    /**
+     * A quote that is never closed should refuse the whole import, also the companies it added.
+     */
+    @Test
+    public void givenUnclosedQuote_whenImportCsv_thenImportNothing() {
+        // Arrange
+        String csv = "John,Doe,bewire\n" +
+                "Sarah,\"Doe,c4j\n";
+
+        // Act
+        Executable executable = () -> employeeImportService.importCsv(new StringReader(csv));
+
+        // Assert
+        assertThrows(MalformedBodyException.class, executable);
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM company", Integer.class));
+        verify(employeeAggregateService, never()).imported(anyMap(), any(Date.class));
+
+        database.shutdown();
+    }
+
+    /**
+     * Ids beyond the largest id should not be handed out.
+     */
+    @Test
+    public void givenIdsExhausted_whenImportCsv_thenImportNothing() {
+        // Arrange
+        jdbcTemplate.update("UPDATE hibernate_sequences SET next_val = ?", ShardRouter.MAX_SEQUENCE);
+        String csv = "John,Doe,bewire\n" +
+                "Sarah,Doe,c4j\n";
+
+        // Act
+        Executable executable = () -> employeeImportService.importCsv(new StringReader(csv));
+
+        // Assert
+        assertThrows(IllegalStateException.class, executable);
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee", Integer.class));
+
+        database.shutdown();
+    }
+
+    /**
+     * An import without valid lines changes nothing, the snapshot should not be loaded again.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void givenNoValidLines_whenImportCsv_thenKeepSnapshot() throws Exception {
+        // Act
+        ImportReport report = employeeImportService.importCsv(new StringReader("Sarah,,c4j\n"));
+
+        // Assert
+        assertEquals(0, report.getImported());
+        verify(employeeSnapshotService, never()).reload();
+        verify(employeeAggregateService, never()).imported(anyMap(), any(Date.class));
+
+        database.shutdown();
+    }
+
+    /**
+     * Every imported employee should be recorded as created in the audit outbox, rejected lines should not.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenImportCsv_thenRecordCreatedEmployees() throws Exception {
+        // Arrange
+        String csv = "\"Richard, \"\"Dick\"\"\",Doe,evance\n" +
+                "Sarah,,c4j\n";
+
+        // Act
+        employeeImportService.importCsv(new StringReader(csv));
+
+        // Assert
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee_audit_outbox", Integer.class));
+
+        List<EmployeeHistoryEntry> history = employeeAuditService.findHistory(ShardRouter.encodeId(5, 0));
+        assertEquals(1, history.size());
+        assertEquals(EmployeeAuditEvent.Action.CREATED, history.get(0).getAction());
+        assertNull(history.get(0).getChanges().get("firstName").getFrom());
+        assertEquals("Richard, \"Dick\"", history.get(0).getChanges().get("firstName").getTo());
+        assertEquals("evance", history.get(0).getChanges().get("company").getTo());
+
+        database.shutdown();
+    }
+
+    /**
+     * With several shards every line should be imported on the shard of its company, with an id of that shard.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void givenShards_whenImportCsv_thenImportOnShardOfCompany() throws Exception {
+        // Arrange
+        EmbeddedDatabase other = createDatabase();
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(Arrays.asList(database, other));
+        routing.afterPropertiesSet();
+
+        ShardRouter shardRouter = new ShardRouter(Arrays.asList(database, other));
+        CompanyDictionary companyDictionary = new CompanyDictionary(shardRouter);
+        JdbcTemplate routingTemplate = new JdbcTemplate(routing);
+        DataSourceTransactionManager routingTransactionManager = new DataSourceTransactionManager(routing);
+        EmployeeImportService shardedImportService = new EmployeeImportServiceImpl(shardRouter,
+                new EmployeeIdAllocator(routingTemplate, routingTransactionManager), companyDictionary,
+                Validation.buildDefaultValidatorFactory().getValidator(), employeeAggregateService, employeeSnapshotService,
+                createAuditService(shardRouter, routingTemplate, routingTransactionManager, companyDictionary));
+
+        String csv = "John,Doe,bewire\n" +
+                "Sarah,Doe,ordina\n" +
+                "Richard,Doe,jworks\n" +
+                "Jane,Doe,bewire\n";
+
+        // Act
+        ImportReport report = shardedImportService.importCsv(new StringReader(csv));
+
+        // Assert
+        assertEquals(4, report.getImported());
+
+        List<JdbcTemplate> shards = Arrays.asList(jdbcTemplate, new JdbcTemplate(other));
+        int total = 0;
+
+        for (int shard = 0; shard < shards.size(); shard++) {
+            for (Map<String, Object> row : shards.get(shard).queryForList("SELECT id, company_id FROM employee")) {
+                assertEquals(shardRouter.shardForCompany(companyDictionary.nameOf((Integer) row.get("COMPANY_ID"))), shard);
+                assertEquals(shard, shardRouter.shardOf((Integer) row.get("ID")));
+                total++;
+            }
+        }
+        assertEquals(4, total);
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee", Integer.class));
+        assertEquals(ShardRouter.encodeId(5, 1), new JdbcTemplate(other).queryForObject("SELECT MIN(id) FROM employee", Integer.class));
+        assertEquals(2, new JdbcTemplate(other).queryForObject("SELECT COUNT(*) FROM employee_audit_outbox", Integer.class));
+        verify(employeeAggregateService, times(2)).imported(anyMap(), any(Date.class));
+
+        shardRouter.shutdown();
+        other.shutdown();
+        database.shutdown();
+    }
+
+    private static EmbeddedDatabase createDatabase() {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE company (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL UNIQUE)");
+        jdbcTemplate.execute("CREATE TABLE employee (id INT PRIMARY KEY, first_name VARCHAR(255), last_name VARCHAR(255), " +
+                "company_id INT, created TIMESTAMP, updated TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE hibernate_sequences (sequence_name VARCHAR(255) PRIMARY KEY, next_val BIGINT)");
+        // Like Hibernate the row holds the last id handed out, the next one is 5
+        jdbcTemplate.update("INSERT INTO hibernate_sequences VALUES ('default', 4)");
+        jdbcTemplate.execute("CREATE TABLE employee_audit_outbox (id BIGINT AUTO_INCREMENT PRIMARY KEY, employee_id INT NOT NULL, " +
+                "action VARCHAR(16) NOT NULL, changes TEXT, changed TIMESTAMP NOT NULL)");
+
+        return database;
+    }
+
+    private static EmployeeAuditServiceImpl createAuditService(ShardRouter shardRouter, JdbcTemplate jdbcTemplate,
+                                                               DataSourceTransactionManager transactionManager,
+                                                               CompanyDictionary companyDictionary) {
+        EmployeeAuditServiceImpl employeeAuditService = new EmployeeAuditServiceImpl(mock(EmployeeAuditEventRepository.class),
+                jdbcTemplate, shardRouter, new ObjectMapper(), new AuditProperties(), transactionManager, companyDictionary);
+        employeeAuditService.createHistoryTables();
+
+        return employeeAuditService;
+    }
+}
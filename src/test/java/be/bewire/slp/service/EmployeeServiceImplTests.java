@@ -1,9 +1,13 @@
 package be.bewire.slp.service;
 
+import be.bewire.slp.config.EmployeeProperties;
 import be.bewire.slp.domain.Employee;
+import be.bewire.slp.domain.EmployeeLookup;
 import be.bewire.slp.exceptions.MalformedBodyException;
 import be.bewire.slp.exceptions.ResourceNotFoundException;
 import be.bewire.slp.repository.EmployeeRepository;
+import be.bewire.slp.sharding.ShardRouter;
+import be.bewire.slp.snapshot.EmployeeSnapshot;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.function.Executable;
@@ -12,10 +16,23 @@ import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import javax.sql.DataSource;
+import javax.validation.Validation;
+
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,9 +52,22 @@ public class EmployeeServiceImplTests {
         @Autowired
         private EmployeeRepository employeeRepository;
 
+        @Autowired
+        private EmployeeAggregateService employeeAggregateService;
+
+        @Autowired
+        private EmployeeSnapshotService employeeSnapshotService;
+
+        @Autowired
+        private EmployeeAuditService employeeAuditService;
+
         @Bean
         public EmployeeService employeeService() {
-            return new EmployeeServiceImpl(employeeRepository);
+            return new EmployeeServiceImpl(employeeRepository, new EmployeeProperties(),
+                    Validation.buildDefaultValidatorFactory().getValidator(),
+                    new ShardRouter(Collections.singletonList(mock(DataSource.class))),
+                    mock(PlatformTransactionManager.class), employeeAggregateService,
+                    employeeSnapshotService, employeeAuditService);
         }
     }
 
@@ -54,6 +84,24 @@ public class EmployeeServiceImplTests {
     @MockBean
     private EmployeeRepository employeeRepositoryMock;
 
+    /**
+     * Mock bean of the aggregates.
+     */
+    @MockBean
+    private EmployeeAggregateService employeeAggregateServiceMock;
+
+    /**
+     * Mock bean of the snapshot, without a snapshot the reads go to the repository.
+     */
+    @MockBean
+    private EmployeeSnapshotService employeeSnapshotServiceMock;
+
+    /**
+     * Mock bean of the audit history.
+     */
+    @MockBean
+    private EmployeeAuditService employeeAuditServiceMock;
+
     /**
      * Test the basic flow of findAll.
      */
@@ -76,6 +124,45 @@ public class EmployeeServiceImplTests {
         verify(employeeRepositoryMock, times(1)).findAll();
     }
 
+    /**
+     * Test that findById is served from the snapshot once it is loaded.
+     */
+    @Test
+    public void whenFindByIdWithSnapshot_thenSkipRepository() {
+        // Arrange
+        EmployeeSnapshot.Writer writer = new EmployeeSnapshot.Writer();
+        writer.add(new Employee(1, "John", "Doe", "bewire"));
+        when(employeeSnapshotServiceMock.current())
+                .thenReturn(writer.build(1));
+
+        // Act
+        Employee result = employeeService.findById(1);
+        Executable missing = () -> employeeService.findById(2);
+
+        // Assert
+        assertEquals("John", result.getFirstName());
+        assertThrows(ResourceNotFoundException.class, missing);
+        verify(employeeRepositoryMock, never()).findById(anyInt());
+    }
+
+    /**
+     * Test that findAllByCompany queries the repository without a snapshot.
+     */
+    @Test
+    public void whenFindAllByCompany_thenReturnEmployeesOfCompany() {
+        // Arrange
+        List<Employee> expected = Collections.singletonList(new Employee(1, "John", "Doe", "bewire"));
+        when(employeeRepositoryMock.findAllByCompany("bewire"))
+                .thenReturn(expected);
+
+        // Act
+        List<Employee> result = employeeService.findAllByCompany("bewire");
+
+        // Assert
+        assertEquals(expected, result);
+        verify(employeeRepositoryMock, times(1)).findAllByCompany("bewire");
+    }
+
     /**
      * Test the basic flow of findById.
      */
@@ -113,6 +200,109 @@ public class EmployeeServiceImplTests {
         verify(employeeRepositoryMock, times(1)).findById(anyInt());
     }
 
+    /**
+     * Concurrent lookups of the same id should share one repository query, each joining caller gets its own copy.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenFindByIdConcurrently_thenQueryRepositoryOnce() throws Exception {
+        // Arrange
+        int id = 1;
+        Employee expected = new Employee(1, "John", "Doe", "bewire");
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+
+        when(employeeRepositoryMock.findById(id))
+                .thenAnswer(invocation -> {
+                    queryStarted.countDown();
+                    releaseQuery.await(5, TimeUnit.SECONDS);
+                    return Optional.of(expected);
+                });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // Act
+            Future<Employee> first = executor.submit(() -> employeeService.findById(id));
+            queryStarted.await(5, TimeUnit.SECONDS);
+            Future<Employee> second = executor.submit(() -> employeeService.findById(id));
+
+            // Give the second lookup time to join the pending query
+            Thread.sleep(100);
+            releaseQuery.countDown();
+
+            // Assert
+            Employee joined = second.get(5, TimeUnit.SECONDS);
+            assertSame(expected, first.get(5, TimeUnit.SECONDS));
+            assertNotSame(expected, joined);
+            assertEquals(expected.getId(), joined.getId());
+            assertEquals(expected.getFirstName(), joined.getFirstName());
+            verify(employeeRepositoryMock, times(1)).findById(anyInt());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test the basic flow of findAllById, missing ids are reported instead of thrown.
+     */
+    @Test
+    public void whenFindAllById_thenReturnFoundAndMissingEmployees() {
+        // Arrange
+        Employee john = new Employee(1, "John", "Doe", "bewire");
+        Employee sarah = new Employee(2, "Sarah", "Doe", "c4j");
+        when(employeeRepositoryMock.findAllById(Arrays.asList(2, 99, 1)))
+                .thenReturn(Arrays.asList(john, sarah));
+
+        // Act
+        EmployeeLookup result = employeeService.findAllById(Arrays.asList(2, 99, 1, 2));
+
+        // Assert
+        assertIterableEquals(Arrays.asList(sarah, john), result.getFound());
+        assertIterableEquals(Collections.singletonList(99), result.getMissing());
+        verify(employeeRepositoryMock, times(1)).findAllById(any());
+    }
+
+    /**
+     * Test that findAllById splits large id lists into chunked queries.
+     */
+    @Test
+    public void whenFindAllByIdWithManyIds_thenQueryInChunks() {
+        // Arrange
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id <= 250; id++)
+            ids.add(id);
+
+        when(employeeRepositoryMock.findAllById(any()))
+                .thenReturn(Collections.emptyList());
+
+        // Act
+        EmployeeLookup result = employeeService.findAllById(ids);
+
+        // Assert
+        assertEquals(250, result.getMissing().size());
+        verify(employeeRepositoryMock, times(3)).findAllById(any());
+    }
+
+    /**
+     * Test that findAllById refuses lookups over the maximum batch size.
+     */
+    @Test
+    public void whenFindAllByIdOverMaxSize_thenThrowMalformedBodyException() {
+        // Arrange
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id <= 501; id++)
+            ids.add(id);
+
+        // Act
+        Executable executable = () -> employeeService.findAllById(ids);
+
+        // Assert
+        assertThrows(MalformedBodyException.class, executable);
+        verify(employeeRepositoryMock, times(0)).findAllById(any());
+    }
+
     /**
      * Test the basic flow of create.
      */
@@ -130,6 +320,8 @@ public class EmployeeServiceImplTests {
         // Assert
         assertSame(expected, result);
         verify(employeeRepositoryMock, times(1)).save(any(Employee.class));
+        verify(employeeAggregateServiceMock, times(1)).created(expected);
+        verify(employeeAuditServiceMock, times(1)).created(expected);
     }
 
     /**
@@ -146,6 +338,7 @@ public class EmployeeServiceImplTests {
         // Assert
         assertThrows(MalformedBodyException.class, executable);
         verify(employeeRepositoryMock, times(0)).save(any(Employee.class));
+        verify(employeeAuditServiceMock, never()).created(any(Employee.class));
     }
 
     /**
@@ -171,6 +364,7 @@ public class EmployeeServiceImplTests {
         assertSame(expected, result);
         verify(employeeRepositoryMock, times(1)).findById(anyInt());
         verify(employeeRepositoryMock, times(1)).save(any(Employee.class));
+        verify(employeeAuditServiceMock, times(1)).updated(employee, employee);
     }
 
     /**
@@ -193,6 +387,71 @@ public class EmployeeServiceImplTests {
         verify(employeeRepositoryMock, times(0)).save(any(Employee.class));
     }
 
+    /**
+     * Test the basic flow of patch, only the supplied field changes.
+     */
+    @Test
+    public void whenPatch_thenUpdateOnlySuppliedFields() {
+        // Arrange
+        Employee employee = new Employee(1, "John", "Doe", "c4j");
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("company", "evance");
+
+        when(employeeRepositoryMock.findById(employee.getId()))
+                .thenReturn(Optional.of(employee));
+        when(employeeRepositoryMock.save(employee))
+                .thenReturn(employee);
+
+        // Act
+        Employee result = employeeService.patch(1, patch);
+
+        // Assert
+        assertEquals("evance", result.getCompany());
+        assertEquals("John", result.getFirstName());
+        verify(employeeRepositoryMock, times(1)).save(any(Employee.class));
+        verify(employeeAggregateServiceMock, times(1)).companyChanged("c4j", "evance", 1);
+        verify(employeeAuditServiceMock, times(1)).updated(argThat(before -> before.getCompany().equals("c4j")), same(employee));
+    }
+
+    /**
+     * Test that a patch without changes does not write.
+     */
+    @Test
+    public void whenPatchWithoutChanges_thenSkipSave() {
+        // Arrange
+        Employee employee = new Employee(1, "John", "Doe", "c4j");
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("company", "c4j");
+
+        when(employeeRepositoryMock.findById(employee.getId()))
+                .thenReturn(Optional.of(employee));
+
+        // Act
+        Employee result = employeeService.patch(1, patch);
+
+        // Assert
+        assertSame(employee, result);
+        verify(employeeRepositoryMock, times(0)).save(any(Employee.class));
+    }
+
+    /**
+     * Test that patch validates the supplied fields with the bean constraints.
+     */
+    @Test
+    public void whenPatchWithBlankField_thenThrowMalformedBodyException() {
+        // Arrange
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("lastName", null);
+
+        // Act
+        Executable executable = () -> employeeService.patch(1, patch);
+
+        // Assert
+        assertThrows(MalformedBodyException.class, executable);
+        verify(employeeRepositoryMock, times(0)).findById(anyInt());
+        verify(employeeRepositoryMock, times(0)).save(any(Employee.class));
+    }
+
     /**
      * Test the basic flow of deleteById.
      */
@@ -200,16 +459,20 @@ public class EmployeeServiceImplTests {
     public void whenDeleteByIdWithCorrectId_thenDeleteOneEmployee() {
         // Arrange
         int id = 1;
-        when(employeeRepositoryMock.existsById(id))
-                .thenReturn(true);
+        Employee employee = new Employee(id, "John", "Doe", "bewire");
+        when(employeeRepositoryMock.findById(id))
+                .thenReturn(Optional.of(employee));
 
         // Act
         Executable executable = () -> employeeService.deleteById(id);
 
         // Assert
         assertDoesNotThrow(executable);
-        verify(employeeRepositoryMock, times(1)).existsById(anyInt());
-        verify(employeeRepositoryMock, times(1)).deleteById(anyInt());
+        verify(employeeRepositoryMock, times(1)).findById(anyInt());
+        verify(employeeRepositoryMock, times(1)).delete(employee);
+        verify(employeeAggregateServiceMock, times(1)).deleted(employee);
+        verify(employeeSnapshotServiceMock, times(1)).deleted(id);
+        verify(employeeAuditServiceMock, times(1)).deleted(employee);
     }
 
     /**
@@ -219,15 +482,16 @@ public class EmployeeServiceImplTests {
     public void whenDeleteByIdWithIncorrectId_thenThrowResourceNotFoundException() {
         // Arrange
         int id = 99;
-        when(employeeRepositoryMock.existsById(id))
-                .thenReturn(false);
+        when(employeeRepositoryMock.findById(id))
+                .thenReturn(Optional.empty());
 
         // Act
         Executable executable = () -> employeeService.deleteById(id);
 
         // Assert
         assertThrows(ResourceNotFoundException.class, executable);
-        verify(employeeRepositoryMock, times(1)).existsById(anyInt());
-        verify(employeeRepositoryMock, times(0)).deleteById(anyInt());
+        verify(employeeRepositoryMock, times(1)).findById(anyInt());
+        verify(employeeRepositoryMock, times(0)).delete(any(Employee.class));
+        verify(employeeAggregateServiceMock, times(0)).deleted(any(Employee.class));
     }
 }
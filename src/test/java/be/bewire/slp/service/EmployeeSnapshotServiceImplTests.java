@@ -0,0 +1,130 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.config.EmployeeProperties;
+import be.bewire.slp.domain.Employee;
+import be.bewire.slp.repository.EmployeeRepository;
+import be.bewire.slp.sharding.ShardRouter;
+import be.bewire.slp.snapshot.EmployeeSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit testing for {@link be.bewire.slp.service.EmployeeSnapshotServiceImpl}
+ */
+@ExtendWith(SpringExtension.class)
+public class EmployeeSnapshotServiceImplTests {
+
+    /**
+     * Test Configuration.
+     */
+    @TestConfiguration
+    static class EmployeeSnapshotServiceImplTestsContextConfiguration {
+
+        @Autowired
+        private EmployeeRepository employeeRepository;
+
+        @Bean
+        public EmployeeSnapshotService employeeSnapshotService() {
+            EmployeeProperties properties = new EmployeeProperties();
+            properties.getSnapshot().setEnabled(true);
+
+            return new EmployeeSnapshotServiceImpl(employeeRepository,
+                    new ShardRouter(Collections.singletonList(mock(DataSource.class))), properties);
+        }
+    }
+
+    @Autowired
+    private EmployeeSnapshotService employeeSnapshotService;
+
+    /**
+     * Mock bean of the employee repository.
+     */
+    @MockBean
+    private EmployeeRepository employeeRepositoryMock;
+
+    /**
+     * The reload should read all employees page by page.
+     */
+    @Test
+    public void whenReload_thenSnapshotOfAllPages() {
+        // Arrange
+        List<Employee> firstPage = new ArrayList<>();
+        for (int id = 1; id <= 1000; id++)
+            firstPage.add(new Employee(id, "John", "Doe", "bewire"));
+
+        when(employeeRepositoryMock.findPage(eq(0), any(Pageable.class)))
+                .thenReturn(firstPage);
+        when(employeeRepositoryMock.findPage(eq(1000), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(new Employee(1001, "Sarah", "Doe", "c4j")));
+
+        // Act
+        employeeSnapshotService.reload();
+        EmployeeSnapshot result = employeeSnapshotService.current();
+
+        // Assert
+        assertEquals(1001, result.size());
+        assertEquals("Sarah", result.find(1001).getFirstName());
+        verify(employeeRepositoryMock, times(2)).findPage(anyInt(), any(Pageable.class));
+    }
+
+    /**
+     * Reported changes should be visible as soon as the report returns, in a new version.
+     */
+    @Test
+    public void givenLoaded_whenSavedAndDeleted_thenPublished() {
+        // Arrange
+        when(employeeRepositoryMock.findPage(eq(0), any(Pageable.class)))
+                .thenReturn(Arrays.asList(new Employee(1, "John", "Doe", "bewire"), new Employee(2, "Sarah", "Doe", "c4j")));
+        employeeSnapshotService.reload();
+        long loadedVersion = employeeSnapshotService.current().getVersion();
+
+        Employee saved = new Employee(3, "Richard", "Doe", "evance");
+
+        // Act
+        employeeSnapshotService.saved(saved);
+        saved.setFirstName("Changed after commit");
+        employeeSnapshotService.deleted(1);
+        EmployeeSnapshot result = employeeSnapshotService.current();
+
+        // Assert
+        assertEquals("Richard", result.find(3).getFirstName());
+        assertNull(result.find(1));
+        assertEquals(loadedVersion + 2, result.getVersion());
+    }
+
+    /**
+     * Without a loaded snapshot the reported changes are left to the load.
+     */
+    @Test
+    public void givenNotLoaded_whenSaved_thenNoSnapshot() {
+        // Arrange (the shared service may have been loaded by another test)
+        EmployeeProperties properties = new EmployeeProperties();
+        properties.getSnapshot().setEnabled(true);
+        EmployeeSnapshotService notLoaded = new EmployeeSnapshotServiceImpl(employeeRepositoryMock,
+                new ShardRouter(Collections.singletonList(mock(DataSource.class))), properties);
+
+        // Act
+        notLoaded.saved(new Employee(1, "John", "Doe", "bewire"));
+
+        // Assert
+        assertNull(notLoaded.current());
+        verifyNoInteractions(employeeRepositoryMock);
+    }
+}
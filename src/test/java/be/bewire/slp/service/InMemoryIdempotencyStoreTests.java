@@ -0,0 +1,133 @@
+package be.bewire.slp.service;
+
+import be.bewire.slp.config.IdempotencyProperties;
+import be.bewire.slp.exceptions.ConflictException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for {@link be.bewire.slp.service.InMemoryIdempotencyStore}
+ */
+public class InMemoryIdempotencyStoreTests {
+
+    private final IdempotencyProperties properties = new IdempotencyProperties();
+
+    private final InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(properties);
+
+    /**
+     * A replay with the same key should return the stored result without running again.
+     */
+    @Test
+    public void whenReplay_thenReturnStoredResult() {
+        // Arrange
+        AtomicInteger executions = new AtomicInteger();
+
+        // Act
+        String first = store.execute("key", "body", String.class, () -> "result-" + executions.incrementAndGet());
+        String second = store.execute("key", "body", String.class, () -> "result-" + executions.incrementAndGet());
+
+        // Assert
+        assertEquals("result-1", first);
+        assertEquals("result-1", second);
+        assertEquals(1, executions.get());
+    }
+
+    /**
+     * A concurrent duplicate should wait for the in-flight original.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenConcurrentDuplicate_thenWaitForOriginal() throws Exception {
+        // Arrange
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // Act
+            Future<String> original = executor.submit(() -> store.execute("key", "body", String.class, () -> {
+                started.countDown();
+                await(release);
+                return "result-" + executions.incrementAndGet();
+            }));
+            started.await(5, TimeUnit.SECONDS);
+            Future<String> duplicate = executor.submit(() -> store.execute("key", "body", String.class,
+                    () -> "result-" + executions.incrementAndGet()));
+            release.countDown();
+
+            // Assert
+            assertEquals("result-1", original.get(5, TimeUnit.SECONDS));
+            assertEquals("result-1", duplicate.get(5, TimeUnit.SECONDS));
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reusing a key for a different request should be refused.
+     */
+    @Test
+    public void whenKeyReusedWithOtherRequest_thenThrowConflictException() {
+        // Arrange
+        store.execute("key", "body", String.class, () -> "result");
+
+        // Act
+        Executable executable = () -> store.execute("key", "other body", String.class, () -> "other result");
+
+        // Assert
+        assertThrows(ConflictException.class, executable);
+    }
+
+    /**
+     * A failed request should not be replayed.
+     */
+    @Test
+    public void whenOriginalFails_thenRetryRunsAgain() {
+        // Arrange
+        assertThrows(IllegalStateException.class, () -> store.execute("key", "body", String.class, () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        // Act
+        String result = store.execute("key", "body", String.class, () -> "result");
+
+        // Assert
+        assertEquals("result", result);
+    }
+
+    /**
+     * The store should stay within its bound by evicting the oldest finished keys.
+     */
+    @Test
+    public void whenFull_thenEvictOldestKeys() {
+        // Arrange
+        properties.setMaxEntries(10);
+
+        // Act
+        for (int i = 0; i < 100; i++)
+            store.execute("key-" + i, "body", Integer.class, () -> 1);
+
+        // Assert
+        assertTrue(store.size() <= 10);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package be.bewire.slp.sharding;
+
+import be.bewire.slp.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing of {@link be.bewire.slp.sharding.ShardRouter} and {@link be.bewire.slp.sharding.ShardRoutingDataSource}
+ * against three embedded H2 databases.
+ */
+public class ShardRouterTests {
+
+    private final List<EmbeddedDatabase> databases = new ArrayList<>();
+
+    private ShardRouter shardRouter;
+
+    private JdbcTemplate routingTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        for (int shard = 0; shard < 3; shard++) {
+            EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                    .setType(EmbeddedDatabaseType.H2)
+                    .generateUniqueName(true)
+                    .build();
+
+            new JdbcTemplate(database).execute("CREATE TABLE employee (id INT PRIMARY KEY, company VARCHAR(255))");
+            databases.add(database);
+        }
+
+        List<DataSource> shards = new ArrayList<>(databases);
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(shards);
+        routing.afterPropertiesSet();
+
+        shardRouter = new ShardRouter(shards);
+        routingTemplate = new JdbcTemplate(routing);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        shardRouter.shutdown();
+        databases.forEach(EmbeddedDatabase::shutdown);
+    }
+
+    /**
+     * Rows written in a shard context should only end up in that shard, and be found again through their id.
+     */
+    @Test
+    public void whenWriteInShardContext_thenRouteToShard() {
+        // Arrange
+        List<Integer> ids = new ArrayList<>();
+
+        // Act
+        for (String company : Arrays.asList("bewire", "c4j", "evance", "ordina", "jworks", "cronos")) {
+            int shard = shardRouter.shardForCompany(company);
+            int id = ShardRouter.encodeId(ids.size() + 1, shard);
+
+            ShardContext.run(shard, () -> routingTemplate.update("INSERT INTO employee VALUES (?, ?)", id, company));
+            ids.add(id);
+        }
+
+        // Assert
+        for (int id : ids) {
+            int shard = shardRouter.shardOf(id);
+            String company = new JdbcTemplate(databases.get(shard))
+                    .queryForObject("SELECT company FROM employee WHERE id = ?", String.class, id);
+
+            assertEquals(shard, shardRouter.shardForCompany(company));
+        }
+
+        // Without a shard context the primary shard is used
+        assertEquals(new JdbcTemplate(databases.get(0)).queryForObject("SELECT COUNT(*) FROM employee", Integer.class),
+                routingTemplate.queryForObject("SELECT COUNT(*) FROM employee", Integer.class));
+    }
+
+    /**
+     * A scatter-gather call should run on every shard and return the results in shard order.
+     */
+    @Test
+    public void whenOnAllShards_thenGatherInShardOrder() {
+        // Arrange
+        for (int shard = 0; shard < databases.size(); shard++)
+            for (int row = 0; row <= shard; row++)
+                new JdbcTemplate(databases.get(shard)).update("INSERT INTO employee VALUES (?, 'bewire')", row);
+
+        // Act
+        List<Integer> counts = shardRouter.onAllShards(shard -> routingTemplate.queryForObject("SELECT COUNT(*) FROM employee", Integer.class));
+
+        // Assert
+        assertIterableEquals(Arrays.asList(1, 2, 3), counts);
+    }
+
+    /**
+     * Ids should keep their shard in the lowest bits, also for the highest sequence.
+     */
+    @Test
+    public void whenEncodeId_thenShardOfIdMatches() {
+        // Arrange
+        long[] sequences = {1, 2, 12345, ShardRouter.MAX_SEQUENCE};
+
+        // Act & Assert
+        for (long sequence : sequences) {
+            for (int shard = 0; shard < databases.size(); shard++) {
+                int id = ShardRouter.encodeId(sequence, shard);
+
+                assertTrue(id > 0);
+                assertEquals(shard, shardRouter.shardOf(id));
+            }
+        }
+    }
+
+    /**
+     * Ids of shards that do not exist should not be folded onto an existing shard.
+     */
+    @Test
+    public void givenIdOfMissingShard_whenShardOf_thenThrowResourceNotFoundException() {
+        // Arrange
+        int id = ShardRouter.encodeId(1, databases.size());
+
+        // Act
+        Executable executable = () -> shardRouter.shardOf(id);
+
+        // Assert
+        assertFalse(shardRouter.hasShardOf(id));
+        assertThrows(ResourceNotFoundException.class, executable);
+    }
+}
@@ -0,0 +1,125 @@
+package be.bewire.slp.snapshot;
+
+import be.bewire.slp.domain.Employee;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for {@link be.bewire.slp.snapshot.EmployeeSnapshot}
+ */
+public class EmployeeSnapshotTests {
+
+    /**
+     * A load in any order should be served in id order, with all fields.
+     */
+    @Test
+    public void whenBuild_thenFindEmployeesById() {
+        // Arrange
+        EmployeeSnapshot.Writer writer = new EmployeeSnapshot.Writer();
+        writer.add(employee(3, "Richard", "evance", 3000));
+        writer.add(employee(1, "John", "bewire", 1000));
+        writer.add(employee(2, "Sarah", "c4j", 2000));
+
+        // Act
+        EmployeeSnapshot snapshot = writer.build(1);
+
+        // Assert
+        assertEquals(3, snapshot.size());
+        assertEquals(Arrays.asList(1, 2, 3), ids(snapshot.findAll()));
+        assertEquals("Sarah", snapshot.find(2).getFirstName());
+        assertEquals("c4j", snapshot.find(2).getCompany());
+        assertEquals(new Date(2000), snapshot.find(2).getCreated());
+        assertNull(snapshot.find(4));
+    }
+
+    /**
+     * Changes should end up in a new snapshot, readers of the old snapshot keep seeing the old employees.
+     */
+    @Test
+    public void whenApply_thenNewSnapshotAndOldSnapshotUnchanged() {
+        // Arrange
+        EmployeeSnapshot.Writer writer = new EmployeeSnapshot.Writer();
+        writer.add(employee(1, "John", "bewire", 1000));
+        writer.add(employee(2, "Sarah", "c4j", 1000));
+        writer.add(employee(4, "Richard", "evance", 1000));
+        EmployeeSnapshot before = writer.build(1);
+
+        SortedMap<Integer, Employee> changes = new TreeMap<>();
+        changes.put(2, null);
+        changes.put(3, employee(3, "Jane", "ordina", 2000));
+        changes.put(4, employee(4, "Rick", "evance", 2000));
+        changes.put(9, null);
+
+        // Act
+        EmployeeSnapshot after = writer.apply(before, 2, changes);
+
+        // Assert
+        assertEquals(Arrays.asList(1, 3, 4), ids(after.findAll()));
+        assertEquals("Rick", after.find(4).getFirstName());
+        assertEquals("ordina", after.find(3).getCompany());
+        assertEquals(2, after.getVersion());
+
+        assertEquals(Arrays.asList(1, 2, 4), ids(before.findAll()));
+        assertEquals("Richard", before.find(4).getFirstName());
+        assertTrue(before.findAllByCompany("ordina").isEmpty());
+    }
+
+    /**
+     * A change that is older than the employee in the snapshot should not roll it back.
+     */
+    @Test
+    public void whenApplyOutdatedChange_thenKeepNewerEmployee() {
+        // Arrange
+        EmployeeSnapshot.Writer writer = new EmployeeSnapshot.Writer();
+        writer.add(employee(1, "John", "bewire", 5000));
+        EmployeeSnapshot before = writer.build(1);
+
+        SortedMap<Integer, Employee> changes = new TreeMap<>();
+        changes.put(1, employee(1, "Johnny", "bewire", 4000));
+
+        // Act
+        EmployeeSnapshot after = writer.apply(before, 2, changes);
+
+        // Assert
+        assertEquals("John", after.find(1).getFirstName());
+    }
+
+    /**
+     * The company filter should return the employees of one company in id order.
+     */
+    @Test
+    public void whenFindAllByCompany_thenEmployeesOfCompany() {
+        // Arrange
+        EmployeeSnapshot.Writer writer = new EmployeeSnapshot.Writer();
+        writer.add(employee(5, "John", "bewire", 1000));
+        writer.add(employee(2, "Sarah", "c4j", 1000));
+        writer.add(employee(1, "Richard", "bewire", 1000));
+
+        // Act
+        EmployeeSnapshot snapshot = writer.build(1);
+
+        // Assert
+        assertEquals(Arrays.asList(1, 5), ids(snapshot.findAllByCompany("bewire")));
+        assertTrue(snapshot.findAllByCompany("unknown").isEmpty());
+    }
+
+    private static Employee employee(int id, String firstName, String company, long updated) {
+        Employee employee = new Employee(id, firstName, "Doe", company);
+        employee.setCreated(new Date(updated));
+        employee.setUpdated(new Date(updated));
+
+        return employee;
+    }
+
+    private static List<Integer> ids(List<Employee> employees) {
+        return employees.stream().map(Employee::getId).collect(Collectors.toList());
+    }
+}
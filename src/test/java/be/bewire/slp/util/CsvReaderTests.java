@@ -0,0 +1,70 @@
+package be.bewire.slp.util;
+
+import be.bewire.slp.exceptions.MalformedBodyException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for {@link be.bewire.slp.util.CsvReader}
+ */
+public class CsvReaderTests {
+
+    /**
+     * Quoted fields may hold separators, doubled quotes and line breaks.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void whenNext_thenParseQuotedFields() throws Exception {
+        // Arrange
+        CsvReader reader = new CsvReader(new StringReader("\"Doe, \"\"Jr.\"\"\",\"two\nlines\"\r\nlast,line"), 100);
+
+        // Act
+        // Assert
+        assertIterableEquals(Arrays.asList("Doe, \"Jr.\"", "two\nlines"), reader.next());
+        assertEquals(1, reader.getRecordLine());
+        assertIterableEquals(Arrays.asList("last", "line"), reader.next());
+        assertEquals(3, reader.getRecordLine());
+        assertNull(reader.next());
+    }
+
+    /**
+     * A quote that is never closed should be refused with the line of its record.
+     *
+     * @throws Exception /
+     */
+    @Test
+    public void givenUnclosedQuote_whenNext_thenThrowMalformedBodyException() throws Exception {
+        // Arrange
+        CsvReader reader = new CsvReader(new StringReader("John,Doe,bewire\nSarah,\"Doe,c4j\nRichard,Doe,evance\n"), 100);
+        reader.next();
+
+        // Act
+        Executable executable = reader::next;
+
+        // Assert
+        MalformedBodyException ex = assertThrows(MalformedBodyException.class, executable);
+        assertTrue(ex.getMessage().contains("line 2"), ex.getMessage());
+    }
+
+    /**
+     * A field beyond the maximum length should be refused instead of being read into memory.
+     */
+    @Test
+    public void givenFieldTooLong_whenNext_thenThrowMalformedBodyException() {
+        // Arrange
+        CsvReader reader = new CsvReader(new StringReader("John,Doe,bewire-bewire\n"), 10);
+
+        // Act
+        Executable executable = reader::next;
+
+        // Assert
+        MalformedBodyException ex = assertThrows(MalformedBodyException.class, executable);
+        assertTrue(ex.getMessage().contains("line 1"), ex.getMessage());
+    }
+}